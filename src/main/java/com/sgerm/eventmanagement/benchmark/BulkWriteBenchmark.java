@@ -0,0 +1,169 @@
+package com.sgerm.eventmanagement.benchmark;
+
+import com.sgerm.eventmanagement.model.Notification;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Compara la inserción masiva con IDs IDENTITY y con secuencias pooled-lo.
+ *
+ * Con IDENTITY el ID lo asigna la base de datos al insertar, así que Hibernate hace un
+ * INSERT por entidad y lee la clave generada: no puede agrupar en lotes JDBC. Con una
+ * secuencia pooled-lo obtiene un bloque de IDs por consulta y agrupa los INSERT en
+ * lotes. Como todas las entidades usan ya secuencias, el benchmark reproduce ambos
+ * patrones con JDBC sobre dos tablas propias con las mismas columnas.
+ *
+ * Se ejecuta con el perfil 'benchmark', crea sus tablas, las borra al terminar y
+ * cierra la aplicación:
+ * mvn spring-boot:run -Dspring-boot.run.profiles=benchmark
+ */
+@Component
+@Profile("benchmark")
+@RequiredArgsConstructor
+@Slf4j
+public class BulkWriteBenchmark implements ApplicationRunner {
+
+    private static final String IDENTITY_TABLE = "benchmark_identity";
+    private static final String POOLED_TABLE = "benchmark_pooled";
+    private static final String POOLED_SEQUENCE = "benchmark_pooled_seq";
+
+    private static final String INSERT_IDENTITY_SQL =
+            "INSERT INTO " + IDENTITY_TABLE + " (title, message, created_at) VALUES (?, ?, ?)";
+    private static final String INSERT_POOLED_SQL =
+            "INSERT INTO " + POOLED_TABLE + " (id, title, message, created_at) VALUES (?, ?, ?, ?)";
+
+    private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${sgerm.benchmark.rows:5000}")
+    private int rows;
+
+    @Value("${sgerm.benchmark.rounds:3}")
+    private int rounds;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    private TransactionTemplate transactionTemplate;
+    private String nextIdSql;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        nextIdSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                .getSequenceSupport().getSequenceNextValString(POOLED_SEQUENCE);
+        createTables();
+        try {
+            log.info("Benchmark de escritura masiva: {} filas, {} rondas, lote {}", rows, rounds, batchSize);
+            log.info(String.format("%-24s %12s %12s", "IDs", "mejor ms", "filas/s"));
+            report("IDENTITY", this::insertIdentity);
+            report("pooled-lo (lote " + batchSize + ")", this::insertPooled);
+        } finally {
+            dropTables();
+        }
+        SpringApplication.exit(context, () -> 0);
+    }
+
+    /**
+     * Ejecuta una variante varias rondas (la primera calienta la JVM) y muestra la mejor
+     */
+    private void report(String variant, ConnectionCallback<Long> insert) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            best = Math.min(best, transactionTemplate.execute(status -> jdbcTemplate.execute(insert)));
+        }
+        long millis = Math.max(1, best / 1_000_000);
+        log.info(String.format("%-24s %12d %12d", variant, millis, rows * 1000L / millis));
+    }
+
+    /**
+     * Un INSERT por fila leyendo la clave generada, como hace Hibernate con IDENTITY.
+     * Devuelve los nanosegundos empleados.
+     */
+    private Long insertIdentity(Connection connection) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_IDENTITY_SQL, new String[] {"id"})) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (int i = 0; i < rows; i++) {
+                insert.setString(1, "Benchmark " + i);
+                insert.setString(2, "Notificación de prueba");
+                insert.setTimestamp(3, now);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Un nextval por bloque de IDs e INSERT en lotes JDBC, como hace Hibernate con
+     * pooled-lo. Devuelve los nanosegundos empleados.
+     */
+    private Long insertPooled(Connection connection) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement nextId = connection.prepareStatement(nextIdSql);
+             PreparedStatement insert = connection.prepareStatement(INSERT_POOLED_SQL)) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            long low = 0;
+            for (int i = 0; i < rows; i++) {
+                int offset = i % Notification.ID_ALLOCATION_SIZE;
+                if (offset == 0) {
+                    try (ResultSet value = nextId.executeQuery()) {
+                        value.next();
+                        low = value.getLong(1);
+                    }
+                }
+                insert.setLong(1, low + offset);
+                insert.setString(2, "Benchmark " + i);
+                insert.setString(3, "Notificación de prueba");
+                insert.setTimestamp(4, now);
+                insert.addBatch();
+                if ((i + 1) % batchSize == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void createTables() {
+        dropTables();
+        jdbcTemplate.execute("CREATE TABLE " + IDENTITY_TABLE + " (id BIGINT GENERATED BY DEFAULT AS IDENTITY " +
+                "PRIMARY KEY, title VARCHAR(200) NOT NULL, message VARCHAR(1000), created_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE " + POOLED_TABLE + " (id BIGINT PRIMARY KEY, " +
+                "title VARCHAR(200) NOT NULL, message VARCHAR(1000), created_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE SEQUENCE " + POOLED_SEQUENCE + " START WITH 1 INCREMENT BY "
+                + Notification.ID_ALLOCATION_SIZE);
+    }
+
+    private void dropTables() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + IDENTITY_TABLE);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + POOLED_TABLE);
+        jdbcTemplate.execute("DROP SEQUENCE IF EXISTS " + POOLED_SEQUENCE);
+    }
+}
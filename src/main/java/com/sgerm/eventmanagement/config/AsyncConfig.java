@@ -0,0 +1,129 @@
+package com.sgerm.eventmanagement.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Carriles de despacho para las tareas asíncronas de notificaciones y emails.
+ *
+ * Cada carril es un pool acotado con su propia cola y política de rechazo, de modo que
+ * una campaña masiva encolada en el carril 'bulk' no retrasa los avisos de seguridad
+ * del carril 'critical':
+ * - critical: prioridades URGENT y CRITICAL y avisos de seguridad. Nunca descarta: si
+ *   se llena, la tarea se ejecuta en el hilo que la envía.
+ * - standard: prioridades NORMAL y HIGH. También ejecuta en el llamador si se llena.
+ * - bulk: prioridad LOW, envíos masivos y limpiezas. Si se llena rechaza la tarea en
+ *   lugar de frenar al llamador.
+ *
+ * Además de los @Async, el despacho de los envíos masivos y los reintentos de entrega
+ * usan el carril de su prioridad mediante DispatchLaneService.laneFor.
+ *
+ * Al declarar ejecutores propios Spring Boot deja de crear el suyo, así que aquí se
+ * declara también applicationTaskExecutor (con la configuración spring.task.execution)
+ * para el resto de @Async y las peticiones asíncronas de Spring MVC.
+ */
+@Configuration
+@Slf4j
+public class AsyncConfig implements AsyncConfigurer {
+
+    public static final String CRITICAL_LANE = "criticalLaneExecutor";
+    public static final String STANDARD_LANE = "standardLaneExecutor";
+    public static final String BULK_LANE = "bulkLaneExecutor";
+
+    @Value("${sgerm.dispatch.critical.threads:4}")
+    private int criticalThreads;
+
+    @Value("${sgerm.dispatch.critical.queue-capacity:1000}")
+    private int criticalQueueCapacity;
+
+    @Value("${sgerm.dispatch.standard.threads:4}")
+    private int standardThreads;
+
+    @Value("${sgerm.dispatch.standard.queue-capacity:5000}")
+    private int standardQueueCapacity;
+
+    @Value("${sgerm.dispatch.bulk.threads:2}")
+    private int bulkThreads;
+
+    @Value("${sgerm.dispatch.bulk.queue-capacity:10000}")
+    private int bulkQueueCapacity;
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = CRITICAL_LANE)
+    public ThreadPoolTaskExecutor criticalLaneExecutor() {
+        return lane("lane-critical-", criticalThreads, criticalQueueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean(name = STANDARD_LANE)
+    public ThreadPoolTaskExecutor standardLaneExecutor() {
+        return lane("lane-standard-", standardThreads, standardQueueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean(name = BULK_LANE)
+    public ThreadPoolTaskExecutor bulkLaneExecutor() {
+        return lane("lane-bulk-", bulkThreads, bulkQueueCapacity, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (error, method, params) -> {
+            // log.error("Error en la tarea asíncrona {}.{}: {}",
+            //         method.getDeclaringClass().getSimpleName(), method.getName(), error.getMessage(), error);
+        };
+    }
+
+    private static ThreadPoolTaskExecutor lane(String prefix, int threads, int queueCapacity,
+                                               RejectedExecutionHandler policy) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setDaemon(true);
+        executor.setRejectedExecutionHandler(new CountingRejectionHandler(policy));
+        return executor;
+    }
+
+    /**
+     * Política de rechazo que cuenta las tareas rechazadas antes de aplicar la del carril
+     */
+    public static final class CountingRejectionHandler implements RejectedExecutionHandler {
+        private final RejectedExecutionHandler delegate;
+        private final LongAdder rejected = new LongAdder();
+
+        private CountingRejectionHandler(RejectedExecutionHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            rejected.increment();
+            delegate.rejectedExecution(task, executor);
+        }
+
+        public long getRejected() {
+            return rejected.sum();
+        }
+
+        public String getPolicy() {
+            return delegate.getClass().getSimpleName();
+        }
+    }
+}
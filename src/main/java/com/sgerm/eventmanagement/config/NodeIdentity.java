@@ -0,0 +1,50 @@
+package com.sgerm.eventmanagement.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Identidad de este nodo para los trabajos en segundo plano.
+ *
+ * Las exportaciones de asistentes, los lotes de entradas y los envíos masivos guardan
+ * su estado en memoria y su fichero en el disco local del nodo que los ejecuta. Por eso
+ * su id empieza por el del nodo ('nodo.uuid'): el balanceador debe enrutar las consultas
+ * y descargas de un trabajo al nodo indicado en el id. Si una llega a otro nodo se
+ * rechaza indicando a cuál pertenece, en lugar de responder que el trabajo no existe.
+ */
+@Component
+public class NodeIdentity {
+
+    private static final char SEPARATOR = '.';
+
+    private final String nodeId;
+
+    public NodeIdentity(@Value("${sgerm.node-id:${HOSTNAME:local}}") String nodeId) {
+        // Sin puntos, para que el separador del id del trabajo no sea ambiguo
+        this.nodeId = nodeId.replaceAll("[^A-Za-z0-9_-]", "-");
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Genera el id de un trabajo ejecutado en este nodo
+     */
+    public String newJobId() {
+        return nodeId + SEPARATOR + UUID.randomUUID();
+    }
+
+    /**
+     * Verifica que un trabajo se creó en este nodo; si no, la petición se enrutó a otro
+     */
+    public void requireLocal(String jobId) {
+        int separator = jobId.lastIndexOf(SEPARATOR);
+        if (separator > 0 && !jobId.substring(0, separator).equals(nodeId)) {
+            throw new IllegalStateException("El trabajo pertenece al nodo " + jobId.substring(0, separator) +
+                    "; la petición debe enrutarse a ese nodo");
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.sgerm.eventmanagement.config;
+
+import com.sgerm.eventmanagement.service.EventCacheService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caché de páginas HTML completas para visitantes anónimos.
+ *
+ * Guarda el cuerpo renderizado junto con su versión comprimida en gzip, de modo que
+ * un acierto no llega al controlador ni a Thymeleaf. Las entradas se descartan cuando
+ * cambia algún evento (generación del catálogo) o al cumplirse el TTL.
+ *
+ * La clave solo incluye los parámetros de sgerm.page-cache.key-params: el resto
+ * (marcas de campaña, parámetros anti-caché) no genera entradas nuevas. Un MISS
+ * cacheable lleva las mismas cabeceras ETag, Vary y Cache-Control que un HIT.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 100)
+@RequiredArgsConstructor
+@Slf4j
+public class PageCacheFilter extends OncePerRequestFilter {
+
+    private static final String CACHE_HEADER = "X-Page-Cache";
+
+    private final EventCacheService eventCacheService;
+
+    @Value("${sgerm.page-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("#{'${sgerm.page-cache.paths:/,/home,/events}'.split(',')}")
+    private Set<String> cacheablePaths;
+
+    @Value("#{'${sgerm.page-cache.key-params:page,size,sort,category,q}'.split(',')}")
+    private Set<String> keyParams;
+
+    @Value("${sgerm.page-cache.max-entries:200}")
+    private int maxEntries;
+
+    @Value("${sgerm.page-cache.max-body-bytes:524288}")
+    private int maxBodyBytes;
+
+    @Value("${sgerm.page-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final Map<String, CachedPage> pages = new LinkedHashMap<>(64, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || !"GET".equals(request.getMethod())
+                || !cacheablePaths.contains(request.getRequestURI())
+                || request.getUserPrincipal() != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String key = cacheKey(request);
+        long generation = eventCacheService.getCatalogGeneration();
+        CachedPage page = get(key, generation);
+
+        if (page != null) {
+            hits.increment();
+            write(request, response, page, "HIT");
+            return;
+        }
+
+        misses.increment();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+
+        byte[] body = wrapper.getContentAsByteArray();
+        String contentType = wrapper.getContentType();
+        boolean cacheable = wrapper.getStatus() == HttpServletResponse.SC_OK
+                && contentType != null && contentType.startsWith("text/html")
+                && !wrapper.getHeaderNames().contains(HttpHeaders.SET_COOKIE)
+                && body.length <= maxBodyBytes;
+
+        if (cacheable) {
+            CachedPage stored = new CachedPage(body, gzip(body), contentType,
+                    "\"p" + DigestUtils.md5DigestAsHex(body) + "\"", generation,
+                    System.nanoTime() + ttlSeconds * 1_000_000_000L);
+            put(key, stored);
+            setCacheHeaders(wrapper, stored, "MISS");
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /**
+     * Obtiene las métricas de la caché de páginas
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (pages) {
+            stats.put("entries", pages.size());
+            stats.put("bytes", pages.values().stream().mapToLong(CachedPage::size).sum());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("notModified", notModified.sum());
+        return stats;
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, CachedPage page, String status)
+            throws IOException {
+        setCacheHeaders(response, page, status);
+
+        if (page.etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            notModified.increment();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(page.contentType);
+        byte[] body = page.body;
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = page.gzipBody;
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static void setCacheHeaders(HttpServletResponse response, CachedPage page, String status) {
+        response.setHeader(CACHE_HEADER, status);
+        response.setHeader(HttpHeaders.ETAG, page.etag);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+    }
+
+    private CachedPage get(String key, long generation) {
+        synchronized (pages) {
+            CachedPage page = pages.get(key);
+            if (page == null) {
+                return null;
+            }
+            if (page.generation != generation || page.expiresAtNanos - System.nanoTime() <= 0) {
+                pages.remove(key);
+                return null;
+            }
+            return page;
+        }
+    }
+
+    private void put(String key, CachedPage page) {
+        synchronized (pages) {
+            pages.put(key, page);
+            while (pages.size() > maxEntries) {
+                pages.remove(pages.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Clave: ruta más los parámetros que afectan a la página, ordenados para que el
+     * orden en la URL no importe
+     */
+    private String cacheKey(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        parameters.keySet().retainAll(keyParams);
+        parameters.forEach((name, values) -> key.append('&').append(name).append('=').append(Arrays.toString(values)));
+        return key.toString();
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(body);
+        }
+        return buffer.toByteArray();
+    }
+
+    private record CachedPage(byte[] body, byte[] gzipBody, String contentType, String etag,
+                              long generation, long expiresAtNanos) {
+
+        long size() {
+            return body.length + gzipBody.length;
+        }
+    }
+}
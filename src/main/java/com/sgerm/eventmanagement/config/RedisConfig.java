@@ -0,0 +1,26 @@
+package com.sgerm.eventmanagement.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Configuración de Redis compartida (caché distribuida y mensajería pub/sub)
+ */
+@Configuration
+public class RedisConfig {
+
+    /**
+     * Contenedor de suscripciones pub/sub. Solo se crea si Redis está habilitado,
+     * de modo que los perfiles sin Redis no intenten conectarse.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "sgerm.cache.redis.enabled", havingValue = "true")
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+}
@@ -0,0 +1,65 @@
+package com.sgerm.eventmanagement.controller;
+
+import com.sgerm.eventmanagement.service.AssetService;
+import com.sgerm.eventmanagement.service.ImageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Sirve los ficheros públicos subidos (imágenes de eventos y de perfil y sus miniaturas)
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class AssetController {
+
+    private static final String PREFIX = "/assets/";
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+
+    private final AssetService assetService;
+    private final ImageService imageService;
+
+    @Value("${sgerm.assets.max-age-seconds:2592000}")
+    private long maxAgeSeconds;
+
+    /**
+     * Obtiene un fichero público con soporte de rangos y validación condicional.
+     * Con 'w' se sirve la miniatura más pequeña que cubra ese ancho, si existe.
+     */
+    @RequestMapping(value = "/assets/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void getAsset(@RequestParam(required = false) Integer w,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String requested = PATH_HELPER.getPathWithinApplication(request).substring(PREFIX.length());
+        String path = w != null ? imageService.resolveVariant(requested, w) : requested;
+
+        Optional<Path> file = assetService.resolvePublicAsset(path);
+        if (file.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // Los ficheros direccionados por contenido no cambian nunca. Si se pidió una
+        // miniatura que aún no existe, la original se cachea poco para no fijarla en el cliente
+        String cacheControl;
+        if (w != null && path.equals(requested)) {
+            cacheControl = "public, max-age=60";
+        } else if (w == null && imageService.isImmutable(path)) {
+            cacheControl = "public, max-age=31536000, immutable";
+        } else {
+            cacheControl = "public, max-age=" + maxAgeSeconds;
+        }
+        assetService.serve(file.get(), cacheControl, request, response);
+    }
+}
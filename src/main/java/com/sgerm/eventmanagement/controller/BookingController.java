@@ -0,0 +1,93 @@
+package com.sgerm.eventmanagement.controller;
+
+import com.sgerm.eventmanagement.dto.BatchResult;
+import com.sgerm.eventmanagement.dto.BookingSummary;
+import com.sgerm.eventmanagement.model.Booking;
+import com.sgerm.eventmanagement.model.BookingStatus;
+import com.sgerm.eventmanagement.model.User;
+import com.sgerm.eventmanagement.service.BookingService;
+import com.sgerm.eventmanagement.service.ExportService;
+import com.sgerm.eventmanagement.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Controlador REST para la consulta y exportación de reservas
+ */
+@RestController
+@RequestMapping("/api/bookings")
+@RequiredArgsConstructor
+@Slf4j
+public class BookingController {
+
+    private final BookingService bookingService;
+    private final UserService userService;
+    private final ExportService exportService;
+
+    /**
+     * Obtiene varias reservas propias por ID en una sola petición. Las reservas
+     * de otros usuarios se tratan como inexistentes.
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<BatchResult<BookingSummary>> getBookingsByIds(@RequestParam List<Long> ids,
+                                                                        Authentication authentication) {
+        BatchResult.validateIds(ids);
+        User user = getCurrentUser(authentication);
+
+        Map<Long, Booking> found = bookingService.getUserBookingsByIds(ids, user).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        return ResponseEntity.ok(BatchResult.of(ids, found, BookingSummary::from));
+    }
+
+    /**
+     * Exporta las reservas de un estado en streaming (NDJSON o CSV)
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @RequestParam BookingStatus status,
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        StreamingResponseBody body = out -> exportService.exportBookings(status, exportFormat, out);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"bookings-"
+                        + status.name().toLowerCase() + "." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    private User getCurrentUser(Authentication authentication) {
+        return userService.getUserByUsername(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
+    }
+
+    /**
+     * Manejo de errores
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleGenericException(Exception e) {
+        // log.error("Error interno del servidor: {}", e.getMessage(), e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error interno del servidor"));
+    }
+}
@@ -0,0 +1,279 @@
+package com.sgerm.eventmanagement.controller;
+
+import com.sgerm.eventmanagement.dto.BatchResult;
+import com.sgerm.eventmanagement.dto.EventSummary;
+import com.sgerm.eventmanagement.dto.VersionStamp;
+import com.sgerm.eventmanagement.model.Event;
+import com.sgerm.eventmanagement.model.EventCategory;
+import com.sgerm.eventmanagement.model.EventStatus;
+import com.sgerm.eventmanagement.model.User;
+import com.sgerm.eventmanagement.service.EventService;
+import com.sgerm.eventmanagement.service.ExportService;
+import com.sgerm.eventmanagement.service.ImageService;
+import com.sgerm.eventmanagement.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Controlador REST para la consulta de eventos
+ */
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+@Slf4j
+public class EventController {
+
+    private final EventService eventService;
+    private final UserService userService;
+    private final ExportService exportService;
+    private final ImageService imageService;
+
+    /**
+     * Obtiene el detalle de un evento. Los borradores y eventos privados solo los ven
+     * su organizador y los administradores; para el resto no existen.
+     */
+    @GetMapping("/{eventId}")
+    public ResponseEntity<EventSummary> getEvent(@PathVariable Long eventId, WebRequest request,
+                                                 Authentication authentication) {
+        // El ETag se toma de la misma copia que se sirve, aunque venga de caché
+        Event event = eventService.getEventById(eventId);
+        if (!eventService.isPubliclyVisible(event) && !eventService.isVisibleTo(event, findUser(authentication))) {
+            throw new IllegalArgumentException("Evento no encontrado con ID: " + eventId);
+        }
+        if (isNotModified(request, eventService.getEventVersion(event))) {
+            return null;
+        }
+
+        eventService.recordView(event);
+
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(EventSummary.from(event));
+    }
+
+    /**
+     * Obtiene varios eventos por ID en una sola petición, en el orden pedido. Los
+     * eventos que el usuario no puede ver se devuelven como no encontrados.
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<BatchResult<EventSummary>> getEventsByIds(@RequestParam List<Long> ids,
+                                                                    Authentication authentication) {
+        BatchResult.validateIds(ids);
+
+        List<Event> events = eventService.getEventsByIds(ids);
+        User user = events.stream().allMatch(eventService::isPubliclyVisible) ? null : findUser(authentication);
+        Map<Long, Event> found = events.stream()
+                .filter(event -> eventService.isVisibleTo(event, user))
+                .collect(Collectors.toMap(Event::getId, Function.identity()));
+
+        return ResponseEntity.ok(BatchResult.of(ids, found, EventSummary::from));
+    }
+
+    /**
+     * Exporta los eventos de un estado en streaming (NDJSON o CSV)
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportEvents(
+            @RequestParam EventStatus status,
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        StreamingResponseBody body = out -> exportService.exportEvents(status, exportFormat, out);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"events-"
+                        + status.name().toLowerCase() + "." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    /**
+     * Sube la imagen de un evento (organizador del evento)
+     */
+    @PostMapping(value = "/{eventId}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<EventSummary> uploadEventImage(
+            @PathVariable Long eventId,
+            @RequestParam("file") MultipartFile file,
+            Authentication authentication) throws IOException {
+
+        User user = userService.getUserByUsername(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
+
+        // Los permisos se comprueban antes de escribir nada en disco
+        eventService.checkEventPermissions(eventId, user);
+        ImageService.StoredImage image = imageService.store(file);
+        try {
+            return ResponseEntity.ok(EventSummary.from(eventService.updateEventImage(eventId, image.url(), user)));
+        } catch (RuntimeException e) {
+            imageService.discard(image);
+            throw e;
+        }
+    }
+
+    /**
+     * Obtiene eventos similares: quienes reservaron este evento también reservaron
+     */
+    @GetMapping("/{eventId}/similar")
+    public ResponseEntity<List<EventSummary>> getSimilarEvents(
+            @PathVariable Long eventId,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        List<Event> events = eventService.getSimilarEvents(eventId, limit);
+
+        return ResponseEntity.ok(events.stream().map(EventSummary::from).toList());
+    }
+
+    /**
+     * Obtiene recomendaciones para el usuario autenticado
+     */
+    @GetMapping("/recommended")
+    public ResponseEntity<List<EventSummary>> getRecommendedEvents(
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
+
+        User user = userService.getUserByUsername(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
+        List<Event> events = eventService.getRecommendedEvents(user, limit);
+
+        return ResponseEntity.ok(events.stream().map(EventSummary::from).toList());
+    }
+
+    /**
+     * Obtiene los eventos populares
+     */
+    @GetMapping("/popular")
+    public ResponseEntity<List<EventSummary>> getPopularEvents(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
+
+        if (isNotModified(request, eventService.getCatalogVersion()
+                .withVariant(Objects.hash("popular", page, size, eventService.getRankingSignature())))) {
+            return null;
+        }
+
+        List<Event> events = eventService.getPopularEvents(PageRequest.of(page, size));
+
+        return catalogResponse(events);
+    }
+
+    /**
+     * Obtiene los eventos en tendencia, opcionalmente por categoría
+     */
+    @GetMapping("/trending")
+    public ResponseEntity<List<EventSummary>> getTrendingEvents(
+            @RequestParam(required = false) EventCategory category,
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+
+        if (isNotModified(request, eventService.getCatalogVersion()
+                .withVariant(Objects.hash("trending", category, limit, eventService.getRankingSignature())))) {
+            return null;
+        }
+
+        List<Event> events = eventService.getTrendingEvents(category, limit);
+
+        return catalogResponse(events);
+    }
+
+    /**
+     * Obtiene los eventos que se solapan con un rango de fechas (vista de calendario)
+     */
+    @GetMapping("/calendar")
+    public ResponseEntity<List<EventSummary>> getCalendarEvents(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            WebRequest request) {
+
+        if (isNotModified(request, eventService.getCatalogVersion().withVariant(Objects.hash("calendar", from, to)))) {
+            return null;
+        }
+
+        List<Event> events = eventService.getCalendarEvents(from, to);
+
+        return catalogResponse(events);
+    }
+
+    /**
+     * Busca eventos por tags. Con match=all exige todos los tags; con match=any, alguno
+     */
+    @GetMapping("/by-tags")
+    public ResponseEntity<List<EventSummary>> getEventsByTags(
+            @RequestParam List<String> tags,
+            @RequestParam(defaultValue = "all") String match,
+            @RequestParam(defaultValue = "20") int limit,
+            WebRequest request) {
+
+        boolean matchAll = switch (match.toLowerCase()) {
+            case "all" -> true;
+            case "any" -> false;
+            default -> throw new IllegalArgumentException("Valor de match no válido: " + match);
+        };
+        if (isNotModified(request, eventService.getCatalogVersion()
+                .withVariant(Objects.hash("tags", tags, matchAll, limit)))) {
+            return null;
+        }
+
+        List<Event> events = eventService.getEventsByTags(tags, matchAll, limit);
+
+        return catalogResponse(events);
+    }
+
+    /**
+     * Evalúa If-None-Match / If-Modified-Since. Si el cliente ya tiene la versión
+     * vigente, Spring responde 304 sin cuerpo y no se cargan los eventos.
+     */
+    private boolean isNotModified(WebRequest request, VersionStamp stamp) {
+        return request.checkNotModified(stamp.getEtag(), stamp.getLastModified());
+    }
+
+    private ResponseEntity<List<EventSummary>> catalogResponse(List<Event> events) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(events.stream().map(EventSummary::from).toList());
+    }
+
+    private User findUser(Authentication authentication) {
+        return authentication == null ? null : userService.getUserByUsername(authentication.getName()).orElse(null);
+    }
+
+    /**
+     * Manejo de errores
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalStateException(IllegalStateException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleGenericException(Exception e) {
+        // log.error("Error interno del servidor: {}", e.getMessage(), e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error interno del servidor"));
+    }
+}
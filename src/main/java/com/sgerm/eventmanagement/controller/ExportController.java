@@ -0,0 +1,111 @@
+package com.sgerm.eventmanagement.controller;
+
+import com.sgerm.eventmanagement.model.Event;
+import com.sgerm.eventmanagement.model.User;
+import com.sgerm.eventmanagement.service.AssetService;
+import com.sgerm.eventmanagement.service.AttendeeExportService;
+import com.sgerm.eventmanagement.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Controlador REST para las exportaciones a Excel de asistentes
+ */
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+@Slf4j
+public class ExportController {
+
+    private static final MediaType XLSX =
+            MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final AttendeeExportService attendeeExportService;
+    private final UserService userService;
+    private final AssetService assetService;
+
+    /**
+     * Encola la exportación de asistentes de un evento; el progreso se consulta con el ID devuelto
+     */
+    @PostMapping("/events/{eventId}/attendees")
+    public ResponseEntity<Map<String, Object>> startAttendeeExport(@PathVariable Long eventId,
+                                                                   Authentication authentication) {
+        Map<String, Object> job = attendeeExportService.startExport(eventId, getCurrentUser(authentication));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    /**
+     * Descarga directa de los asistentes de un evento, generada al vuelo
+     */
+    @GetMapping("/events/{eventId}/attendees.xlsx")
+    public ResponseEntity<StreamingResponseBody> streamAttendeeExport(@PathVariable Long eventId,
+                                                                      Authentication authentication) {
+        // Los permisos se comprueban antes de confirmar la respuesta
+        Event event = attendeeExportService.getExportableEvent(eventId, getCurrentUser(authentication));
+        StreamingResponseBody body = out -> attendeeExportService.streamExport(event, out);
+
+        return ResponseEntity.ok()
+                .contentType(XLSX)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"attendees-" + eventId + ".xlsx\"")
+                .body(body);
+    }
+
+    /**
+     * Obtiene el estado de una exportación
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getExportStatus(@PathVariable String jobId,
+                                                               Authentication authentication) {
+        return ResponseEntity.ok(attendeeExportService.getJobStatus(jobId, getCurrentUser(authentication)));
+    }
+
+    /**
+     * Descarga el fichero de una exportación terminada
+     */
+    @GetMapping("/{jobId}/download")
+    public void downloadExport(@PathVariable String jobId, Authentication authentication,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = attendeeExportService.getCompletedFile(jobId, getCurrentUser(authentication));
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"attendees-" + jobId + ".xlsx\"");
+        assetService.serve(file, "private, max-age=3600", request, response);
+    }
+
+    private User getCurrentUser(Authentication authentication) {
+        return userService.getUserByUsername(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
+    }
+
+    /**
+     * Manejo de errores
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalStateException(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleGenericException(Exception e) {
+        // log.error("Error interno del servidor: {}", e.getMessage(), e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error interno del servidor"));
+    }
+}
@@ -0,0 +1,208 @@
+package com.sgerm.eventmanagement.controller;
+
+import com.sgerm.eventmanagement.config.PageCacheFilter;
+import com.sgerm.eventmanagement.service.AssetService;
+import com.sgerm.eventmanagement.service.AttendeeExportService;
+import com.sgerm.eventmanagement.service.EventCacheService;
+import com.sgerm.eventmanagement.service.ImageService;
+import com.sgerm.eventmanagement.service.DispatchLaneService;
+import com.sgerm.eventmanagement.service.NotificationDeliveryService;
+import com.sgerm.eventmanagement.service.NotificationDigestService;
+import com.sgerm.eventmanagement.service.NotificationFanoutService;
+import com.sgerm.eventmanagement.service.NotificationPartitionService;
+import com.sgerm.eventmanagement.service.NotificationPreferenceService;
+import com.sgerm.eventmanagement.service.PushService;
+import com.sgerm.eventmanagement.service.RecommendationService;
+import com.sgerm.eventmanagement.service.RequestCoalescer;
+import com.sgerm.eventmanagement.service.SuggestionService;
+import com.sgerm.eventmanagement.service.TicketRenderService;
+import com.sgerm.eventmanagement.service.UnreadCounterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Controlador REST para métricas internas de la aplicación
+ */
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final EventCacheService eventCacheService;
+    private final SuggestionService suggestionService;
+    private final RecommendationService recommendationService;
+    private final RequestCoalescer requestCoalescer;
+    private final PageCacheFilter pageCacheFilter;
+    private final AttendeeExportService attendeeExportService;
+    private final TicketRenderService ticketRenderService;
+    private final AssetService assetService;
+    private final ImageService imageService;
+    private final NotificationFanoutService notificationFanoutService;
+    private final UnreadCounterService unreadCounterService;
+    private final NotificationDeliveryService notificationDeliveryService;
+    private final NotificationDigestService notificationDigestService;
+    private final NotificationPartitionService notificationPartitionService;
+    private final NotificationPreferenceService notificationPreferenceService;
+    private final DispatchLaneService dispatchLaneService;
+    private final PushService pushService;
+
+    /**
+     * Obtiene las métricas de la caché de eventos
+     */
+    @GetMapping("/cache/events")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getEventCacheStats() {
+        return ResponseEntity.ok(eventCacheService.getStats());
+    }
+
+    /**
+     * Obtiene las métricas del índice de sugerencias
+     */
+    @GetMapping("/suggestions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getSuggestionStats() {
+        return ResponseEntity.ok(suggestionService.getStats());
+    }
+
+    /**
+     * Obtiene las métricas del motor de recomendaciones
+     */
+    @GetMapping("/recommendations")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getRecommendationStats() {
+        return ResponseEntity.ok(recommendationService.getStats());
+    }
+
+    /**
+     * Obtiene las métricas de agrupación de peticiones por clave
+     */
+    @GetMapping("/coalescing")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCoalescingStats(@RequestParam(defaultValue = "20") int top) {
+        return ResponseEntity.ok(requestCoalescer.getStats(top));
+    }
+
+    /**
+     * Obtiene las métricas de la caché de páginas anónimas
+     */
+    @GetMapping("/cache/pages")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getPageCacheStats() {
+        return ResponseEntity.ok(pageCacheFilter.getStats());
+    }
+
+    /**
+     * Obtiene las métricas del pool de exportaciones a Excel
+     */
+    @GetMapping("/exports")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getExportStats() {
+        return ResponseEntity.ok(attendeeExportService.getStats());
+    }
+
+    /**
+     * Obtiene las métricas del generador de entradas
+     */
+    @GetMapping("/tickets")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getTicketStats() {
+        return ResponseEntity.ok(ticketRenderService.getStats());
+    }
+
+    /**
+     * Obtiene las métricas del servidor de ficheros
+     */
+    @GetMapping("/assets")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getAssetStats() {
+        return ResponseEntity.ok(assetService.getStats());
+    }
+
+    /**
+     * Obtiene las métricas de la ingesta de imágenes
+     */
+    @GetMapping("/images")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getImageStats() {
+        return ResponseEntity.ok(imageService.getStats());
+    }
+
+    /**
+     * Obtiene las métricas del envío masivo de notificaciones
+     */
+    @GetMapping("/notifications/fanout")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getFanoutStats() {
+        return ResponseEntity.ok(notificationFanoutService.getStats());
+    }
+
+    /**
+     * Obtiene las métricas de los contadores de notificaciones no leídas
+     */
+    @GetMapping("/notifications/unread")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getUnreadCounterStats() {
+        return ResponseEntity.ok(unreadCounterService.getStats());
+    }
+
+    /**
+     * Obtiene las métricas de entrega y reintentos de notificaciones de este nodo
+     */
+    @GetMapping("/notifications/retry")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getDeliveryRetryStats() {
+        return ResponseEntity.ok(notificationDeliveryService.getStats());
+    }
+
+    /**
+     * Obtiene las métricas de agrupación de notificaciones en resúmenes
+     */
+    @GetMapping("/notifications/digest")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getDigestStats() {
+        return ResponseEntity.ok(notificationDigestService.getStats());
+    }
+
+    /**
+     * Obtiene el estado de las particiones mensuales de notificaciones
+     */
+    @GetMapping("/notifications/partitions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getPartitionStats() {
+        return ResponseEntity.ok(notificationPartitionService.getStats());
+    }
+
+    /**
+     * Obtiene las métricas de la caché de preferencias de notificación compiladas
+     */
+    @GetMapping("/notifications/preferences")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getPreferenceCacheStats() {
+        return ResponseEntity.ok(notificationPreferenceService.getStats());
+    }
+
+    /**
+     * Obtiene las métricas de los carriles de despacho asíncrono (critical, standard, bulk)
+     */
+    @GetMapping("/dispatch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getDispatchLaneStats() {
+        return ResponseEntity.ok(dispatchLaneService.getStats());
+    }
+
+    /**
+     * Obtiene las métricas del canal push en tiempo real de este nodo
+     */
+    @GetMapping("/push")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getPushStats() {
+        return ResponseEntity.ok(pushService.getStats());
+    }
+}
@@ -0,0 +1,198 @@
+package com.sgerm.eventmanagement.controller;
+
+import com.sgerm.eventmanagement.dto.NotificationSummary;
+import com.sgerm.eventmanagement.dto.VersionStamp;
+import com.sgerm.eventmanagement.model.NotificationPreference;
+import com.sgerm.eventmanagement.model.User;
+import com.sgerm.eventmanagement.service.NotificationDeliveryService;
+import com.sgerm.eventmanagement.service.NotificationFanoutService;
+import com.sgerm.eventmanagement.service.NotificationPreferenceService;
+import com.sgerm.eventmanagement.service.NotificationService;
+import com.sgerm.eventmanagement.service.PushService;
+import com.sgerm.eventmanagement.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Controlador REST para las notificaciones del usuario autenticado
+ */
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationController {
+
+    private final NotificationService notificationService;
+    private final UserService userService;
+    private final NotificationFanoutService notificationFanoutService;
+    private final PushService pushService;
+    private final NotificationDeliveryService notificationDeliveryService;
+    private final NotificationPreferenceService notificationPreferenceService;
+
+    /**
+     * Obtiene las notificaciones del usuario. Responde 304 si no cambiaron
+     * desde la versión que ya tiene el cliente.
+     */
+    @GetMapping
+    public ResponseEntity<List<NotificationSummary>> getNotifications(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication,
+            WebRequest request) {
+
+        User user = getCurrentUser(authentication);
+        VersionStamp stamp = notificationService.getNotificationsVersion(user).withVariant(Objects.hash(page, size));
+        if (request.checkNotModified(stamp.getEtag(), stamp.getLastModified())) {
+            return null;
+        }
+
+        LocalDateTime readUpTo = notificationService.getReadUpTo(user);
+        List<NotificationSummary> notifications = notificationService
+                .getUserNotifications(user, PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt")))
+                .map(notification -> NotificationSummary.from(notification, readUpTo))
+                .getContent();
+
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(notifications);
+    }
+
+    /**
+     * Cuenta las notificaciones no leídas
+     */
+    @GetMapping("/unread-count")
+    public ResponseEntity<Map<String, Long>> countUnread(Authentication authentication) {
+        User user = getCurrentUser(authentication);
+        return ResponseEntity.ok(Map.of("unread", notificationService.countUnreadNotifications(user)));
+    }
+
+    /**
+     * Abre el canal de notificaciones en tiempo real (Server-Sent Events). El primer
+     * evento trae el número de no leídas; después llega un evento por notificación.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Authentication authentication, HttpServletResponse response) {
+        User user = getCurrentUser(authentication);
+        // Evita que un proxy intermedio acumule los eventos
+        response.setHeader("X-Accel-Buffering", "no");
+        return pushService.connect(user.getId(), notificationService.countUnreadNotifications(user));
+    }
+
+    /**
+     * Marca una notificación como leída
+     */
+    @PatchMapping("/{notificationId}/read")
+    public ResponseEntity<Void> markAsRead(@PathVariable Long notificationId, Authentication authentication) {
+        notificationService.markAsRead(notificationId, getCurrentUser(authentication));
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Marca todas las notificaciones como leídas
+     */
+    @PatchMapping("/read-all")
+    public ResponseEntity<Void> markAllAsRead(Authentication authentication) {
+        notificationService.markAllAsRead(getCurrentUser(authentication));
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Obtiene las preferencias de notificación del usuario
+     */
+    @GetMapping("/preferences")
+    public ResponseEntity<NotificationPreference> getPreferences(Authentication authentication) {
+        return ResponseEntity.ok(notificationPreferenceService.getPreferences(getCurrentUser(authentication).getId()));
+    }
+
+    /**
+     * Actualiza las preferencias de notificación del usuario: tipos silenciados por
+     * canal, horas de silencio y resúmenes
+     */
+    @PutMapping("/preferences")
+    public ResponseEntity<NotificationPreference> updatePreferences(
+            @Valid @RequestBody NotificationPreference preferences,
+            Authentication authentication) {
+        return ResponseEntity.ok(notificationPreferenceService.updatePreferences(
+                getCurrentUser(authentication).getId(), preferences));
+    }
+
+    /**
+     * Lista los envíos masivos recientes, opcionalmente de un evento (solo administradores)
+     */
+    @GetMapping("/fanout")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<Map<String, Object>>> getFanoutJobs(@RequestParam(required = false) Long eventId) {
+        return ResponseEntity.ok(notificationFanoutService.getJobs(eventId));
+    }
+
+    /**
+     * Obtiene el progreso, el rendimiento y el retraso de un envío masivo (solo administradores)
+     */
+    @GetMapping("/fanout/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getFanoutJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(notificationFanoutService.getJobStatus(jobId));
+    }
+
+    /**
+     * Lista las notificaciones que agotaron sus reintentos de entrega (solo administradores)
+     */
+    @GetMapping("/dead-letter")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<Map<String, Object>>> getDeadLetters(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(notificationDeliveryService.getDeadLetters(PageRequest.of(page, size)));
+    }
+
+    /**
+     * Vuelve a programar la entrega de una notificación fallida (solo administradores)
+     */
+    @PostMapping("/dead-letter/{notificationId}/retry")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> retryDeadLetter(@PathVariable Long notificationId) {
+        notificationDeliveryService.requeueDeadLetter(notificationId);
+        return ResponseEntity.accepted().build();
+    }
+
+    private User getCurrentUser(Authentication authentication) {
+        return userService.getUserByUsername(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
+    }
+
+    /**
+     * Manejo de errores
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalStateException(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleGenericException(Exception e) {
+        // log.error("Error interno del servidor: {}", e.getMessage(), e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error interno del servidor"));
+    }
+}
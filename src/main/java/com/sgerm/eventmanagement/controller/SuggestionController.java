@@ -0,0 +1,33 @@
+package com.sgerm.eventmanagement.controller;
+
+import com.sgerm.eventmanagement.dto.Suggestion;
+import com.sgerm.eventmanagement.service.SuggestionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Controlador REST para el autocompletado de la búsqueda
+ */
+@RestController
+@RequestMapping("/api/suggestions")
+@RequiredArgsConstructor
+public class SuggestionController {
+
+    private final SuggestionService suggestionService;
+
+    /**
+     * Obtiene sugerencias de eventos, ubicaciones y organizadores para un prefijo
+     */
+    @GetMapping
+    public ResponseEntity<List<Suggestion>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(suggestionService.suggest(q, limit));
+    }
+}
@@ -0,0 +1,57 @@
+package com.sgerm.eventmanagement.controller;
+
+import com.sgerm.eventmanagement.dto.TagCount;
+import com.sgerm.eventmanagement.service.TagService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador REST para la consulta de tags
+ */
+@RestController
+@RequestMapping("/api/tags")
+@RequiredArgsConstructor
+@Slf4j
+public class TagController {
+
+    private final TagService tagService;
+
+    /**
+     * Obtiene la nube de tags
+     */
+    @GetMapping("/cloud")
+    public ResponseEntity<List<TagCount>> getTagCloud(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(tagService.getTagCloud(limit));
+    }
+
+    /**
+     * Obtiene los tags que suelen aparecer junto a uno dado
+     */
+    @GetMapping("/{name}/related")
+    public ResponseEntity<List<TagCount>> getRelatedTags(
+            @PathVariable String name,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(tagService.getRelatedTags(name, limit));
+    }
+
+    /**
+     * Manejo de errores
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleGenericException(Exception e) {
+        // log.error("Error interno del servidor: {}", e.getMessage(), e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error interno del servidor"));
+    }
+}
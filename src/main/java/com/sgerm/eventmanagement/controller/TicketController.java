@@ -0,0 +1,103 @@
+package com.sgerm.eventmanagement.controller;
+
+import com.sgerm.eventmanagement.model.User;
+import com.sgerm.eventmanagement.service.AssetService;
+import com.sgerm.eventmanagement.service.TicketRenderService;
+import com.sgerm.eventmanagement.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Controlador REST para las entradas en PDF
+ */
+@RestController
+@RequestMapping("/api/tickets")
+@RequiredArgsConstructor
+@Slf4j
+public class TicketController {
+
+    private final TicketRenderService ticketRenderService;
+    private final UserService userService;
+    private final AssetService assetService;
+
+    /**
+     * Descarga la entrada de una reserva propia
+     */
+    @GetMapping("/bookings/{bookingId}")
+    public ResponseEntity<byte[]> getTicket(@PathVariable Long bookingId, Authentication authentication) {
+        byte[] ticket = ticketRenderService.renderUserTicket(bookingId, getCurrentUser(authentication));
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"entrada-" + bookingId + ".pdf\"")
+                .body(ticket);
+    }
+
+    /**
+     * Encola la generación de todas las entradas de un evento (organizador o administrador)
+     */
+    @PostMapping("/events/{eventId}")
+    public ResponseEntity<Map<String, Object>> startEventBatch(@PathVariable Long eventId,
+                                                               Authentication authentication) {
+        Map<String, Object> job = ticketRenderService.startEventBatch(eventId, getCurrentUser(authentication));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    /**
+     * Obtiene el estado de un lote de entradas
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getBatchStatus(@PathVariable String jobId,
+                                                              Authentication authentication) {
+        return ResponseEntity.ok(ticketRenderService.getJobStatus(jobId, getCurrentUser(authentication)));
+    }
+
+    /**
+     * Descarga el ZIP de un lote terminado
+     */
+    @GetMapping("/jobs/{jobId}/download")
+    public void downloadBatch(@PathVariable String jobId, Authentication authentication,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = ticketRenderService.getCompletedFile(jobId, getCurrentUser(authentication));
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"entradas-" + jobId + ".zip\"");
+        assetService.serve(file, "private, max-age=3600", request, response);
+    }
+
+    private User getCurrentUser(Authentication authentication) {
+        return userService.getUserByUsername(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
+    }
+
+    /**
+     * Manejo de errores
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalStateException(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleGenericException(Exception e) {
+        // log.error("Error interno del servidor: {}", e.getMessage(), e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error interno del servidor"));
+    }
+}
@@ -1,22 +1,32 @@
 package com.sgerm.eventmanagement.controller;
 
+import com.sgerm.eventmanagement.dto.BatchResult;
 import com.sgerm.eventmanagement.model.User;
 import com.sgerm.eventmanagement.model.Role;
+import com.sgerm.eventmanagement.service.ExportService;
+import com.sgerm.eventmanagement.service.ImageService;
 import com.sgerm.eventmanagement.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Controlador REST para la gestión de usuarios
@@ -28,6 +38,8 @@ import java.util.Map;
 public class UserController {
     
     private final UserService userService;
+    private final ExportService exportService;
+    private final ImageService imageService;
     
     /**
      * Obtiene el perfil del usuario autenticado
@@ -60,6 +72,26 @@ public class UserController {
         return ResponseEntity.ok(updatedUser);
     }
     
+    /**
+     * Sube la imagen de perfil del usuario autenticado
+     */
+    @PostMapping(value = "/profile/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<User> uploadProfileImage(
+            @RequestParam("file") MultipartFile file,
+            Authentication authentication) throws IOException {
+        
+        User currentUser = userService.getUserByUsername(authentication.getName())
+                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
+        
+        ImageService.StoredImage image = imageService.store(file);
+        try {
+            return ResponseEntity.ok(userService.updateProfileImage(currentUser.getId(), image.url()));
+        } catch (RuntimeException e) {
+            imageService.discard(image);
+            throw e;
+        }
+    }
+    
     /**
      * Cambia la contraseña del usuario autenticado
      */
@@ -186,6 +218,20 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
     
+    /**
+     * Obtiene varios usuarios por ID en una sola petición (solo administradores)
+     */
+    @GetMapping("/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BatchResult<User>> getUsersByIds(@RequestParam List<Long> ids) {
+        BatchResult.validateIds(ids);
+        
+        Map<Long, User> found = userService.getUsersByIds(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        
+        return ResponseEntity.ok(BatchResult.of(ids, found, Function.identity()));
+    }
+    
     /**
      * Obtiene un usuario por ID (solo administradores)
      */
@@ -364,6 +410,25 @@ public class UserController {
                 .body(List.of()); // Retorna lista vacía como placeholder
     }
     
+    /**
+     * Exporta usuarios activos o inactivos en streaming (NDJSON o CSV)
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "true") boolean active,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        
+        ExportService.Format exportFormat = ExportService.Format.from(format);
+        StreamingResponseBody body = out -> exportService.exportUsers(active, exportFormat, out);
+        
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users-"
+                        + (active ? "active" : "inactive") + "." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+    
     /**
      * Obtiene usuarios registrados recientemente
      */
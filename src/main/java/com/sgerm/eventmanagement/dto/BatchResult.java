@@ -0,0 +1,57 @@
+package com.sgerm.eventmanagement.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Resultado de una consulta por lote: elementos encontrados en el orden pedido
+ * e IDs que no existen (o no son accesibles)
+ */
+public class BatchResult<T> {
+
+    public static final int MAX_IDS = 100;
+
+    private final List<T> items;
+    private final List<Long> missingIds;
+
+    public BatchResult(List<T> items, List<Long> missingIds) {
+        this.items = items;
+        this.missingIds = missingIds;
+    }
+
+    /**
+     * Ordena los elementos encontrados según los IDs pedidos (sin duplicados)
+     */
+    public static <E, T> BatchResult<T> of(List<Long> requestedIds, Map<Long, E> found, Function<E, T> mapper) {
+        List<T> items = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(requestedIds)) {
+            E element = found.get(id);
+            if (element != null) {
+                items.add(mapper.apply(element));
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchResult<>(items, missing);
+    }
+
+    /**
+     * Valida el tamaño de un lote de IDs
+     */
+    public static void validateIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un ID");
+        }
+        if (ids.size() > MAX_IDS) {
+            throw new IllegalArgumentException("No se pueden consultar más de " + MAX_IDS + " IDs a la vez");
+        }
+    }
+
+    // Getters
+    public List<T> getItems() { return items; }
+    public List<Long> getMissingIds() { return missingIds; }
+}
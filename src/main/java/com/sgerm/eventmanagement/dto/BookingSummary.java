@@ -0,0 +1,53 @@
+package com.sgerm.eventmanagement.dto;
+
+import com.sgerm.eventmanagement.model.Booking;
+import com.sgerm.eventmanagement.model.BookingStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Vista de una reserva con los datos de su evento, para listados como "mis entradas"
+ */
+public class BookingSummary {
+
+    private final Long id;
+    private final String bookingCode;
+    private final BookingStatus status;
+    private final Integer ticketQuantity;
+    private final BigDecimal totalPrice;
+    private final LocalDateTime bookingDate;
+    private final LocalDateTime checkInDate;
+    private final String qrCode;
+    private final Long userId;
+    private final EventSummary event;
+
+    public BookingSummary(Booking booking) {
+        this.id = booking.getId();
+        this.bookingCode = booking.getBookingCode();
+        this.status = booking.getStatus();
+        this.ticketQuantity = booking.getTicketQuantity();
+        this.totalPrice = booking.getTotalPrice();
+        this.bookingDate = booking.getBookingDate();
+        this.checkInDate = booking.getCheckInDate();
+        this.qrCode = booking.getQrCode();
+        this.userId = booking.getUser() != null ? booking.getUser().getId() : null;
+        this.event = booking.getEvent() != null ? EventSummary.from(booking.getEvent()) : null;
+    }
+
+    public static BookingSummary from(Booking booking) {
+        return new BookingSummary(booking);
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getBookingCode() { return bookingCode; }
+    public BookingStatus getStatus() { return status; }
+    public Integer getTicketQuantity() { return ticketQuantity; }
+    public BigDecimal getTotalPrice() { return totalPrice; }
+    public LocalDateTime getBookingDate() { return bookingDate; }
+    public LocalDateTime getCheckInDate() { return checkInDate; }
+    public String getQrCode() { return qrCode; }
+    public Long getUserId() { return userId; }
+    public EventSummary getEvent() { return event; }
+}
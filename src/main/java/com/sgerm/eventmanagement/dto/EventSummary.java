@@ -0,0 +1,80 @@
+package com.sgerm.eventmanagement.dto;
+
+import com.sgerm.eventmanagement.model.Event;
+import com.sgerm.eventmanagement.model.EventCategory;
+import com.sgerm.eventmanagement.model.EventStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Vista de un evento para las respuestas de la API.
+ * Evita serializar las relaciones perezosas de la entidad.
+ */
+public class EventSummary {
+
+    /** Ancho de la miniatura que usan los listados del catálogo */
+    public static final int THUMBNAIL_WIDTH = 320;
+
+    private final Long id;
+    private final String title;
+    private final String description;
+    private final LocalDateTime startDate;
+    private final LocalDateTime endDate;
+    private final String location;
+    private final EventCategory category;
+    private final EventStatus status;
+    private final BigDecimal price;
+    private final Integer capacity;
+    private final Integer availableTickets;
+    private final String imageUrl;
+    private final String thumbnailUrl;
+    private final String tags;
+    private final Long organizerId;
+    private final LocalDateTime updatedAt;
+    private final Long version;
+
+    public EventSummary(Event event) {
+        this.id = event.getId();
+        this.title = event.getTitle();
+        this.description = event.getDescription();
+        this.startDate = event.getStartDate();
+        this.endDate = event.getEndDate();
+        this.location = event.getLocation();
+        this.category = event.getCategory();
+        this.status = event.getStatus();
+        this.price = event.getPrice();
+        this.capacity = event.getCapacity();
+        this.availableTickets = event.getAvailableTickets();
+        this.imageUrl = event.getImageUrl();
+        this.thumbnailUrl = imageUrl != null && imageUrl.startsWith("/assets/")
+                ? imageUrl + "?w=" + THUMBNAIL_WIDTH : imageUrl;
+        this.tags = event.getTags();
+        this.organizerId = event.getOrganizer() != null ? event.getOrganizer().getId() : null;
+        this.updatedAt = event.getUpdatedAt();
+        this.version = event.getVersion();
+    }
+
+    public static EventSummary from(Event event) {
+        return new EventSummary(event);
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getTitle() { return title; }
+    public String getDescription() { return description; }
+    public LocalDateTime getStartDate() { return startDate; }
+    public LocalDateTime getEndDate() { return endDate; }
+    public String getLocation() { return location; }
+    public EventCategory getCategory() { return category; }
+    public EventStatus getStatus() { return status; }
+    public BigDecimal getPrice() { return price; }
+    public Integer getCapacity() { return capacity; }
+    public Integer getAvailableTickets() { return availableTickets; }
+    public String getImageUrl() { return imageUrl; }
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public String getTags() { return tags; }
+    public Long getOrganizerId() { return organizerId; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public Long getVersion() { return version; }
+}
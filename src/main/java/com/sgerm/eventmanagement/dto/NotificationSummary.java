@@ -0,0 +1,75 @@
+package com.sgerm.eventmanagement.dto;
+
+import com.sgerm.eventmanagement.model.Notification;
+import com.sgerm.eventmanagement.model.NotificationPriority;
+import com.sgerm.eventmanagement.model.NotificationReadMark;
+import com.sgerm.eventmanagement.model.NotificationType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista de una notificación para las respuestas de la API
+ */
+public class NotificationSummary {
+
+    private final Long id;
+    private final String title;
+    private final String message;
+    private final NotificationType type;
+    private final NotificationPriority priority;
+    private final Boolean isRead;
+    private final LocalDateTime readAt;
+    private final String actionUrl;
+    private final String actionText;
+    private final Long relatedEventId;
+    private final Long relatedBookingId;
+    private final Integer digestCount;
+    private final LocalDateTime createdAt;
+
+    public NotificationSummary(Notification notification) {
+        this(notification, NotificationReadMark.NONE);
+    }
+
+    /**
+     * Vista que aplica la marca de lectura del usuario: las notificaciones creadas
+     * hasta 'readUpTo' se muestran leídas en esa fecha si no se leyeron antes
+     */
+    public NotificationSummary(Notification notification, LocalDateTime readUpTo) {
+        this.id = notification.getId();
+        this.title = notification.getTitle();
+        this.message = notification.getMessage();
+        this.type = notification.getType();
+        this.priority = notification.getPriority();
+        this.isRead = NotificationReadMark.isRead(notification, readUpTo);
+        this.readAt = notification.getReadAt() != null || !isRead ? notification.getReadAt() : readUpTo;
+        this.actionUrl = notification.getActionUrl();
+        this.actionText = notification.getActionText();
+        this.relatedEventId = notification.getRelatedEvent() != null ? notification.getRelatedEvent().getId() : null;
+        this.relatedBookingId = notification.getRelatedBooking() != null ? notification.getRelatedBooking().getId() : null;
+        this.digestCount = notification.getDigestCount();
+        this.createdAt = notification.getCreatedAt();
+    }
+
+    public static NotificationSummary from(Notification notification) {
+        return new NotificationSummary(notification);
+    }
+
+    public static NotificationSummary from(Notification notification, LocalDateTime readUpTo) {
+        return new NotificationSummary(notification, readUpTo);
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getTitle() { return title; }
+    public String getMessage() { return message; }
+    public NotificationType getType() { return type; }
+    public NotificationPriority getPriority() { return priority; }
+    public Boolean getIsRead() { return isRead; }
+    public LocalDateTime getReadAt() { return readAt; }
+    public String getActionUrl() { return actionUrl; }
+    public String getActionText() { return actionText; }
+    public Long getRelatedEventId() { return relatedEventId; }
+    public Long getRelatedBookingId() { return relatedBookingId; }
+    public Integer getDigestCount() { return digestCount; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
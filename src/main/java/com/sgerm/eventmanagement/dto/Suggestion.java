@@ -0,0 +1,24 @@
+package com.sgerm.eventmanagement.dto;
+
+/**
+ * Sugerencia de autocompletado para la caja de búsqueda
+ */
+public class Suggestion {
+
+    public enum Type { EVENT, LOCATION, ORGANIZER }
+
+    private final Type type;
+    private final Long id;
+    private final String label;
+
+    public Suggestion(Type type, Long id, String label) {
+        this.type = type;
+        this.id = id;
+        this.label = label;
+    }
+
+    // Getters
+    public Type getType() { return type; }
+    public Long getId() { return id; }
+    public String getLabel() { return label; }
+}
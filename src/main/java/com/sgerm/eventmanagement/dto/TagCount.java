@@ -0,0 +1,19 @@
+package com.sgerm.eventmanagement.dto;
+
+/**
+ * Tag con su número de apariciones (nube de tags, tags relacionados)
+ */
+public class TagCount {
+
+    private final String name;
+    private final int count;
+
+    public TagCount(String name, int count) {
+        this.name = name;
+        this.count = count;
+    }
+
+    // Getters
+    public String getName() { return name; }
+    public int getCount() { return count; }
+}
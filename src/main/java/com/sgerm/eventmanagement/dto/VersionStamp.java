@@ -0,0 +1,36 @@
+package com.sgerm.eventmanagement.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Versión de un recurso para peticiones condicionales (ETag / Last-Modified)
+ */
+public class VersionStamp {
+
+    private final String etag;
+    private final long lastModified;
+
+    public VersionStamp(String etag, LocalDateTime lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified != null
+                ? lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1;
+    }
+
+    /**
+     * Deriva una versión para una vista concreta del recurso (parámetros, orden...)
+     */
+    public VersionStamp withVariant(int variantHash) {
+        return new VersionStamp(etag + "-" + Integer.toHexString(variantHash), lastModified);
+    }
+
+    private VersionStamp(String etag, long lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    // Getters
+    public String getEtag() { return etag; }
+    public long getLastModified() { return lastModified; }
+}
@@ -0,0 +1,49 @@
+package com.sgerm.eventmanagement.model;
+
+/**
+ * Enumeración que define el estado de entrega de una notificación por sus canales (email y push)
+ */
+public enum DeliveryStatus {
+    /**
+     * Pendiente - Primer intento de entrega en curso
+     */
+    PENDING("Pendiente", "Primer intento de entrega en curso"),
+
+    /**
+     * Entregada - Todos los canales se enviaron correctamente
+     */
+    DELIVERED("Entregada", "Todos los canales se enviaron correctamente"),
+
+    /**
+     * Reintentando - Algún canal falló y hay un reintento programado
+     */
+    RETRYING("Reintentando", "Algún canal falló y hay un reintento programado"),
+
+    /**
+     * Fallida - Se agotaron los reintentos de su prioridad (dead letter)
+     */
+    DEAD_LETTER("Fallida", "Se agotaron los reintentos y requiere revisión manual");
+
+    private final String displayName;
+    private final String description;
+
+    DeliveryStatus(String displayName, String description) {
+        this.displayName = displayName;
+        this.description = description;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Verifica si la notificación aún puede recibir intentos de entrega
+     */
+    public boolean isRetryable() {
+        return this == PENDING || this == RETRYING;
+    }
+}
@@ -13,11 +13,18 @@ import java.util.Set;
  * Entidad que representa un evento en el sistema
  */
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+    @Index(name = "idx_events_start_date", columnList = "start_date"),
+    @Index(name = "idx_events_end_date", columnList = "end_date"),
+    @Index(name = "idx_events_status_start_date", columnList = "status, start_date"),
+    @Index(name = "idx_events_category", columnList = "category"),
+    @Index(name = "idx_events_organizer", columnList = "organizer_id")
+})
 public class Event {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "events_seq")
+    @SequenceGenerator(name = "events_seq", sequenceName = "events_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "El título del evento es obligatorio")
@@ -87,6 +94,10 @@ public class Event {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    /**
+     * Etiquetas en texto separado por comas; se normaliza al guardar
+     * y se indexa en la tabla event_tags
+     */
     @Column(columnDefinition = "TEXT")
     private String tags;
     
@@ -96,6 +107,12 @@ public class Event {
     @Column(name = "contact_phone")
     private String contactPhone;
     
+    /**
+     * Contador de versión; aumenta con cada modificación y sirve para los ETag
+     */
+    @Column(name = "version")
+    private Long version = 0L;
+    
     // Relaciones
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "organizer_id", nullable = false)
@@ -107,6 +124,12 @@ public class Event {
     @OneToMany(mappedBy = "event", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<EventResource> resources = new HashSet<>();
     
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "event_tags",
+               joinColumns = @JoinColumn(name = "event_id"),
+               inverseJoinColumns = @JoinColumn(name = "tag_id"))
+    private Set<Tag> eventTags = new HashSet<>();
+    
     // Constructores
     public Event() {
         this.createdAt = LocalDateTime.now();
@@ -175,6 +198,7 @@ public class Event {
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
+        this.version = (version == null ? 0L : version) + 1;
     }
     
     // Getters y Setters
@@ -247,6 +271,9 @@ public class Event {
     public String getContactPhone() { return contactPhone; }
     public void setContactPhone(String contactPhone) { this.contactPhone = contactPhone; }
     
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
     public User getOrganizer() { return organizer; }
     public void setOrganizer(User organizer) { this.organizer = organizer; }
     
@@ -256,6 +283,9 @@ public class Event {
     public Set<EventResource> getResources() { return resources; }
     public void setResources(Set<EventResource> resources) { this.resources = resources; }
     
+    public Set<Tag> getEventTags() { return eventTags; }
+    public void setEventTags(Set<Tag> eventTags) { this.eventTags = eventTags; }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -17,7 +17,8 @@ import java.util.Objects;
 public class EventResource {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "event_resources_seq")
+    @SequenceGenerator(name = "event_resources_seq", sequenceName = "event_resources_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "El nombre del recurso es obligatorio")
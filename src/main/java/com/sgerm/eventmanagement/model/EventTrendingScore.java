@@ -0,0 +1,78 @@
+package com.sgerm.eventmanagement.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Instantánea persistida de la puntuación de tendencia de un evento.
+ * Permite que el ranking sobreviva a reinicios de la aplicación.
+ */
+@Entity
+@Table(name = "event_trending_scores")
+public class EventTrendingScore {
+
+    @Id
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EventCategory category;
+
+    /**
+     * Puntuación ya decaída al momento de la instantánea
+     */
+    @Column(nullable = false)
+    private Double score;
+
+    @Column(name = "snapshot_at", nullable = false)
+    private LocalDateTime snapshotAt;
+
+    // Constructores
+    public EventTrendingScore() {}
+
+    public EventTrendingScore(Long eventId, EventCategory category, Double score, LocalDateTime snapshotAt) {
+        this.eventId = eventId;
+        this.category = category;
+        this.score = score;
+        this.snapshotAt = snapshotAt;
+    }
+
+    // Getters y Setters
+    public Long getEventId() { return eventId; }
+    public void setEventId(Long eventId) { this.eventId = eventId; }
+
+    public EventCategory getCategory() { return category; }
+    public void setCategory(EventCategory category) { this.category = category; }
+
+    public Double getScore() { return score; }
+    public void setScore(Double score) { this.score = score; }
+
+    public LocalDateTime getSnapshotAt() { return snapshotAt; }
+    public void setSnapshotAt(LocalDateTime snapshotAt) { this.snapshotAt = snapshotAt; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EventTrendingScore)) return false;
+        EventTrendingScore that = (EventTrendingScore) o;
+        return Objects.equals(eventId, that.eventId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(eventId);
+    }
+
+    @Override
+    public String toString() {
+        return "EventTrendingScore{" +
+                "eventId=" + eventId +
+                ", category=" + category +
+                ", score=" + score +
+                ", snapshotAt=" + snapshotAt +
+                '}';
+    }
+}
@@ -15,16 +15,26 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "notifications", indexes = {
-    @Index(name = "idx_notification_recipient", columnList = "recipient_id"),
+    @Index(name = "idx_notification_recipient_created", columnList = "recipient_id, created_at"),
     @Index(name = "idx_notification_type", columnList = "type"),
     @Index(name = "idx_notification_read", columnList = "is_read"),
     @Index(name = "idx_notification_created", columnList = "created_at"),
-    @Index(name = "idx_notification_priority", columnList = "priority")
+    @Index(name = "idx_notification_priority", columnList = "priority"),
+    @Index(name = "idx_notification_next_attempt", columnList = "next_attempt_at"),
+    @Index(name = "idx_notification_digest", columnList = "recipient_id, type, digest_until")
 })
 public class Notification {
     
+    /**
+     * Secuencia de IDs y tamaño del bloque que reserva cada valor (pooled-lo).
+     * Las inserciones por JDBC deben reservar sus IDs con estos mismos valores.
+     */
+    public static final String ID_SEQUENCE = "notifications_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     
     @NotBlank(message = "El título es obligatorio")
@@ -78,6 +88,8 @@ public class Notification {
     @Column(name = "expires_at")
     private LocalDateTime expiresAt;
     
+    // 'emailSent' y 'pushSent' indican que el canal está resuelto: enviado (con fecha de
+    // envío) u omitido por las preferencias del destinatario (sin fecha)
     @Column(name = "email_sent", nullable = false)
     private Boolean emailSent = false;
     
@@ -90,6 +102,34 @@ public class Notification {
     @Column(name = "push_sent_at")
     private LocalDateTime pushSentAt;
     
+    @Enumerated(EnumType.STRING)
+    @Column(name = "delivery_status", nullable = false, length = 20)
+    private DeliveryStatus deliveryStatus = DeliveryStatus.PENDING;
+    
+    @Column(name = "delivery_attempts", nullable = false)
+    private Integer deliveryAttempts = 0;
+    
+    /**
+     * Próximo intento de entrega; nulo cuando ya no quedan intentos (entregada o fallida)
+     */
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "last_delivery_error", length = 500)
+    private String lastDeliveryError;
+    
+    /**
+     * Número de notificaciones agrupadas en esta fila (1 si no es un resumen)
+     */
+    @Column(name = "digest_count", nullable = false)
+    private Integer digestCount = 1;
+    
+    /**
+     * Fin de la ventana en la que se agrupan nuevas notificaciones; nulo si no es un resumen
+     */
+    @Column(name = "digest_until")
+    private LocalDateTime digestUntil;
+    
     @Size(max = 500, message = "Los datos adicionales no pueden exceder 500 caracteres")
     @Column(name = "additional_data", length = 500)
     private String additionalData;
@@ -176,7 +216,37 @@ public class Notification {
         this.pushSent = true;
         this.pushSentAt = LocalDateTime.now();
     }
-    
+
+    /**
+     * Da por resuelto el canal de email sin enviarlo porque el usuario no lo quiere
+     * para este tipo. Queda como enviado pero sin fecha de envío.
+     */
+    public void skipEmail() {
+        this.emailSent = true;
+    }
+
+    /**
+     * Da por resuelto el canal push sin enviarlo porque el usuario no lo quiere para
+     * este tipo. Queda como enviado pero sin fecha de envío.
+     */
+    public void skipPush() {
+        this.pushSent = true;
+    }
+
+    /**
+     * Verifica si el email se omitió por las preferencias del destinatario
+     */
+    public boolean isEmailSkipped() {
+        return Boolean.TRUE.equals(emailSent) && emailSentAt == null;
+    }
+
+    /**
+     * Verifica si el push se omitió por las preferencias del destinatario
+     */
+    public boolean isPushSkipped() {
+        return Boolean.TRUE.equals(pushSent) && pushSentAt == null;
+    }
+
     /**
      * Obtiene el icono según el tipo de notificación
      */
@@ -205,6 +275,13 @@ public class Notification {
         return !pushSent && (isUrgent() || type.shouldSendPush());
     }
     
+    /**
+     * Verifica si la fila agrupa varias notificaciones
+     */
+    public boolean isDigest() {
+        return digestCount != null && digestCount > 1;
+    }
+    
     /**
      * Obtiene el tiempo transcurrido desde la creación
      */
@@ -373,6 +450,54 @@ public class Notification {
         this.pushSentAt = pushSentAt;
     }
     
+    public DeliveryStatus getDeliveryStatus() {
+        return deliveryStatus;
+    }
+    
+    public void setDeliveryStatus(DeliveryStatus deliveryStatus) {
+        this.deliveryStatus = deliveryStatus;
+    }
+    
+    public Integer getDeliveryAttempts() {
+        return deliveryAttempts;
+    }
+    
+    public void setDeliveryAttempts(Integer deliveryAttempts) {
+        this.deliveryAttempts = deliveryAttempts;
+    }
+    
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+    
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+    
+    public String getLastDeliveryError() {
+        return lastDeliveryError;
+    }
+    
+    public void setLastDeliveryError(String lastDeliveryError) {
+        this.lastDeliveryError = lastDeliveryError;
+    }
+    
+    public Integer getDigestCount() {
+        return digestCount;
+    }
+    
+    public void setDigestCount(Integer digestCount) {
+        this.digestCount = digestCount;
+    }
+    
+    public LocalDateTime getDigestUntil() {
+        return digestUntil;
+    }
+    
+    public void setDigestUntil(LocalDateTime digestUntil) {
+        this.digestUntil = digestUntil;
+    }
+    
     public String getAdditionalData() {
         return additionalData;
     }
@@ -0,0 +1,122 @@
+package com.sgerm.eventmanagement.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Preferencias de notificación de un usuario: tipos silenciados por canal, horas de
+ * silencio y si acepta resúmenes. Un usuario sin preferencias recibe cada tipo por
+ * los canales que indica NotificationType.
+ */
+@Entity
+@Table(name = "notification_preferences")
+public class NotificationPreference {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    /**
+     * Tipos que el usuario no quiere recibir por email
+     */
+    @Convert(converter = NotificationTypeSetConverter.class)
+    @Column(name = "muted_email_types", length = 1000)
+    private Set<NotificationType> mutedEmailTypes = EnumSet.noneOf(NotificationType.class);
+
+    /**
+     * Tipos que el usuario no quiere recibir por push
+     */
+    @Convert(converter = NotificationTypeSetConverter.class)
+    @Column(name = "muted_push_types", length = 1000)
+    private Set<NotificationType> mutedPushTypes = EnumSet.noneOf(NotificationType.class);
+
+    /**
+     * Inicio y fin de las horas de silencio (pueden cruzar la medianoche), en la zona del usuario
+     */
+    @Column(name = "quiet_hours_start")
+    private LocalTime quietHoursStart;
+
+    @Column(name = "quiet_hours_end")
+    private LocalTime quietHoursEnd;
+
+    @Size(max = 64, message = "La zona horaria no puede exceder 64 caracteres")
+    @Column(name = "time_zone", length = 64)
+    private String timeZone;
+
+    @Column(name = "digest_enabled", nullable = false)
+    private Boolean digestEnabled = true;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructores
+    public NotificationPreference() {}
+
+    public NotificationPreference(Long userId) {
+        this.userId = userId;
+    }
+
+    // Getters y Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Set<NotificationType> getMutedEmailTypes() { return mutedEmailTypes; }
+    public void setMutedEmailTypes(Set<NotificationType> mutedEmailTypes) { this.mutedEmailTypes = mutedEmailTypes; }
+
+    public Set<NotificationType> getMutedPushTypes() { return mutedPushTypes; }
+    public void setMutedPushTypes(Set<NotificationType> mutedPushTypes) { this.mutedPushTypes = mutedPushTypes; }
+
+    public LocalTime getQuietHoursStart() { return quietHoursStart; }
+    public void setQuietHoursStart(LocalTime quietHoursStart) { this.quietHoursStart = quietHoursStart; }
+
+    public LocalTime getQuietHoursEnd() { return quietHoursEnd; }
+    public void setQuietHoursEnd(LocalTime quietHoursEnd) { this.quietHoursEnd = quietHoursEnd; }
+
+    public String getTimeZone() { return timeZone; }
+    public void setTimeZone(String timeZone) { this.timeZone = timeZone; }
+
+    public Boolean getDigestEnabled() { return digestEnabled; }
+    public void setDigestEnabled(Boolean digestEnabled) { this.digestEnabled = digestEnabled; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    /**
+     * Verifica si el usuario configuró horas de silencio
+     */
+    public boolean hasQuietHours() {
+        return quietHoursStart != null && quietHoursEnd != null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NotificationPreference)) return false;
+        NotificationPreference that = (NotificationPreference) o;
+        return Objects.equals(userId, that.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId);
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationPreference{" +
+                "userId=" + userId +
+                ", mutedEmailTypes=" + mutedEmailTypes +
+                ", mutedPushTypes=" + mutedPushTypes +
+                ", quietHoursStart=" + quietHoursStart +
+                ", quietHoursEnd=" + quietHoursEnd +
+                ", timeZone='" + timeZone + '\'' +
+                ", digestEnabled=" + digestEnabled +
+                '}';
+    }
+}
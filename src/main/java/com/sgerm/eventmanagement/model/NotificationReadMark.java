@@ -0,0 +1,72 @@
+package com.sgerm.eventmanagement.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Marca de lectura de las notificaciones de un usuario: todas las creadas hasta
+ * 'readUpTo' cuentan como leídas aunque su fila siga con is_read = false. Marcar todas
+ * como leídas actualiza solo esta fila.
+ */
+@Entity
+@Table(name = "notification_read_marks")
+public class NotificationReadMark {
+
+    /**
+     * Marca de los usuarios que nunca marcaron todas como leídas
+     */
+    public static final LocalDateTime NONE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "read_up_to", nullable = false)
+    private LocalDateTime readUpTo;
+
+    // Constructores
+    public NotificationReadMark() {}
+
+    public NotificationReadMark(Long userId, LocalDateTime readUpTo) {
+        this.userId = userId;
+        this.readUpTo = readUpTo;
+    }
+
+    // Getters y Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public LocalDateTime getReadUpTo() { return readUpTo; }
+    public void setReadUpTo(LocalDateTime readUpTo) { this.readUpTo = readUpTo; }
+
+    /**
+     * Verifica si una notificación está leída, por su propia marca o por la del usuario
+     */
+    public static boolean isRead(Notification notification, LocalDateTime readUpTo) {
+        return Boolean.TRUE.equals(notification.getIsRead())
+                || (notification.getCreatedAt() != null && !notification.getCreatedAt().isAfter(readUpTo));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof NotificationReadMark)) return false;
+        NotificationReadMark that = (NotificationReadMark) o;
+        return Objects.equals(userId, that.userId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId);
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationReadMark{" +
+                "userId=" + userId +
+                ", readUpTo=" + readUpTo +
+                '}';
+    }
+}
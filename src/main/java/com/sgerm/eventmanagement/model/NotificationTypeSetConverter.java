@@ -0,0 +1,43 @@
+package com.sgerm.eventmanagement.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Guarda un conjunto de tipos de notificación como sus nombres separados por comas.
+ * Se guardan nombres y no ordinales para que reordenar el enum no cambie los datos;
+ * los nombres que ya no existen se ignoran al leer.
+ */
+@Converter
+public class NotificationTypeSetConverter implements AttributeConverter<Set<NotificationType>, String> {
+
+    private static final String SEPARATOR = ",";
+
+    @Override
+    public String convertToDatabaseColumn(Set<NotificationType> types) {
+        if (types == null || types.isEmpty()) {
+            return null;
+        }
+        return types.stream().map(NotificationType::name).sorted().collect(Collectors.joining(SEPARATOR));
+    }
+
+    @Override
+    public Set<NotificationType> convertToEntityAttribute(String value) {
+        Set<NotificationType> types = EnumSet.noneOf(NotificationType.class);
+        if (value == null || value.isBlank()) {
+            return types;
+        }
+        Arrays.stream(value.split(SEPARATOR))
+                .map(String::trim)
+                .forEach(name -> Arrays.stream(NotificationType.values())
+                        .filter(type -> type.name().equals(name))
+                        .findFirst()
+                        .ifPresent(types::add));
+        return types;
+    }
+}
@@ -0,0 +1,72 @@
+package com.sgerm.eventmanagement.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Etiqueta normalizada de eventos. Cada nombre se guarda una sola vez
+ * y los eventos la referencian por ID a través de event_tags.
+ */
+@Entity
+@Table(name = "tags")
+public class Tag {
+
+    public static final int MAX_NAME_LENGTH = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tags_seq")
+    @SequenceGenerator(name = "tags_seq", sequenceName = "tags_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * Nombre normalizado (minúsculas, sin espacios sobrantes)
+     */
+    @Column(nullable = false, unique = true, length = MAX_NAME_LENGTH)
+    private String name;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructores
+    public Tag() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Tag(String name) {
+        this();
+        this.name = name;
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Tag)) return false;
+        Tag tag = (Tag) o;
+        return Objects.equals(id, tag.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "Tag{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -333,4 +334,44 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
            "GROUP BY b.event " +
            "ORDER BY COUNT(b) DESC")
     List<Object[]> findMostPopularEvents(Pageable pageable);
-}
\ No newline at end of file
+    
+    /**
+     * Obtiene los pares (usuario, evento) distintos de reservas en los estados dados,
+     * de la reserva más antigua a la más reciente (el historial de recomendaciones
+     * usa las últimas de cada usuario)
+     */
+    @Query("SELECT b.user.id, b.event.id FROM Booking b WHERE b.status IN (:statuses) " +
+           "GROUP BY b.user.id, b.event.id ORDER BY MAX(b.bookingDate)")
+    List<Object[]> findUserEventPairsByStatusIn(@Param("statuses") Collection<BookingStatus> statuses);
+    
+    /**
+     * Busca reservas de un usuario por lote de IDs, cargando el evento en la misma consulta
+     */
+    @Query("SELECT b FROM Booking b JOIN FETCH b.event WHERE b.id IN (:bookingIds) AND b.user = :user")
+    List<Booking> findByIdsAndUserWithEvent(@Param("bookingIds") Collection<Long> bookingIds, @Param("user") User user);
+    
+    /**
+     * Página de asistentes de un evento por clave (id > afterId), con los datos del usuario
+     */
+    @Query("SELECT b.id, b.bookingCode, b.status, b.ticketQuantity, b.totalPrice, b.bookingDate, b.checkInDate, " +
+           "u.firstName, u.lastName, u.email, u.phoneNumber " +
+           "FROM Booking b JOIN b.user u WHERE b.event.id = :eventId AND b.id > :afterId ORDER BY b.id")
+    List<Object[]> findAttendeePage(@Param("eventId") Long eventId, @Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * Página de reservas de un evento por clave (id > afterId), con el usuario cargado
+     */
+    @Query("SELECT b FROM Booking b JOIN FETCH b.user WHERE b.event.id = :eventId AND b.status IN (:statuses) " +
+           "AND b.id > :afterId ORDER BY b.id")
+    List<Booking> findTicketPage(@Param("eventId") Long eventId, @Param("statuses") Collection<BookingStatus> statuses,
+                                 @Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * Página de destinatarios distintos (id y email) de las reservas de un evento
+     * en los estados indicados, por clave de usuario (id > afterId)
+     */
+    @Query("SELECT DISTINCT u.id, u.email FROM Booking b JOIN b.user u WHERE b.event.id = :eventId " +
+           "AND b.status IN (:statuses) AND u.id > :afterId ORDER BY u.id")
+    List<Object[]> findRecipientPage(@Param("eventId") Long eventId, @Param("statuses") Collection<BookingStatus> statuses,
+                                     @Param("afterId") Long afterId, Pageable pageable);
+}
@@ -179,11 +179,45 @@ public interface EventRepository extends JpaRepository<Event, Long> {
     List<Event> findPendingApprovalEvents();
     
     /**
-     * Busca eventos por tags
+     * Busca eventos por tag exacta
      */
-    @Query("SELECT e FROM Event e WHERE LOWER(e.tags) LIKE LOWER('%' || :tag || '%')")
+    @Query("SELECT DISTINCT e FROM Event e JOIN e.eventTags t WHERE t.name = LOWER(:tag)")
     List<Event> findByTagsContaining(@Param("tag") String tag);
     
+    /**
+     * Busca eventos publicados cargando su organizador en la misma consulta
+     */
+    @Query("SELECT e FROM Event e JOIN FETCH e.organizer WHERE e.status = com.sgerm.eventmanagement.model.EventStatus.PUBLISHED")
+    List<Event> findPublishedEventsWithOrganizer();
+    
+    /**
+     * Obtiene número de eventos, suma de versiones y última modificación del catálogo
+     */
+    @Query("SELECT COUNT(e), COALESCE(SUM(e.version), 0), MAX(e.updatedAt) FROM Event e")
+    List<Object[]> getCatalogVersion();
+    
+    /**
+     * Obtiene ID, fechas y estado de los eventos no finalizados (carga del índice de calendario)
+     */
+    @Query("SELECT e.id, e.startDate, e.endDate, e.status FROM Event e " +
+           "WHERE e.status NOT IN (com.sgerm.eventmanagement.model.EventStatus.COMPLETED, com.sgerm.eventmanagement.model.EventStatus.CANCELLED)")
+    List<Object[]> findNonFinalizedEventSchedules();
+    
+    /**
+     * Obtiene el intervalo y estado de un evento si no está finalizado
+     */
+    @Query("SELECT e.id, e.startDate, e.endDate, e.status FROM Event e WHERE e.id = :eventId " +
+           "AND e.status NOT IN (com.sgerm.eventmanagement.model.EventStatus.COMPLETED, com.sgerm.eventmanagement.model.EventStatus.CANCELLED)")
+    List<Object[]> findNonFinalizedEventScheduleById(@Param("eventId") Long eventId);
+    
+    /**
+     * Obtiene [id, tags] de los eventos con tags en texto que aún no están normalizados,
+     * por páginas de clave (id > afterId)
+     */
+    @Query("SELECT e.id, e.tags FROM Event e WHERE e.id > :afterId AND e.tags IS NOT NULL AND e.tags <> '' " +
+           "AND e.eventTags IS EMPTY ORDER BY e.id")
+    List<Object[]> findUnindexedTagTexts(@Param("afterId") Long afterId, Pageable pageable);
+    
     /**
      * Cuenta eventos por organizador
      */
@@ -258,8 +292,10 @@ public interface EventRepository extends JpaRepository<Event, Long> {
      * Actualiza las entradas disponibles
      */
     @Modifying
-    @Query("UPDATE Event e SET e.availableTickets = :availableTickets WHERE e.id = :eventId")
-    void updateAvailableTickets(@Param("eventId") Long eventId, @Param("availableTickets") Integer availableTickets);
+    @Query("UPDATE Event e SET e.availableTickets = :availableTickets, " +
+           "e.version = COALESCE(e.version, 0) + 1, e.updatedAt = :updatedAt WHERE e.id = :eventId")
+    void updateAvailableTickets(@Param("eventId") Long eventId, @Param("availableTickets") Integer availableTickets,
+                                @Param("updatedAt") LocalDateTime updatedAt);
     
     /**
      * Incrementa las entradas disponibles
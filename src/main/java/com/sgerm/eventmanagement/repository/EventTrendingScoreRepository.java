@@ -0,0 +1,24 @@
+package com.sgerm.eventmanagement.repository;
+
+import com.sgerm.eventmanagement.model.EventTrendingScore;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+/**
+ * Repositorio para las instantáneas de puntuación de tendencia
+ */
+@Repository
+public interface EventTrendingScoreRepository extends JpaRepository<EventTrendingScore, Long> {
+
+    /**
+     * Elimina las instantáneas de eventos que ya no están en el ranking
+     */
+    @Modifying
+    @Query("DELETE FROM EventTrendingScore s WHERE s.eventId NOT IN :eventIds")
+    void deleteByEventIdNotIn(@Param("eventIds") Collection<Long> eventIds);
+}
@@ -0,0 +1,12 @@
+package com.sgerm.eventmanagement.repository;
+
+import com.sgerm.eventmanagement.model.NotificationPreference;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para las preferencias de notificación
+ */
+@Repository
+public interface NotificationPreferenceRepository extends JpaRepository<NotificationPreference, Long> {
+}
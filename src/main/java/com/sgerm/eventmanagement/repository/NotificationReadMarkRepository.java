@@ -0,0 +1,44 @@
+package com.sgerm.eventmanagement.repository;
+
+import com.sgerm.eventmanagement.model.NotificationReadMark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repositorio para las marcas de lectura de notificaciones
+ */
+@Repository
+public interface NotificationReadMarkRepository extends JpaRepository<NotificationReadMark, Long> {
+
+    /**
+     * Obtiene la marca de lectura de un usuario
+     */
+    @Query("SELECT m.readUpTo FROM NotificationReadMark m WHERE m.userId = :userId")
+    Optional<LocalDateTime> findReadUpTo(@Param("userId") Long userId);
+
+    /**
+     * Avanza la marca de lectura de un usuario; nunca la retrasa. Devuelve las filas
+     * actualizadas (0 si el usuario aún no tiene marca o ya era posterior).
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE NotificationReadMark m SET m.readUpTo = :readUpTo " +
+           "WHERE m.userId = :userId AND m.readUpTo < :readUpTo")
+    int advance(@Param("userId") Long userId, @Param("readUpTo") LocalDateTime readUpTo);
+
+    /**
+     * Crea la marca de lectura de un usuario. Falla con una violación de clave si ya existe.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO notification_read_marks (user_id, read_up_to) VALUES (:userId, :readUpTo)",
+           nativeQuery = true)
+    int insert(@Param("userId") Long userId, @Param("readUpTo") LocalDateTime readUpTo);
+}
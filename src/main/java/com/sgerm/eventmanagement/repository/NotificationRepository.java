@@ -1,6 +1,7 @@
 package com.sgerm.eventmanagement.repository;
 
 import com.sgerm.eventmanagement.model.Booking;
+import com.sgerm.eventmanagement.model.DeliveryStatus;
 import com.sgerm.eventmanagement.model.Event;
 import com.sgerm.eventmanagement.model.Notification;
 import com.sgerm.eventmanagement.model.NotificationPriority;
@@ -8,6 +9,7 @@ import com.sgerm.eventmanagement.model.NotificationType;
 import com.sgerm.eventmanagement.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -15,6 +17,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +37,25 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
      */
     Page<Notification> findByRecipient(User recipient, Pageable pageable);
     
+    /**
+     * Obtiene la fecha de creación de la notificación más reciente ya confirmada de un
+     * destinatario (vacío si no tiene ninguna)
+     */
+    @Query("SELECT MAX(n.createdAt) FROM Notification n WHERE n.recipient = :recipient")
+    Optional<LocalDateTime> findLatestCreatedAtByRecipient(@Param("recipient") User recipient);
+
+    /**
+     * Busca una página de notificaciones vigentes por destinatario sin contar el total.
+     * Con la tabla particionada, ordenar por fecha de creación permite leer solo las
+     * particiones más recientes hasta completar la página. Las expiradas se ocultan
+     * hasta que se borra su partición.
+     */
+    @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient " +
+           "AND (n.expiresAt IS NULL OR n.expiresAt > :now)")
+    Slice<Notification> findSliceByRecipient(@Param("recipient") User recipient,
+                                             @Param("now") LocalDateTime now,
+                                             Pageable pageable);
+    
     /**
      * Busca notificaciones por remitente
      */
@@ -60,22 +82,33 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     List<Notification> findByRelatedBooking(Booking booking);
     
     /**
-     * Busca notificaciones no leídas por destinatario
+     * Busca notificaciones no leídas por destinatario. Solo pueden estarlo las creadas
+     * después de su marca de lectura, así que el índice (recipient_id, created_at) no
+     * recorre las anteriores.
      */
-    @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient AND n.isRead = false")
-    List<Notification> findUnreadByRecipient(@Param("recipient") User recipient);
+    @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient " +
+           "AND n.createdAt > :readUpTo AND n.isRead = false " +
+           "AND (n.expiresAt IS NULL OR n.expiresAt > :now)")
+    List<Notification> findUnreadByRecipient(@Param("recipient") User recipient,
+                                             @Param("readUpTo") LocalDateTime readUpTo,
+                                             @Param("now") LocalDateTime now);
     
     /**
      * Busca notificaciones no leídas por destinatario con paginación
      */
-    @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient AND n.isRead = false")
-    Page<Notification> findUnreadByRecipient(@Param("recipient") User recipient, Pageable pageable);
+    @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient " +
+           "AND n.createdAt > :readUpTo AND n.isRead = false")
+    Page<Notification> findUnreadByRecipient(@Param("recipient") User recipient,
+                                             @Param("readUpTo") LocalDateTime readUpTo,
+                                             Pageable pageable);
     
     /**
      * Busca notificaciones leídas por destinatario
      */
-    @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient AND n.isRead = true")
-    List<Notification> findReadByRecipient(@Param("recipient") User recipient);
+    @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient " +
+           "AND (n.isRead = true OR n.createdAt <= :readUpTo)")
+    List<Notification> findReadByRecipient(@Param("recipient") User recipient,
+                                           @Param("readUpTo") LocalDateTime readUpTo);
     
     /**
      * Busca notificaciones por destinatario y tipo
@@ -150,17 +183,22 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     /**
      * Busca notificaciones de alta prioridad no leídas
      */
-    @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient " +
-           "AND n.isRead = false AND n.priority IN ('HIGH', 'URGENT', 'CRITICAL')")
-    List<Notification> findHighPriorityUnreadByRecipient(@Param("recipient") User recipient);
+    @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient AND n.createdAt > :readUpTo " +
+           "AND n.isRead = false AND n.priority IN ('HIGH', 'URGENT', 'CRITICAL') " +
+           "AND (n.expiresAt IS NULL OR n.expiresAt > :now)")
+    List<Notification> findHighPriorityUnreadByRecipient(@Param("recipient") User recipient,
+                                                         @Param("readUpTo") LocalDateTime readUpTo,
+                                                         @Param("now") LocalDateTime now);
     
     /**
      * Busca notificaciones recientes por destinatario
      */
     @Query("SELECT n FROM Notification n WHERE n.recipient = :recipient " +
-           "AND n.createdAt >= :since ORDER BY n.createdAt DESC")
+           "AND n.createdAt >= :since AND (n.expiresAt IS NULL OR n.expiresAt > :now) " +
+           "ORDER BY n.createdAt DESC")
     List<Notification> findRecentByRecipient(@Param("recipient") User recipient,
-                                           @Param("since") LocalDateTime since);
+                                           @Param("since") LocalDateTime since,
+                                           @Param("now") LocalDateTime now);
     
     /**
      * Busca notificaciones del sistema (sin remitente)
@@ -177,8 +215,24 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     /**
      * Cuenta notificaciones no leídas por destinatario
      */
-    @Query("SELECT COUNT(n) FROM Notification n WHERE n.recipient = :recipient AND n.isRead = false")
-    long countUnreadByRecipient(@Param("recipient") User recipient);
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.recipient = :recipient " +
+           "AND n.createdAt > :readUpTo AND n.isRead = false " +
+           "AND (n.expiresAt IS NULL OR n.expiresAt > :now)")
+    long countUnreadByRecipient(@Param("recipient") User recipient,
+                                @Param("readUpTo") LocalDateTime readUpTo,
+                                @Param("now") LocalDateTime now);
+    
+    /**
+     * Cuenta notificaciones no leídas y vigentes de varios destinatarios, cada uno con
+     * su marca de lectura (solo aparecen los que tienen alguna)
+     */
+    @Query("SELECT n.recipient.id, COUNT(n) FROM Notification n " +
+           "LEFT JOIN NotificationReadMark m ON m.userId = n.recipient.id " +
+           "WHERE n.recipient.id IN (:recipientIds) AND n.isRead = false " +
+           "AND (m.readUpTo IS NULL OR n.createdAt > m.readUpTo) " +
+           "AND (n.expiresAt IS NULL OR n.expiresAt > :now) GROUP BY n.recipient.id")
+    List<Object[]> countUnreadByRecipientIds(@Param("recipientIds") Collection<Long> recipientIds,
+                                             @Param("now") LocalDateTime now);
     
     /**
      * Cuenta notificaciones por tipo
@@ -198,9 +252,10 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     /**
      * Cuenta notificaciones de alta prioridad no leídas por destinatario
      */
-    @Query("SELECT COUNT(n) FROM Notification n WHERE n.recipient = :recipient " +
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.recipient = :recipient AND n.createdAt > :readUpTo " +
            "AND n.isRead = false AND n.priority IN ('HIGH', 'URGENT', 'CRITICAL')")
-    long countHighPriorityUnreadByRecipient(@Param("recipient") User recipient);
+    long countHighPriorityUnreadByRecipient(@Param("recipient") User recipient,
+                                            @Param("readUpTo") LocalDateTime readUpTo);
     
     /**
      * Busca notificaciones más recientes por destinatario
@@ -237,28 +292,21 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     List<Notification> findNotificationsWithoutAction();
     
     /**
-     * Marca una notificación como leída
+     * Marca una notificación como leída si aún no lo estaba. Devuelve las filas actualizadas.
      */
     @Modifying
-    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt WHERE n.id = :notificationId")
-    void markAsRead(@Param("notificationId") Long notificationId, @Param("readAt") LocalDateTime readAt);
+    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt WHERE n.id = :notificationId AND n.isRead = false")
+    int markAsRead(@Param("notificationId") Long notificationId, @Param("readAt") LocalDateTime readAt);
     
     /**
-     * Marca todas las notificaciones de un usuario como leídas
+     * Marca notificaciones por tipo como leídas (las anteriores a la marca de lectura ya lo están)
      */
     @Modifying
     @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt " +
-           "WHERE n.recipient = :recipient AND n.isRead = false")
-    void markAllAsReadByRecipient(@Param("recipient") User recipient, @Param("readAt") LocalDateTime readAt);
-    
-    /**
-     * Marca notificaciones por tipo como leídas
-     */
-    @Modifying
-    @Query("UPDATE Notification n SET n.isRead = true, n.readAt = :readAt " +
-           "WHERE n.recipient = :recipient AND n.type = :type AND n.isRead = false")
+           "WHERE n.recipient = :recipient AND n.type = :type AND n.createdAt > :readUpTo AND n.isRead = false")
     void markAsReadByRecipientAndType(@Param("recipient") User recipient,
                                      @Param("type") NotificationType type,
+                                     @Param("readUpTo") LocalDateTime readUpTo,
                                      @Param("readAt") LocalDateTime readAt);
     
     /**
@@ -379,13 +427,80 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
                                                  @Param("since") LocalDateTime since);
     
     /**
-     * Busca notificaciones que requieren reenvío
+     * Obtiene [id, próximo intento, prioridad] de las notificaciones con un intento de
+     * entrega previsto antes de 'horizon', por orden de vencimiento. Las entregadas y
+     * las fallidas no tienen próximo intento, así que el índice solo recorre las pendientes.
      */
-    @Query("SELECT n FROM Notification n WHERE " +
-           "((n.emailSent = false AND n.type IN :emailTypes) OR " +
-           "(n.pushSent = false AND n.type IN :pushTypes)) AND " +
-           "n.createdAt >= :retryAfter")
-    List<Notification> findNotificationsForRetry(@Param("emailTypes") List<NotificationType> emailTypes,
-                                                @Param("pushTypes") List<NotificationType> pushTypes,
-                                                @Param("retryAfter") LocalDateTime retryAfter);
-}
\ No newline at end of file
+    @Query("SELECT n.id, n.nextAttemptAt, n.priority FROM Notification n " +
+           "WHERE n.nextAttemptAt <= :horizon ORDER BY n.nextAttemptAt")
+    List<Object[]> findDueForDelivery(@Param("horizon") LocalDateTime horizon, Pageable pageable);
+    
+    /**
+     * Reserva un intento de entrega solo si nadie lo tomó antes (el próximo intento
+     * sigue siendo 'expected'). Devuelve 1 si la reserva tuvo éxito.
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.nextAttemptAt = :lease " +
+           "WHERE n.id = :notificationId AND n.nextAttemptAt = :expected")
+    int claimDelivery(@Param("notificationId") Long notificationId,
+                      @Param("expected") LocalDateTime expected,
+                      @Param("lease") LocalDateTime lease);
+    
+    /**
+     * Busca notificaciones por estado de entrega
+     */
+    Page<Notification> findByDeliveryStatusOrderByUpdatedAtDesc(DeliveryStatus deliveryStatus, Pageable pageable);
+    
+    /**
+     * Devuelve una notificación fallida a la cola de reintentos con los intentos a cero
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.deliveryStatus = com.sgerm.eventmanagement.model.DeliveryStatus.RETRYING, " +
+           "n.deliveryAttempts = 0, n.nextAttemptAt = :now, n.updatedAt = :now " +
+           "WHERE n.id = :notificationId " +
+           "AND n.deliveryStatus = com.sgerm.eventmanagement.model.DeliveryStatus.DEAD_LETTER")
+    int requeueDeadLetter(@Param("notificationId") Long notificationId, @Param("now") LocalDateTime now);
+    
+    /**
+     * Busca el resumen abierto más reciente de un destinatario para un tipo y evento
+     * (un evento nulo busca resúmenes sin evento): sin leer, sin entregar y con la
+     * ventana de agrupación aún abierta
+     */
+    Optional<Notification> findFirstByRecipientAndTypeAndRelatedEventAndIsReadFalseAndDeliveryStatusAndDigestUntilAfterOrderByIdDesc(
+            User recipient, NotificationType type, Event relatedEvent, DeliveryStatus deliveryStatus, LocalDateTime now);
+    
+    default Optional<Notification> findOpenDigest(User recipient, NotificationType type, Event relatedEvent,
+                                                  LocalDateTime now) {
+        return findFirstByRecipientAndTypeAndRelatedEventAndIsReadFalseAndDeliveryStatusAndDigestUntilAfterOrderByIdDesc(
+                recipient, type, relatedEvent, DeliveryStatus.PENDING, now);
+    }
+    
+    /**
+     * Suma una notificación a un resumen solo si sigue abierto. Si la entrega lo tomó
+     * entretanto, o el usuario lo leyó (él o todas sus notificaciones), no actualiza
+     * nada y devuelve 0.
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.digestCount = n.digestCount + 1, n.title = :title, n.message = :message, " +
+           "n.actionUrl = :actionUrl, n.updatedAt = :now " +
+           "WHERE n.id = :digestId AND n.isRead = false AND n.digestUntil > :now " +
+           "AND n.deliveryStatus = com.sgerm.eventmanagement.model.DeliveryStatus.PENDING " +
+           "AND NOT EXISTS (SELECT m FROM NotificationReadMark m " +
+           "WHERE m.userId = n.recipient.id AND m.readUpTo >= n.createdAt)")
+    int mergeIntoDigest(@Param("digestId") Long digestId,
+                        @Param("title") String title,
+                        @Param("message") String message,
+                        @Param("actionUrl") String actionUrl,
+                        @Param("now") LocalDateTime now);
+    
+    /**
+     * Obtiene totales y últimas fechas de las notificaciones vigentes de un usuario
+     * (para ETag). Al expirar una notificación cambia el total y con él la versión.
+     */
+    @Query("SELECT COUNT(n), SUM(CASE WHEN n.isRead = false AND n.createdAt > :readUpTo THEN 1 ELSE 0 END), " +
+           "MAX(n.createdAt), MAX(n.updatedAt), MAX(n.readAt) FROM Notification n WHERE n.recipient = :recipient " +
+           "AND (n.expiresAt IS NULL OR n.expiresAt > :now)")
+    List<Object[]> getVersionByRecipient(@Param("recipient") User recipient,
+                                         @Param("readUpTo") LocalDateTime readUpTo,
+                                         @Param("now") LocalDateTime now);
+}
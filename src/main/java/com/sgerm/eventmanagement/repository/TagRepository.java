@@ -0,0 +1,34 @@
+package com.sgerm.eventmanagement.repository;
+
+import com.sgerm.eventmanagement.model.Tag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio para la entidad Tag
+ */
+@Repository
+public interface TagRepository extends JpaRepository<Tag, Long> {
+
+    /**
+     * Busca tags por nombre normalizado
+     */
+    List<Tag> findByNameIn(Collection<String> names);
+
+    /**
+     * Obtiene todos los pares (evento, tag) de la tabla event_tags
+     */
+    @Query("SELECT e.id, t.id FROM Event e JOIN e.eventTags t")
+    List<Object[]> findAllEventTagPairs();
+
+    /**
+     * Obtiene los tags de un evento
+     */
+    @Query("SELECT t FROM Event e JOIN e.eventTags t WHERE e.id = :eventId")
+    List<Tag> findByEventId(@Param("eventId") Long eventId);
+}
@@ -0,0 +1,294 @@
+package com.sgerm.eventmanagement.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Envío de ficheros (imágenes, entradas, exportaciones) sin pasar su contenido por el heap.
+ *
+ * Si el contenedor lo soporta (Tomcat NIO) el fichero se delega a sendfile; si no, se usa
+ * FileChannel.transferTo. Los ficheros pequeños más usados se mantienen mapeados en memoria
+ * (fuera del heap). Soporta rangos simples, ETag fuerte y respuestas 304.
+ *
+ * max-total-bytes limita lo que la caché mantiene mapeado, no la memoria mapeada del
+ * proceso: en Java 17 un MappedByteBuffer no se puede desmapear explícitamente, así que
+ * una entrada desalojada (o una respuesta que aún la está enviando) conserva su mapeo
+ * hasta que el recolector libera el buffer. Con mucha rotación de ficheros la memoria
+ * mapeada real puede superar temporalmente ese límite.
+ */
+@Service
+@Slf4j
+public class AssetService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Value("${sgerm.files.upload-dir:uploads/}")
+    private String uploadDir;
+
+    @Value("#{'${sgerm.assets.public-extensions:jpg,jpeg,png,gif,webp}'.split(',')}")
+    private Set<String> publicExtensions;
+
+    @Value("${sgerm.assets.mmap.max-file-bytes:1048576}")
+    private long maxMappedFileBytes;
+
+    @Value("${sgerm.assets.mmap.max-total-bytes:67108864}")
+    private long maxMappedTotalBytes;
+
+    private final Map<Path, MappedAsset> mapped = new LinkedHashMap<>(64, 0.75f, true);
+    private long mappedBytes;
+    private Path uploadRoot;
+
+    private final LongAdder mappedHits = new LongAdder();
+    private final LongAdder mappedEvictions = new LongAdder();
+    private final LongAdder sendfileResponses = new LongAdder();
+    private final LongAdder transferResponses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder partialResponses = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        uploadRoot = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Resuelve un fichero público dentro del directorio de subidas. Rechaza rutas que
+     * salgan del directorio y extensiones no públicas.
+     */
+    public Optional<Path> resolvePublicAsset(String relativePath) {
+        Path file = uploadRoot.resolve(relativePath).normalize();
+        if (!file.startsWith(uploadRoot) || !publicExtensions.contains(extension(file))) {
+            return Optional.empty();
+        }
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    /**
+     * Escribe un fichero en la respuesta con validación condicional y rangos
+     */
+    public void serve(Path file, String cacheControl, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (isNotModified(request, etag, lastModified)) {
+            notModified.increment();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(range, size);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                partialResponses.increment();
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        ByteBuffer buffer = getMapped(file, size, lastModified);
+        if (buffer != null) {
+            mappedHits.increment();
+            WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+            buffer.position((int) start).limit((int) (end + 1));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat envía el fichero con sendfile cuando el controlador termina
+            sendfileResponses.increment();
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        transferResponses.increment();
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position <= end) {
+                long sent = source.transferTo(position, end + 1 - position, target);
+                if (sent == 0) {
+                    // El fichero se acortó tras calcular la respuesta: se corta la conexión
+                    // en lugar de enviar menos bytes de los anunciados o repetir sin fin
+                    throw new IOException("El fichero " + file.getFileName() + " cambió durante el envío");
+                }
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * Obtiene las métricas del servidor de ficheros
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (mapped) {
+            stats.put("mappedFiles", mapped.size());
+            stats.put("cachedMappedBytes", mappedBytes);
+        }
+        stats.put("mappedHits", mappedHits.sum());
+        stats.put("mappedEvictions", mappedEvictions.sum());
+        stats.put("sendfileResponses", sendfileResponses.sum());
+        stats.put("transferResponses", transferResponses.sum());
+        stats.put("partialResponses", partialResponses.sum());
+        stats.put("notModified", notModified.sum());
+        return stats;
+    }
+
+    /**
+     * Copia independiente (posición y límite propios) del mapeo de un fichero pequeño,
+     * o null si el fichero es demasiado grande para mapearlo
+     */
+    private ByteBuffer getMapped(Path file, long size, long lastModified) throws IOException {
+        if (size > maxMappedFileBytes) {
+            return null;
+        }
+        synchronized (mapped) {
+            MappedAsset asset = mapped.get(file);
+            if (asset != null && asset.size == size && asset.lastModified == lastModified) {
+                return asset.buffer.duplicate();
+            }
+            if (asset != null) {
+                mapped.remove(file);
+                mappedBytes -= asset.size;
+                mappedEvictions.increment();
+            }
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        synchronized (mapped) {
+            MappedAsset previous = mapped.put(file, new MappedAsset(buffer, size, lastModified));
+            mappedBytes += size - (previous != null ? previous.size : 0);
+            // Desalojar solo suelta la referencia: el mapeo se libera cuando el recolector recoge el buffer
+            while (mappedBytes > maxMappedTotalBytes && !mapped.isEmpty()) {
+                Path eldest = mapped.keySet().iterator().next();
+                mappedBytes -= mapped.remove(eldest).size;
+                mappedEvictions.increment();
+            }
+        }
+        return buffer.duplicate();
+    }
+
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String value = candidate.trim();
+                if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * Interpreta un único rango de bytes. Devuelve [inicio, fin], un array vacío si la
+     * cabecera se ignora (varios rangos o formato desconocido) o null si no es satisfacible.
+     */
+    private static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? size - 1 : Math.min(size - 1, Long.parseLong(spec.substring(dash + 1)));
+            }
+            if (start >= size || start > end) {
+                return null;
+            }
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private record MappedAsset(MappedByteBuffer buffer, long size, long lastModified) {
+    }
+}
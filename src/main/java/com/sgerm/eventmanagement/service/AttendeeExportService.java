@@ -0,0 +1,375 @@
+package com.sgerm.eventmanagement.service;
+
+import com.sgerm.eventmanagement.config.NodeIdentity;
+import com.sgerm.eventmanagement.model.BookingStatus;
+import com.sgerm.eventmanagement.model.Event;
+import com.sgerm.eventmanagement.model.User;
+import com.sgerm.eventmanagement.repository.BookingRepository;
+import com.sgerm.eventmanagement.repository.EventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Exportación a Excel de los asistentes de un evento.
+ *
+ * Usa el modo streaming de POI (SXSSF): solo se mantiene en memoria una ventana de
+ * filas y el resto se vuelca a disco. Las reservas se leen por páginas de clave
+ * (id > último id) y todas las exportaciones se ejecutan en un pool acotado propio.
+ * Los trabajos y sus ficheros son locales al nodo (ver NodeIdentity).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendeeExportService {
+
+    private static final String[] HEADERS = {
+            "Reserva", "Código", "Estado", "Entradas", "Total", "Fecha de reserva", "Check-in",
+            "Nombre", "Apellidos", "Email", "Teléfono"
+    };
+
+    private final BookingRepository bookingRepository;
+    private final EventRepository eventRepository;
+    private final NodeIdentity nodeIdentity;
+
+    @Value("${sgerm.excel-export.threads:2}")
+    private int threads;
+
+    @Value("${sgerm.excel-export.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${sgerm.excel-export.page-size:1000}")
+    private int pageSize;
+
+    @Value("${sgerm.excel-export.row-window:100}")
+    private int rowWindow;
+
+    @Value("${sgerm.excel-export.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Estados de un trabajo de exportación
+     */
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    @PostConstruct
+    void startExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "excel-export-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Encola la exportación de los asistentes de un evento a un fichero temporal
+     */
+    public Map<String, Object> startExport(Long eventId, User user) {
+        Event event = getExportableEvent(eventId, user);
+        Job job = new Job(nodeIdentity.newJobId(), eventId, user.getId(), bookingRepository.countByEvent(event));
+        jobs.put(job.id, job);
+
+        try {
+            executor.execute(() -> runJob(job, event.getTitle()));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new IllegalStateException("Hay demasiadas exportaciones en curso, inténtalo más tarde");
+        }
+        return job.toMap();
+    }
+
+    /**
+     * Escribe el libro directamente en la respuesta, ocupando un hilo del pool
+     * de exportación mientras dura la escritura
+     */
+    public void streamExport(Event event, OutputStream out) throws IOException {
+        Future<?> future;
+        try {
+            future = executor.submit(() -> writeWorkbook(event.getId(), event.getTitle(), out, written -> { }));
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Hay demasiadas exportaciones en curso, inténtalo más tarde");
+        }
+
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Exportación interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException cause) {
+                throw cause.getCause();
+            }
+            throw new IllegalStateException("Error al generar la exportación", e.getCause());
+        }
+    }
+
+    /**
+     * Obtiene el estado y el progreso de un trabajo
+     */
+    public Map<String, Object> getJobStatus(String jobId, User user) {
+        return getOwnJob(jobId, user).toMap();
+    }
+
+    /**
+     * Obtiene el fichero de un trabajo terminado
+     */
+    public Path getCompletedFile(String jobId, User user) {
+        Job job = getOwnJob(jobId, user);
+        if (job.status != JobStatus.COMPLETED) {
+            throw new IllegalStateException("La exportación todavía no está disponible");
+        }
+        return job.file;
+    }
+
+    /**
+     * Métricas del pool de exportación
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("completedTasks", executor.getCompletedTaskCount());
+        stats.put("jobs", jobs.size());
+        return stats;
+    }
+
+    /**
+     * Elimina los trabajos terminados y sus ficheros al cumplirse la retención
+     */
+    @Scheduled(fixedDelay = 300000)
+    public void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> {
+            if (job.finishedAt == null || job.finishedAt.isAfter(cutoff)) {
+                return false;
+            }
+            deleteQuietly(job.file);
+            return true;
+        });
+    }
+
+    private void runJob(Job job, String title) {
+        job.status = JobStatus.RUNNING;
+        Path file = null;
+        try {
+            file = Files.createTempFile("attendees-" + job.eventId + "-", ".xlsx");
+            try (OutputStream out = Files.newOutputStream(file)) {
+                writeWorkbook(job.eventId, title, out, written -> job.writtenRows = written);
+            }
+            job.file = file;
+            job.status = JobStatus.COMPLETED;
+        } catch (IOException | RuntimeException e) {
+            // log.error("Error al exportar los asistentes del evento {}: {}", job.eventId, e.getMessage(), e);
+            deleteQuietly(file);
+            job.error = "Error al generar la exportación";
+            job.status = JobStatus.FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * Genera el libro página a página; 'progress' recibe las filas escritas
+     */
+    private void writeWorkbook(Long eventId, String title, OutputStream out, LongConsumer progress) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+        try {
+            Sheet sheet = workbook.createSheet(WorkbookUtil.createSafeSheetName(title));
+            CellStyles styles = new CellStyles(workbook);
+
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < HEADERS.length; i++) {
+                Cell cell = header.createCell(i);
+                cell.setCellValue(HEADERS[i]);
+                cell.setCellStyle(styles.header);
+            }
+            sheet.createFreezePane(0, 1);
+
+            int rowIndex = 1;
+            long afterId = 0;
+            List<Object[]> page;
+            do {
+                page = bookingRepository.findAttendeePage(eventId, afterId, PageRequest.of(0, pageSize));
+                for (Object[] attendee : page) {
+                    writeRow(sheet.createRow(rowIndex++), attendee, styles);
+                    afterId = (Long) attendee[0];
+                }
+                progress.accept(rowIndex - 1L);
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException("Exportación cancelada");
+                }
+            } while (page.size() == pageSize);
+
+            workbook.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            workbook.dispose();
+            try {
+                workbook.close();
+            } catch (IOException e) {
+                // log.warn("No se pudo cerrar el libro: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void writeRow(Row row, Object[] attendee, CellStyles styles) {
+        for (int i = 0; i < attendee.length; i++) {
+            Object value = attendee[i];
+            if (value == null) {
+                continue;
+            }
+            Cell cell = row.createCell(i);
+            if (value instanceof BookingStatus status) {
+                cell.setCellValue(status.getDisplayName());
+            } else if (value instanceof BigDecimal amount) {
+                cell.setCellValue(amount.doubleValue());
+                cell.setCellStyle(styles.money);
+            } else if (value instanceof Number number) {
+                cell.setCellValue(number.doubleValue());
+            } else if (value instanceof LocalDateTime dateTime) {
+                cell.setCellValue(dateTime);
+                cell.setCellStyle(styles.dateTime);
+            } else {
+                cell.setCellValue(value.toString());
+            }
+        }
+    }
+
+    /**
+     * Obtiene un evento comprobando que el usuario es su organizador o administrador
+     */
+    public Event getExportableEvent(Long eventId, User user) {
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new IllegalArgumentException("Evento no encontrado"));
+        if (!user.getRole().isAdmin() && !event.getOrganizer().getId().equals(user.getId())) {
+            throw new IllegalArgumentException("No tienes permisos para exportar los asistentes de este evento");
+        }
+        return event;
+    }
+
+    private Job getOwnJob(String jobId, User user) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            nodeIdentity.requireLocal(jobId);
+        }
+        if (job == null || (!user.getRole().isAdmin() && !job.requesterId.equals(user.getId()))) {
+            throw new IllegalArgumentException("Exportación no encontrada");
+        }
+        return job;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // log.warn("No se pudo eliminar el fichero temporal {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Estilos compartidos por todas las celdas (POI limita el número de estilos por libro)
+     */
+    private static final class CellStyles {
+        private final CellStyle header;
+        private final CellStyle money;
+        private final CellStyle dateTime;
+
+        private CellStyles(SXSSFWorkbook workbook) {
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            header = workbook.createCellStyle();
+            header.setFont(bold);
+
+            money = workbook.createCellStyle();
+            money.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00"));
+
+            dateTime = workbook.createCellStyle();
+            dateTime.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd hh:mm"));
+        }
+    }
+
+    private static final class Job {
+        private final String id;
+        private final Long eventId;
+        private final Long requesterId;
+        private final long totalRows;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile long writtenRows;
+        private volatile Path file;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private Job(String id, Long eventId, Long requesterId, long totalRows) {
+            this.id = id;
+            this.eventId = eventId;
+            this.requesterId = requesterId;
+            this.totalRows = totalRows;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("id", id);
+            map.put("eventId", eventId);
+            map.put("status", status);
+            map.put("totalRows", totalRows);
+            map.put("writtenRows", writtenRows);
+            map.put("progress", totalRows == 0 ? (status == JobStatus.COMPLETED ? 100 : 0)
+                    : Math.min(100, writtenRows * 100 / totalRows));
+            map.put("createdAt", createdAt);
+            map.put("finishedAt", finishedAt);
+            map.put("error", error);
+            return map;
+        }
+    }
+}
@@ -9,6 +9,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
@@ -31,6 +33,8 @@ public class BookingService {
     private final EventService eventService;
     private final NotificationService notificationService;
     private final EmailService emailService;
+    private final TrendingService trendingService;
+    private final RecommendationService recommendationService;
     
     /**
      * Crea una nueva reserva
@@ -44,10 +48,8 @@ public class BookingService {
         // Validar que el evento permite reservas
         validateBookingEligibility(event, user, ticketQuantity);
         
-        // Verificar disponibilidad de tickets
-        if (!eventService.hasAvailableTickets(eventId, ticketQuantity)) {
-            throw new IllegalStateException("No hay suficientes tickets disponibles");
-        }
+        // Reservar las entradas: la lectura agrupada de disponibilidad es solo para mostrarla
+        eventService.reserveTickets(eventId, ticketQuantity);
         
         // Verificar límite por usuario
         // int existingTickets = bookingRepository.sumTicketsByUserAndEvent(user, event); // Método no implementado
@@ -77,12 +79,15 @@ public class BookingService {
         // }
         
         Booking savedBooking = bookingRepository.save(booking);
+        // Si la reserva se deshace no debe contar para las tendencias
+        afterCommit(() -> trendingService.recordBooking(event));
         
         // Actualizar tickets disponibles
         eventService.updateAvailableTickets(event);
         
         // Enviar notificaciones
         if (savedBooking.getStatus() == BookingStatus.CONFIRMED) {
+            recommendationService.onBookingConfirmed(user.getId(), eventId);
             sendBookingConfirmation(savedBooking);
         } else {
             sendBookingPendingNotification(savedBooking);
@@ -125,6 +130,7 @@ public class BookingService {
         // booking.setQrCode(booking.generateQRCode()); // Método no implementado o retorna void
         
         Booking confirmedBooking = bookingRepository.save(booking);
+        recommendationService.onBookingConfirmed(booking.getUser().getId(), booking.getEvent().getId());
         
         // Enviar confirmación
         sendBookingConfirmation(confirmedBooking);
@@ -329,6 +335,15 @@ public class BookingService {
                 .orElseThrow(() -> new IllegalArgumentException("Reserva no encontrada con ID: " + bookingId));
     }
     
+    /**
+     * Obtiene reservas del usuario por lote de IDs con una sola consulta.
+     * Los IDs inexistentes o de otros usuarios no aparecen en el resultado.
+     */
+    @Transactional(readOnly = true)
+    public List<Booking> getUserBookingsByIds(List<Long> bookingIds, User user) {
+        return bookingRepository.findByIdsAndUserWithEvent(bookingIds, user);
+    }
+    
     /**
      * Obtiene una reserva por código
      */
@@ -563,4 +578,17 @@ public class BookingService {
         // notificationService.sendBookingPendingNotification(booking); // Método no implementado
         // emailService.sendBookingPendingEmail(booking); // Método no implementado
     }
-}
\ No newline at end of file
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
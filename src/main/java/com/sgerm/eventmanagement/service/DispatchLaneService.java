@@ -0,0 +1,59 @@
+package com.sgerm.eventmanagement.service;
+
+import com.sgerm.eventmanagement.config.AsyncConfig;
+import com.sgerm.eventmanagement.model.NotificationPriority;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Carriles de despacho asíncrono: selección por prioridad y métricas de cada ejecutor
+ */
+@Service
+@RequiredArgsConstructor
+public class DispatchLaneService {
+
+    private final Map<String, ThreadPoolTaskExecutor> executors;
+
+    /**
+     * Obtiene el carril de una prioridad de notificación: URGENT y CRITICAL van al
+     * crítico, NORMAL y HIGH al estándar y LOW al masivo
+     */
+    public ThreadPoolTaskExecutor laneFor(NotificationPriority priority) {
+        return executors.get(switch (priority) {
+            case URGENT, CRITICAL -> AsyncConfig.CRITICAL_LANE;
+            case NORMAL, HIGH -> AsyncConfig.STANDARD_LANE;
+            case LOW -> AsyncConfig.BULK_LANE;
+        });
+    }
+
+    /**
+     * Obtiene, por ejecutor, sus hilos, su cola y las tareas completadas y rechazadas
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new TreeMap<>();
+        executors.forEach((name, executor) -> stats.put(name, toMap(executor)));
+        return stats;
+    }
+
+    private static Map<String, Object> toMap(ThreadPoolTaskExecutor executor) {
+        ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("poolSize", pool.getPoolSize());
+        map.put("maxPoolSize", pool.getMaximumPoolSize());
+        map.put("active", pool.getActiveCount());
+        map.put("queued", pool.getQueue().size());
+        map.put("queueRemaining", pool.getQueue().remainingCapacity());
+        map.put("completed", pool.getCompletedTaskCount());
+        if (pool.getRejectedExecutionHandler() instanceof AsyncConfig.CountingRejectionHandler handler) {
+            map.put("rejected", handler.getRejected());
+            map.put("rejectionPolicy", handler.getPolicy());
+        }
+        return map;
+    }
+}
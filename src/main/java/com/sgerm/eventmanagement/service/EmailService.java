@@ -1,11 +1,13 @@
 package com.sgerm.eventmanagement.service;
 
+import com.sgerm.eventmanagement.config.AsyncConfig;
 import com.sgerm.eventmanagement.model.Booking;
 import com.sgerm.eventmanagement.model.Event;
 import com.sgerm.eventmanagement.model.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
@@ -17,6 +19,7 @@ import org.thymeleaf.context.Context;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.Locale;
 
 /**
@@ -29,6 +32,7 @@ public class EmailService {
     
     private final JavaMailSender mailSender;
     private final TemplateEngine templateEngine;
+    private final TicketRenderService ticketRenderService;
     
     @Value("${spring.mail.username}")
     private String fromEmail;
@@ -44,7 +48,7 @@ public class EmailService {
     /**
      * Envía email de verificación de cuenta
      */
-    @Async
+    @Async(AsyncConfig.CRITICAL_LANE)
     public void sendVerificationEmail(User user, String verificationToken) {
         // log.info("Enviando email de verificación a: {}", user.getEmail());
         
@@ -71,7 +75,7 @@ public class EmailService {
     /**
      * Envía email de restablecimiento de contraseña
      */
-    @Async
+    @Async(AsyncConfig.CRITICAL_LANE)
     public void sendPasswordResetEmail(User user, String temporaryPassword) {
         // log.info("Enviando email de restablecimiento de contraseña a: {}", user.getEmail());
         
@@ -99,7 +103,7 @@ public class EmailService {
     /**
      * Envía email de confirmación de reserva
      */
-    @Async
+    @Async(AsyncConfig.STANDARD_LANE)
     public void sendBookingConfirmationEmail(Booking booking) {
         // log.info("Enviando email de confirmación de reserva: {}", booking.getBookingCode());
         
@@ -113,11 +117,14 @@ public class EmailService {
             context.setVariable("dateFormatter", DATE_FORMATTER);
             
             String htmlContent = templateEngine.process("emails/booking-confirmation", context);
+            byte[] ticket = ticketRenderService.renderTicket(booking);
             
             sendHtmlEmail(
                 booking.getUser().getEmail(),
                 "Confirmación de reserva - " + booking.getEvent().getTitle(),
-                htmlContent
+                htmlContent,
+                "entrada-" + booking.getBookingCode() + ".pdf",
+                ticket
             );
             
             // log.info("Email de confirmación enviado exitosamente para reserva: {}", booking.getBookingCode());
@@ -129,7 +136,7 @@ public class EmailService {
     /**
      * Envía email de cancelación de reserva
      */
-    @Async
+    @Async(AsyncConfig.STANDARD_LANE)
     public void sendBookingCancellationEmail(Booking booking) {
         // log.info("Enviando email de cancelación de reserva: {}", booking.getBookingCode());
         
@@ -158,7 +165,7 @@ public class EmailService {
     /**
      * Envía email de recordatorio de evento
      */
-    @Async
+    @Async(AsyncConfig.STANDARD_LANE)
     public void sendEventReminderEmail(Booking booking) {
         // log.info("Enviando email de recordatorio de evento para reserva: {}", booking.getBookingCode());
         
@@ -189,7 +196,7 @@ public class EmailService {
     /**
      * Envía email de notificación de evento cancelado
      */
-    @Async
+    @Async(AsyncConfig.CRITICAL_LANE)
     public void sendEventCancellationEmail(Event event, User user) {
         // log.info("Enviando email de cancelación de evento: {} a usuario: {}", event.getTitle(), user.getEmail());
         
@@ -217,7 +224,7 @@ public class EmailService {
     /**
      * Envía email de notificación de cambios en evento
      */
-    @Async
+    @Async(AsyncConfig.STANDARD_LANE)
     public void sendEventUpdateEmail(Event event, User user, String changes) {
         // log.info("Enviando email de actualización de evento: {} a usuario: {}", event.getTitle(), user.getEmail());
         
@@ -247,7 +254,7 @@ public class EmailService {
     /**
      * Envía email de bienvenida a nuevos usuarios
      */
-    @Async
+    @Async(AsyncConfig.STANDARD_LANE)
     public void sendWelcomeEmail(User user) {
         // log.info("Enviando email de bienvenida a: {}", user.getEmail());
         
@@ -275,7 +282,7 @@ public class EmailService {
     /**
      * Envía email de notificación de pago
      */
-    @Async
+    @Async(AsyncConfig.STANDARD_LANE)
     public void sendPaymentConfirmationEmail(Booking booking) {
         // log.info("Enviando email de confirmación de pago para reserva: {}", booking.getBookingCode());
         
@@ -305,7 +312,7 @@ public class EmailService {
     /**
      * Envía email de contacto/soporte
      */
-    @Async
+    @Async(AsyncConfig.STANDARD_LANE)
     public void sendContactEmail(String fromEmail, String fromName, String subject, String message) {
         // log.info("Enviando email de contacto de: {} <{}>", fromName, fromEmail);
         
@@ -347,10 +354,27 @@ public class EmailService {
         // mailSender.send(message); // message no disponible
     }
     
+    /**
+     * Envía email HTML con un PDF adjunto
+     */
+    private void sendHtmlEmail(String to, String subject, String htmlContent,
+                               String attachmentName, byte[] attachment) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        
+        helper.setFrom(fromEmail);
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(htmlContent, true);
+        helper.addAttachment(attachmentName, new ByteArrayResource(attachment), "application/pdf");
+        
+        mailSender.send(message);
+    }
+    
     /**
      * Envía email de texto simple
      */
-    @Async
+    @Async(AsyncConfig.STANDARD_LANE)
     public void sendSimpleEmail(String to, String subject, String text) {
         // log.info("Enviando email simple a: {}", to);
         
@@ -369,10 +393,40 @@ public class EmailService {
         }
     }
     
+    /**
+     * Envía un email de texto a un destinatario. Es síncrono y propaga los errores
+     * para que el llamador pueda programar el reintento.
+     */
+    public void deliverSimpleEmail(String to, String subject, String text) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(to);
+        message.setSubject(subject);
+        message.setText(text);
+
+        mailSender.send(message);
+    }
+
+    /**
+     * Envía un mismo email de texto a varios destinatarios en copia oculta, en un
+     * único mensaje. Es síncrono y propaga los errores para que el llamador pueda
+     * reintentar el lote.
+     */
+    public void sendSimpleBatchEmail(Collection<String> recipients, String subject, String text) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(fromEmail);
+        message.setBcc(recipients.toArray(String[]::new));
+        message.setSubject(subject);
+        message.setText(text);
+
+        mailSender.send(message);
+    }
+
     /**
      * Envía email de notificación masiva
      */
-    @Async
+    @Async(AsyncConfig.BULK_LANE)
     public void sendBulkEmail(String[] recipients, String subject, String htmlContent) {
         // log.info("Enviando email masivo a {} destinatarios", recipients.length);
         
@@ -0,0 +1,487 @@
+package com.sgerm.eventmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sgerm.eventmanagement.model.Event;
+import com.sgerm.eventmanagement.model.EventCategory;
+import com.sgerm.eventmanagement.model.EventStatus;
+import com.sgerm.eventmanagement.model.User;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caché de eventos en dos niveles: una caché local acotada (L1) con expiración
+ * por tiempo y tamaño, y Redis como caché compartida (L2).
+ *
+ * Las escrituras invalidan ambos niveles y publican un mensaje por Redis pub/sub
+ * para que el resto de nodos descarten su L1. Si un mensaje se pierde, el tiempo
+ * máximo que un nodo puede servir un estado obsoleto queda acotado por la suma
+ * de los TTL de L1 y L2.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventCacheService {
+
+    public static final String INVALIDATION_CHANNEL = "sgerm:cache:events";
+
+    private static final String KEY_PREFIX = "sgerm:event:";
+    private static final String INVALIDATE_ALL = "*";
+    private static final int MAX_CATALOG_ENTRIES = 1000;
+
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+    private final ObjectMapper objectMapper;
+    private final RequestCoalescer requestCoalescer;
+
+    @Value("${sgerm.cache.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${sgerm.cache.events.max-size:10000}")
+    private int maxSize;
+
+    @Value("${sgerm.cache.events.local-ttl-seconds:10}")
+    private long localTtlSeconds;
+
+    @Value("${sgerm.cache.events.redis-ttl-seconds:60}")
+    private long redisTtlSeconds;
+
+    private final Map<Long, LocalEntry> localCache = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, CatalogEntry> catalogCache = new ConcurrentHashMap<>();
+    private final AtomicLong invalidationSequence = new AtomicLong();
+    private final AtomicLong catalogGeneration = new AtomicLong();
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder localInvalidations = new LongAdder();
+    private final LongAdder remoteInvalidations = new LongAdder();
+    private final LongAdder catalogHits = new LongAdder();
+    private final LongAdder catalogMisses = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+
+    /**
+     * Se suscribe al canal de invalidaciones si Redis está habilitado
+     */
+    @PostConstruct
+    void subscribeToInvalidations() {
+        RedisMessageListenerContainer container = listenerContainerProvider.getIfAvailable();
+        if (redisEnabled && container != null) {
+            container.addMessageListener(
+                    (message, pattern) -> onRemoteInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(INVALIDATION_CHANNEL));
+        }
+    }
+
+    /**
+     * Obtiene un evento consultando L1, luego L2 y por último el cargador.
+     * Siempre devuelve una copia desacoplada; en un fallo, las peticiones
+     * concurrentes del mismo evento comparten una única carga.
+     */
+    public Optional<Event> getEvent(Long eventId, Function<Long, Optional<Event>> loader) {
+        CachedEvent cached = getLocal(eventId);
+        if (cached != null) {
+            localHits.increment();
+            return Optional.of(cached.toEvent());
+        }
+
+        cached = getRemote(eventId);
+        if (cached != null) {
+            remoteHits.increment();
+            putLocal(eventId, cached);
+            return Optional.of(cached.toEvent());
+        }
+
+        misses.increment();
+        CachedEvent loaded = requestCoalescer.execute("event:" + eventId, 0, () -> {
+            long sequence = invalidationSequence.get();
+            CachedEvent snapshot = loader.apply(eventId).map(CachedEvent::from).orElse(null);
+            if (snapshot != null) {
+                store(snapshot, sequence);
+            }
+            return snapshot;
+        });
+        return Optional.ofNullable(loaded).map(CachedEvent::toEvent);
+    }
+
+    /**
+     * Obtiene varios eventos; los que no están en caché se cargan en un solo lote.
+     * Los IDs inexistentes se omiten del resultado.
+     */
+    public Map<Long, Event> getEvents(List<Long> eventIds, Function<List<Long>, List<Event>> loader) {
+        Map<Long, Event> found = new LinkedHashMap<>();
+        List<Long> pending = new ArrayList<>();
+        for (Long eventId : eventIds) {
+            if (found.containsKey(eventId) || pending.contains(eventId)) {
+                continue;
+            }
+            CachedEvent cached = getLocal(eventId);
+            if (cached != null) {
+                localHits.increment();
+                found.put(eventId, cached.toEvent());
+            } else {
+                pending.add(eventId);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            List<Long> stillMissing = new ArrayList<>();
+            List<CachedEvent> remote = getRemote(pending);
+            for (int i = 0; i < pending.size(); i++) {
+                CachedEvent cached = remote.get(i);
+                if (cached != null) {
+                    remoteHits.increment();
+                    putLocal(pending.get(i), cached);
+                    found.put(pending.get(i), cached.toEvent());
+                } else {
+                    stillMissing.add(pending.get(i));
+                }
+            }
+
+            if (!stillMissing.isEmpty()) {
+                misses.add(stillMissing.size());
+                long sequence = invalidationSequence.get();
+                for (Event event : loader.apply(stillMissing)) {
+                    store(CachedEvent.from(event), sequence);
+                    found.put(event.getId(), event);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Obtiene una consulta de catálogo (lista de IDs) cacheada localmente.
+     * Cualquier invalidación de eventos descarta todo el catálogo.
+     */
+    public List<Long> getCatalog(String key, Supplier<List<Long>> loader) {
+        long generation = catalogGeneration.get();
+        CatalogEntry entry = catalogCache.get(key);
+        if (entry != null && entry.generation == generation && entry.expiresAtNanos > System.nanoTime()) {
+            catalogHits.increment();
+            return entry.eventIds;
+        }
+
+        catalogMisses.increment();
+        List<Long> eventIds = List.copyOf(loader.get());
+        if (catalogCache.size() >= MAX_CATALOG_ENTRIES) {
+            catalogCache.clear();
+        }
+        if (catalogGeneration.get() == generation) {
+            catalogCache.put(key, new CatalogEntry(eventIds, generation,
+                    System.nanoTime() + Duration.ofSeconds(localTtlSeconds).toNanos()));
+        }
+        return eventIds;
+    }
+
+    /**
+     * Generación actual del catálogo; cambia con cada invalidación
+     */
+    public long getCatalogGeneration() {
+        return catalogGeneration.get();
+    }
+
+    /**
+     * Invalida un evento en todos los niveles y nodos. Si hay una transacción
+     * activa, la invalidación se repite tras el commit para no dejar en caché
+     * datos leídos antes de confirmar el cambio.
+     */
+    public void invalidate(Long eventId) {
+        evictEverywhere(eventId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictEverywhere(eventId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Obtiene las métricas de la caché
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localSize", localSize());
+        stats.put("localMaxSize", maxSize);
+        stats.put("localHits", localHits.sum());
+        stats.put("redisHits", remoteHits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("sizeEvictions", sizeEvictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("localInvalidations", localInvalidations.sum());
+        stats.put("remoteInvalidations", remoteInvalidations.sum());
+        stats.put("catalogEntries", catalogCache.size());
+        stats.put("catalogHits", catalogHits.sum());
+        stats.put("catalogMisses", catalogMisses.sum());
+        stats.put("redisEnabled", redisEnabled);
+        stats.put("redisErrors", redisErrors.sum());
+        return stats;
+    }
+
+    /**
+     * Procesa una invalidación recibida de otro nodo
+     */
+    private void onRemoteInvalidation(String body) {
+        remoteInvalidations.increment();
+        invalidationSequence.incrementAndGet();
+        catalogGeneration.incrementAndGet();
+        if (INVALIDATE_ALL.equals(body)) {
+            synchronized (localCache) {
+                localCache.clear();
+            }
+            return;
+        }
+        try {
+            evictLocal(Long.valueOf(body));
+        } catch (NumberFormatException e) {
+            // log.warn("Mensaje de invalidación de caché no válido: {}", body);
+        }
+    }
+
+    private void evictEverywhere(Long eventId) {
+        localInvalidations.increment();
+        invalidationSequence.incrementAndGet();
+        catalogGeneration.incrementAndGet();
+        evictLocal(eventId);
+
+        StringRedisTemplate redis = redisTemplate();
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.delete(KEY_PREFIX + eventId);
+            redis.convertAndSend(INVALIDATION_CHANNEL, eventId.toString());
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            // log.warn("No se pudo invalidar el evento {} en Redis: {}", eventId, e.getMessage());
+        }
+    }
+
+    /**
+     * Guarda un evento recién cargado, salvo que haya llegado una invalidación
+     * mientras se leía de la base de datos.
+     */
+    private void store(CachedEvent cached, long sequenceBeforeLoad) {
+        if (invalidationSequence.get() != sequenceBeforeLoad) {
+            return;
+        }
+        putLocal(cached.id, cached);
+
+        StringRedisTemplate redis = redisTemplate();
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.opsForValue().set(KEY_PREFIX + cached.id, objectMapper.writeValueAsString(cached),
+                    Duration.ofSeconds(redisTtlSeconds));
+        } catch (JsonProcessingException | RuntimeException e) {
+            redisErrors.increment();
+            // log.warn("No se pudo guardar el evento {} en Redis: {}", cached.id, e.getMessage());
+        }
+    }
+
+    private CachedEvent getLocal(Long eventId) {
+        synchronized (localCache) {
+            LocalEntry entry = localCache.get(eventId);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAtNanos <= System.nanoTime()) {
+                localCache.remove(eventId);
+                expirations.increment();
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    private void putLocal(Long eventId, CachedEvent cached) {
+        long expiresAt = System.nanoTime() + Duration.ofSeconds(localTtlSeconds).toNanos();
+        synchronized (localCache) {
+            localCache.put(eventId, new LocalEntry(cached, expiresAt));
+            Iterator<Long> eldest = localCache.keySet().iterator();
+            while (localCache.size() > maxSize && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                sizeEvictions.increment();
+            }
+        }
+    }
+
+    private void evictLocal(Long eventId) {
+        synchronized (localCache) {
+            localCache.remove(eventId);
+        }
+    }
+
+    private int localSize() {
+        synchronized (localCache) {
+            return localCache.size();
+        }
+    }
+
+    private CachedEvent getRemote(Long eventId) {
+        return getRemote(List.of(eventId)).get(0);
+    }
+
+    private List<CachedEvent> getRemote(List<Long> eventIds) {
+        List<CachedEvent> result = new ArrayList<>(eventIds.size());
+        StringRedisTemplate redis = redisTemplate();
+        List<String> values = null;
+        if (redis != null) {
+            try {
+                values = redis.opsForValue().multiGet(eventIds.stream().map(id -> KEY_PREFIX + id).toList());
+            } catch (RuntimeException e) {
+                redisErrors.increment();
+                // log.warn("No se pudo leer de Redis: {}", e.getMessage());
+            }
+        }
+        for (int i = 0; i < eventIds.size(); i++) {
+            String json = values != null && i < values.size() ? values.get(i) : null;
+            result.add(json == null ? null : deserialize(json));
+        }
+        return result;
+    }
+
+    private CachedEvent deserialize(String json) {
+        try {
+            return objectMapper.readValue(json, CachedEvent.class);
+        } catch (JsonProcessingException e) {
+            redisErrors.increment();
+            return null;
+        }
+    }
+
+    private StringRedisTemplate redisTemplate() {
+        return redisEnabled ? redisTemplateProvider.getIfAvailable() : null;
+    }
+
+    private record LocalEntry(CachedEvent value, long expiresAtNanos) {}
+
+    private record CatalogEntry(List<Long> eventIds, long generation, long expiresAtNanos) {}
+
+    /**
+     * Instantánea serializable de un evento. El organizador se conserva solo por ID,
+     * igual que un proxy perezoso fuera de su sesión.
+     */
+    static final class CachedEvent {
+        public Long id;
+        public String title;
+        public String description;
+        public LocalDateTime startDate;
+        public LocalDateTime endDate;
+        public String location;
+        public String venueAddress;
+        public Integer capacity;
+        public Integer availableTickets;
+        public BigDecimal price;
+        public EventStatus status;
+        public EventCategory category;
+        public String imageUrl;
+        public Boolean isPublic;
+        public Boolean requiresApproval;
+        public Integer maxTicketsPerUser;
+        public LocalDateTime bookingDeadline;
+        public LocalDateTime cancellationDeadline;
+        public LocalDateTime createdAt;
+        public LocalDateTime updatedAt;
+        public String tags;
+        public String contactEmail;
+        public String contactPhone;
+        public Long version;
+        public Long organizerId;
+
+        static CachedEvent from(Event event) {
+            CachedEvent cached = new CachedEvent();
+            cached.id = event.getId();
+            cached.title = event.getTitle();
+            cached.description = event.getDescription();
+            cached.startDate = event.getStartDate();
+            cached.endDate = event.getEndDate();
+            cached.location = event.getLocation();
+            cached.venueAddress = event.getVenueAddress();
+            cached.capacity = event.getCapacity();
+            cached.availableTickets = event.getAvailableTickets();
+            cached.price = event.getPrice();
+            cached.status = event.getStatus();
+            cached.category = event.getCategory();
+            cached.imageUrl = event.getImageUrl();
+            cached.isPublic = event.getIsPublic();
+            cached.requiresApproval = event.getRequiresApproval();
+            cached.maxTicketsPerUser = event.getMaxTicketsPerUser();
+            cached.bookingDeadline = event.getBookingDeadline();
+            cached.cancellationDeadline = event.getCancellationDeadline();
+            cached.createdAt = event.getCreatedAt();
+            cached.updatedAt = event.getUpdatedAt();
+            cached.tags = event.getTags();
+            cached.contactEmail = event.getContactEmail();
+            cached.contactPhone = event.getContactPhone();
+            cached.version = event.getVersion();
+            cached.organizerId = event.getOrganizer() != null ? event.getOrganizer().getId() : null;
+            return cached;
+        }
+
+        Event toEvent() {
+            Event event = new Event();
+            event.setId(id);
+            event.setTitle(title);
+            event.setDescription(description);
+            event.setStartDate(startDate);
+            event.setEndDate(endDate);
+            event.setLocation(location);
+            event.setVenueAddress(venueAddress);
+            event.setCapacity(capacity);
+            event.setAvailableTickets(availableTickets);
+            event.setPrice(price);
+            event.setStatus(status);
+            event.setCategory(category);
+            event.setImageUrl(imageUrl);
+            event.setIsPublic(isPublic);
+            event.setRequiresApproval(requiresApproval);
+            event.setMaxTicketsPerUser(maxTicketsPerUser);
+            event.setBookingDeadline(bookingDeadline);
+            event.setCancellationDeadline(cancellationDeadline);
+            event.setCreatedAt(createdAt);
+            event.setUpdatedAt(updatedAt);
+            event.setTags(tags);
+            event.setContactEmail(contactEmail);
+            event.setContactPhone(contactPhone);
+            event.setVersion(version);
+            if (organizerId != null) {
+                User organizer = new User();
+                organizer.setId(organizerId);
+                event.setOrganizer(organizer);
+            }
+            return event;
+        }
+    }
+}
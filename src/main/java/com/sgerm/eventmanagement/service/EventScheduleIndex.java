@@ -0,0 +1,396 @@
+package com.sgerm.eventmanagement.service;
+
+import com.sgerm.eventmanagement.model.Event;
+import com.sgerm.eventmanagement.model.EventStatus;
+import com.sgerm.eventmanagement.repository.EventRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Índice en memoria de los intervalos [inicio, fin] de los eventos no finalizados.
+ *
+ * Usa un treap ordenado por fecha de inicio y aumentado con el fin máximo de cada
+ * subárbol, lo que permite consultas de solapamiento y de "empieza en la ventana"
+ * en O(log n + k).
+ *
+ * Solo sirve consultas de lectura (próximos eventos, calendario); los procesos
+ * programados consultan la base de datos. Cada nodo tiene su propio índice: los
+ * cambios se publican por Redis pub/sub y el resto de nodos recargan el intervalo
+ * desde la base de datos. Si un mensaje se pierde, la recarga periódica lo corrige.
+ * Los cambios aplicados mientras una recarga consulta la base de datos se anotan y se
+ * vuelven a aplicar sobre el índice recargado, para que la consulta no los pise.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventScheduleIndex {
+
+    public static final String INVALIDATION_CHANNEL = "sgerm:index:schedule";
+
+    private final EventRepository eventRepository;
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+
+    @Value("${sgerm.cache.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Interval> intervals = new HashMap<>();
+    private Node root;
+    // Cambios aplicados durante una recarga (null si no hay ninguna en curso)
+    private Map<Long, Interval> changedDuringLoad;
+
+    /**
+     * Se suscribe a los cambios publicados por otros nodos si Redis está habilitado
+     */
+    @PostConstruct
+    void subscribeToChanges() {
+        RedisMessageListenerContainer container = listenerContainerProvider.getIfAvailable();
+        if (redisEnabled && container != null) {
+            container.addMessageListener(
+                    (message, pattern) -> onRemoteChange(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(INVALIDATION_CHANNEL));
+        }
+    }
+
+    /**
+     * Eventos que se solapan con [from, to], ordenados por fecha de inicio
+     */
+    public List<Long> findOverlapping(LocalDateTime from, LocalDateTime to, Predicate<EventStatus> statusFilter) {
+        long fromSeconds = toSeconds(from);
+        long toSeconds = toSeconds(to);
+        List<Long> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            collectOverlapping(root, fromSeconds, toSeconds, statusFilter, result);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Eventos que comienzan dentro de [from, to], ordenados por fecha de inicio
+     */
+    public List<Long> findStartingWithin(LocalDateTime from, LocalDateTime to, Predicate<EventStatus> statusFilter) {
+        long fromSeconds = toSeconds(from);
+        long toSeconds = toSeconds(to);
+        List<Long> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            collectStartingWithin(root, fromSeconds, toSeconds, statusFilter, result);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Actualiza el intervalo de un evento tras crearlo, reprogramarlo o cambiar
+     * su estado. Los eventos finalizados salen del índice.
+     */
+    public void onEventChanged(Event event) {
+        Long eventId = event.getId();
+        Interval next = event.getStatus().isFinalized() ? null : Interval.from(event);
+        afterCommit(() -> {
+            if (eventId != null) {
+                apply(eventId, next);
+                publishChange(eventId);
+            }
+        });
+    }
+
+    /**
+     * Quita un evento del índice
+     */
+    public void removeEvent(Long eventId) {
+        afterCommit(() -> {
+            apply(eventId, null);
+            publishChange(eventId);
+        });
+    }
+
+    /**
+     * Número de eventos indexados
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return intervals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Carga los eventos no finalizados al arrancar
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void loadIndex() {
+        setChangedDuringLoad(new HashMap<>());
+        List<Object[]> rows;
+        try {
+            rows = eventRepository.findNonFinalizedEventSchedules();
+        } catch (RuntimeException e) {
+            setChangedDuringLoad(null);
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            root = null;
+            intervals.clear();
+            for (Object[] row : rows) {
+                insertLocked(Interval.from(row));
+            }
+            // Los cambios confirmados durante la consulta pueden faltar en 'rows' o ser más recientes
+            Map<Long, Interval> changed = changedDuringLoad;
+            changedDuringLoad = null;
+            changed.forEach(this::apply);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // log.info("Índice de calendario cargado con {} eventos", rows.size());
+    }
+
+    /**
+     * Reconstruye periódicamente el índice por si se perdió algún cambio de otro nodo
+     */
+    @Scheduled(initialDelayString = "${sgerm.events.schedule-index.reload-interval-ms:900000}",
+               fixedDelayString = "${sgerm.events.schedule-index.reload-interval-ms:900000}")
+    @Transactional(readOnly = true)
+    public void reloadIndex() {
+        loadIndex();
+    }
+
+    private void publishChange(Long eventId) {
+        StringRedisTemplate redis = redisEnabled ? redisTemplateProvider.getIfAvailable() : null;
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.convertAndSend(INVALIDATION_CHANNEL, eventId.toString());
+        } catch (RuntimeException e) {
+            // log.warn("No se pudo publicar el cambio de calendario del evento {}: {}", eventId, e.getMessage());
+        }
+    }
+
+    /**
+     * Recarga desde la base de datos el intervalo de un evento modificado en otro nodo.
+     * El nodo que publica también recibe el mensaje; recargar es idempotente.
+     */
+    private void onRemoteChange(String body) {
+        try {
+            Long eventId = Long.valueOf(body);
+            List<Object[]> rows = eventRepository.findNonFinalizedEventScheduleById(eventId);
+            apply(eventId, rows.isEmpty() ? null : Interval.from(rows.get(0)));
+        } catch (RuntimeException e) {
+            // log.warn("No se pudo aplicar el cambio de calendario {}: {}", body, e.getMessage());
+        }
+    }
+
+    private void setChangedDuringLoad(Map<Long, Interval> changed) {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Long eventId, Interval next) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.put(eventId, next);
+            }
+            Interval previous = intervals.remove(eventId);
+            if (previous != null) {
+                root = delete(root, previous);
+            }
+            if (next != null) {
+                insertLocked(next);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void insertLocked(Interval interval) {
+        intervals.put(interval.eventId(), interval);
+        Node[] parts = split(root, interval);
+        root = merge(merge(parts[0], new Node(interval)), parts[1]);
+    }
+
+    private static void collectOverlapping(Node node, long from, long to,
+                                           Predicate<EventStatus> statusFilter, List<Long> result) {
+        // Ningún intervalo del subárbol termina después de 'from'
+        if (node == null || node.maxEnd < from) {
+            return;
+        }
+        collectOverlapping(node.left, from, to, statusFilter, result);
+        if (node.interval.start() > to) {
+            return;
+        }
+        if (node.interval.end() >= from && statusFilter.test(node.interval.status())) {
+            result.add(node.interval.eventId());
+        }
+        collectOverlapping(node.right, from, to, statusFilter, result);
+    }
+
+    private static void collectStartingWithin(Node node, long from, long to,
+                                              Predicate<EventStatus> statusFilter, List<Long> result) {
+        if (node == null) {
+            return;
+        }
+        long start = node.interval.start();
+        if (start >= from) {
+            collectStartingWithin(node.left, from, to, statusFilter, result);
+        }
+        if (start >= from && start <= to && statusFilter.test(node.interval.status())) {
+            result.add(node.interval.eventId());
+        }
+        if (start <= to) {
+            collectStartingWithin(node.right, from, to, statusFilter, result);
+        }
+    }
+
+    /**
+     * Divide el treap en claves menores que 'key' y claves mayores o iguales
+     */
+    private static Node[] split(Node node, Interval key) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (compare(node.interval, key) < 0) {
+            Node[] parts = split(node.right, key);
+            node.right = parts[0];
+            node.update();
+            return new Node[] {node, parts[1]};
+        }
+        Node[] parts = split(node.left, key);
+        node.left = parts[1];
+        node.update();
+        return new Node[] {parts[0], node};
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node delete(Node node, Interval key) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(key, node.interval);
+        if (comparison == 0) {
+            return merge(node.left, node.right);
+        }
+        if (comparison < 0) {
+            node.left = delete(node.left, key);
+        } else {
+            node.right = delete(node.right, key);
+        }
+        node.update();
+        return node;
+    }
+
+    private static int compare(Interval a, Interval b) {
+        int byStart = Long.compare(a.start(), b.start());
+        return byStart != 0 ? byStart : Long.compare(a.eventId(), b.eventId());
+    }
+
+    private static long toSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Interval(Long eventId, long start, long end, EventStatus status) {
+
+        static Interval from(Event event) {
+            return new Interval(event.getId(), toSeconds(event.getStartDate()),
+                    toSeconds(event.getEndDate()), event.getStatus());
+        }
+
+        /**
+         * Crea el intervalo a partir de una fila (id, inicio, fin, estado)
+         */
+        static Interval from(Object[] row) {
+            return new Interval((Long) row[0], toSeconds((LocalDateTime) row[1]),
+                    toSeconds((LocalDateTime) row[2]), (EventStatus) row[3]);
+        }
+    }
+
+    private static final class Node {
+        private final Interval interval;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Node left;
+        private Node right;
+        private long maxEnd;
+
+        private Node(Interval interval) {
+            this.interval = interval;
+            this.maxEnd = interval.end();
+        }
+
+        private void update() {
+            maxEnd = interval.end();
+            if (left != null && left.maxEnd > maxEnd) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > maxEnd) {
+                maxEnd = right.maxEnd;
+            }
+        }
+    }
+}
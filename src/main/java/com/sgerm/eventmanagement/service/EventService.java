@@ -1,19 +1,27 @@
 package com.sgerm.eventmanagement.service;
 
+import com.sgerm.eventmanagement.dto.VersionStamp;
 import com.sgerm.eventmanagement.model.*;
 import com.sgerm.eventmanagement.repository.EventRepository;
 import com.sgerm.eventmanagement.repository.BookingRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -28,7 +36,20 @@ public class EventService {
     private final EventRepository eventRepository;
     private final BookingRepository bookingRepository;
     private final NotificationService notificationService;
-    private final EmailService emailService;
+    private final TrendingService trendingService;
+    private final EventCacheService eventCacheService;
+    private final TagService tagService;
+    private final SuggestionService suggestionService;
+    private final EventScheduleIndex scheduleIndex;
+    private final RecommendationService recommendationService;
+    private final RequestCoalescer requestCoalescer;
+    
+    @Value("${sgerm.coalescing.availability-ttl-ms:100}")
+    private long availabilityTtlMillis;
+    
+    private static final long CATALOG_VERSION_TTL_NANOS = 1_000_000_000L;
+    private static final int MAX_LIST_LIMIT = 50;
+    private volatile CatalogVersion catalogVersion;
     
     /**
      * Crea un nuevo evento
@@ -60,7 +81,9 @@ public class EventService {
             event.setRequiresApproval(false);
         }
         
+        tagService.syncEventTags(event);
         Event savedEvent = eventRepository.save(event);
+        scheduleIndex.onEventChanged(savedEvent);
         
         // log.info("Evento creado exitosamente con ID: {}", savedEvent.getId());
         return savedEvent;
@@ -72,7 +95,7 @@ public class EventService {
     public Event updateEvent(Long eventId, Event eventUpdates, User user) {
         // log.info("Actualizando evento ID: {} por usuario: {}", eventId, user.getUsername());
         
-        Event existingEvent = getEventById(eventId);
+        Event existingEvent = loadEvent(eventId);
         
         // Verificar permisos
         validateEventPermissions(existingEvent, user);
@@ -104,6 +127,7 @@ public class EventService {
         existingEvent.setBookingDeadline(eventUpdates.getBookingDeadline());
         existingEvent.setCancellationDeadline(eventUpdates.getCancellationDeadline());
         existingEvent.setTags(eventUpdates.getTags());
+        tagService.syncEventTags(existingEvent);
         existingEvent.setContactEmail(eventUpdates.getContactEmail());
         existingEvent.setContactPhone(eventUpdates.getContactPhone());
         existingEvent.setUpdatedAt(LocalDateTime.now());
@@ -114,6 +138,10 @@ public class EventService {
         }
         
         Event updatedEvent = eventRepository.save(existingEvent);
+        eventCacheService.invalidate(eventId);
+        trendingService.onEventChanged(updatedEvent);
+        suggestionService.onEventChanged(updatedEvent);
+        scheduleIndex.onEventChanged(updatedEvent);
         
         // Notificar cambios a usuarios con reservas si hay cambios importantes
         if (StringUtils.hasText(changes)) {
@@ -124,13 +152,38 @@ public class EventService {
         return updatedEvent;
     }
     
+    /**
+     * Comprueba que el usuario puede modificar el evento (organizador o administrador)
+     */
+    @Transactional(readOnly = true)
+    public void checkEventPermissions(Long eventId, User user) {
+        validateEventPermissions(loadEvent(eventId), user);
+    }
+    
+    /**
+     * Cambia la imagen de un evento
+     */
+    public Event updateEventImage(Long eventId, String imageUrl, User user) {
+        Event event = loadEvent(eventId);
+        
+        // Verificar permisos
+        validateEventPermissions(event, user);
+        
+        event.setImageUrl(imageUrl);
+        event.setUpdatedAt(LocalDateTime.now());
+        
+        Event updatedEvent = eventRepository.save(event);
+        eventCacheService.invalidate(eventId);
+        return updatedEvent;
+    }
+    
     /**
      * Cambia el estado de un evento
      */
     public Event changeEventStatus(Long eventId, EventStatus newStatus, User user) {
         // log.info("Cambiando estado de evento ID: {} a {} por usuario: {}", eventId, newStatus, user.getUsername());
         
-        Event event = getEventById(eventId);
+        Event event = loadEvent(eventId);
         
         // Verificar permisos
         validateEventPermissions(event, user);
@@ -146,9 +199,13 @@ public class EventService {
         event.setUpdatedAt(LocalDateTime.now());
         
         Event updatedEvent = eventRepository.save(event);
+        eventCacheService.invalidate(eventId);
         
         // Manejar acciones específicas según el nuevo estado
         handleStatusChange(updatedEvent, oldStatus, newStatus);
+        trendingService.onEventChanged(updatedEvent);
+        suggestionService.onEventChanged(updatedEvent);
+        scheduleIndex.onEventChanged(updatedEvent);
         
         // log.info("Estado de evento cambiado exitosamente de {} a {}", oldStatus, newStatus);
         return updatedEvent;
@@ -176,14 +233,79 @@ public class EventService {
     }
     
     /**
-     * Obtiene un evento por ID
+     * Obtiene un evento por ID. Puede servirse desde la caché, por lo que
+     * no debe usarse para modificar el evento.
      */
     @Transactional(readOnly = true)
     public Event getEventById(Long eventId) {
-        return eventRepository.findById(eventId)
+        return eventCacheService.getEvent(eventId, eventRepository::findById)
                 .orElseThrow(() -> new IllegalArgumentException("Evento no encontrado con ID: " + eventId));
     }
     
+    /**
+     * Indica si cualquier usuario puede ver el evento: público y activo (publicado o
+     * agotado), el mismo criterio que los listados públicos
+     */
+    public boolean isPubliclyVisible(Event event) {
+        return Boolean.TRUE.equals(event.getIsPublic()) && event.getStatus() != null && event.getStatus().isActive();
+    }
+    
+    /**
+     * Indica si el usuario puede ver el evento: es visible para todos, o es su
+     * organizador o un administrador
+     */
+    public boolean isVisibleTo(Event event, User user) {
+        return isPubliclyVisible(event) || (user != null && canManageEvent(event, user));
+    }
+    
+    /**
+     * Obtiene varios eventos por ID conservando el orden recibido
+     */
+    @Transactional(readOnly = true)
+    public List<Event> getEventsByIds(List<Long> eventIds) {
+        return findEventsInOrder(eventIds);
+    }
+    
+    /**
+     * Obtiene la versión del evento servido. Se calcula sobre la misma copia que se
+     * devuelve (posiblemente de caché) para que el ETag corresponda siempre al cuerpo.
+     */
+    public VersionStamp getEventVersion(Event event) {
+        Long version = event.getVersion() != null ? event.getVersion() : 0L;
+        return new VersionStamp("e" + event.getId() + "v" + version, event.getUpdatedAt());
+    }
+    
+    /**
+     * Obtiene la versión del catálogo completo. Se recalcula como mucho una vez por
+     * segundo o cuando la caché de eventos registra una invalidación.
+     */
+    @Transactional(readOnly = true)
+    public VersionStamp getCatalogVersion() {
+        long generation = eventCacheService.getCatalogGeneration();
+        CatalogVersion current = catalogVersion;
+        if (current != null && current.generation == generation && current.expiresAtNanos > System.nanoTime()) {
+            return current.stamp;
+        }
+        Object[] row = eventRepository.getCatalogVersion().get(0);
+        VersionStamp stamp = new VersionStamp("c" + row[0] + "v" + row[1], (LocalDateTime) row[2]);
+        catalogVersion = new CatalogVersion(stamp, generation, System.nanoTime() + CATALOG_VERSION_TTL_NANOS);
+        return stamp;
+    }
+    
+    /**
+     * Firma del ranking de tendencias en memoria; cambia cuando cambia el orden
+     */
+    public int getRankingSignature() {
+        return trendingService.getTopEventIds(trendingService.getCapacity()).hashCode();
+    }
+    
+    /**
+     * Registra la visita al detalle de un evento
+     */
+    public void recordView(Event event) {
+        trendingService.recordView(event);
+    }
+    
     /**
      * Obtiene eventos públicos con paginación
      */
@@ -205,7 +327,9 @@ public class EventService {
      */
     @Transactional(readOnly = true)
     public List<Event> getEventsByCategory(EventCategory category) {
-        return eventRepository.findByCategory(category);
+        List<Long> eventIds = eventCacheService.getCatalog("category:" + category,
+                () -> eventRepository.findByCategory(category).stream().map(Event::getId).toList());
+        return findEventsInOrder(eventIds);
     }
     
     /**
@@ -239,7 +363,18 @@ public class EventService {
     public List<Event> getUpcomingEvents(int days) {
         LocalDateTime startDate = LocalDateTime.now();
         LocalDateTime endDate = startDate.plusDays(days);
-        return eventRepository.findUpcomingEvents(startDate, endDate);
+        return findEventsInOrder(scheduleIndex.findStartingWithin(startDate, endDate, EventStatus.PUBLISHED::equals));
+    }
+    
+    /**
+     * Obtiene los eventos visibles que se solapan con un rango (vista de calendario)
+     */
+    @Transactional(readOnly = true)
+    public List<Event> getCalendarEvents(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("El rango de fechas no es válido");
+        }
+        return findEventsInOrder(scheduleIndex.findOverlapping(from, to, EventStatus::isActive));
     }
     
     /**
@@ -247,7 +382,81 @@ public class EventService {
      */
     @Transactional(readOnly = true)
     public List<Event> getPopularEvents(Pageable pageable) {
-        return eventRepository.findPopularEvents(pageable);
+        long end = pageable.getOffset() + pageable.getPageSize();
+        
+        // Páginas fuera del top-K en memoria: se recurre a la consulta agregada
+        if (end > trendingService.getCapacity()) {
+            return eventRepository.findPopularEvents(pageable);
+        }
+        
+        List<Long> trendingIds = trendingService.getTopEventIds((int) end);
+        List<Event> ranked = findEventsInOrder(trendingIds);
+        
+        // Completar con eventos recientes si aún no hay actividad suficiente
+        if (ranked.size() < end) {
+            List<Event> recent = eventRepository.findRecentEvents(PageRequest.of(0, (int) end));
+            for (Event event : recent) {
+                if (ranked.size() >= end) {
+                    break;
+                }
+                if (!trendingIds.contains(event.getId())) {
+                    ranked.add(event);
+                }
+            }
+        }
+        
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        return ranked.subList(from, ranked.size());
+    }
+    
+    /**
+     * Obtiene eventos en tendencia, globales o por categoría
+     */
+    @Transactional(readOnly = true)
+    public List<Event> getTrendingEvents(EventCategory category, int limit) {
+        List<Long> trendingIds = category == null
+                ? trendingService.getTopEventIds(limit)
+                : trendingService.getTopEventIds(category, limit);
+        return findEventsInOrder(trendingIds);
+    }
+    
+    /**
+     * Obtiene eventos similares a uno dado según las co-reservas
+     */
+    @Transactional(readOnly = true)
+    public List<Event> getSimilarEvents(Long eventId, int limit) {
+        validateListLimit(limit);
+        return findBookableEvents(recommendationService.getSimilarEventIds(eventId, limit * 2), limit);
+    }
+    
+    /**
+     * Obtiene recomendaciones personalizadas para un usuario
+     */
+    @Transactional(readOnly = true)
+    public List<Event> getRecommendedEvents(User user, int limit) {
+        validateListLimit(limit);
+        return findBookableEvents(recommendationService.getRecommendedEventIds(user.getId(), limit * 2), limit);
+    }
+    
+    /**
+     * Busca eventos publicados por tags: con todos ellos (matchAll) o con alguno.
+     * El índice incluye eventos en cualquier estado, así que los candidatos se cargan
+     * por bloques hasta completar el límite.
+     */
+    @Transactional(readOnly = true)
+    public List<Event> getEventsByTags(List<String> tags, boolean matchAll, int limit) {
+        validateListLimit(limit);
+        List<Long> candidates = tagService.findEventIds(tags, matchAll, Integer.MAX_VALUE);
+        List<Event> events = new ArrayList<>(Math.min(limit, candidates.size()));
+        int chunkSize = Math.max(limit * 2, 50);
+        for (int from = 0; from < candidates.size() && events.size() < limit; from += chunkSize) {
+            for (Event event : findEventsInOrder(candidates.subList(from, Math.min(from + chunkSize, candidates.size())))) {
+                if (event.getStatus() == EventStatus.PUBLISHED && events.size() < limit) {
+                    events.add(event);
+                }
+            }
+        }
+        return events;
     }
     
     /**
@@ -255,7 +464,10 @@ public class EventService {
      */
     @Transactional(readOnly = true)
     public List<Event> getRecentEvents(Pageable pageable) {
-        return eventRepository.findRecentEvents(pageable);
+        List<Long> eventIds = eventCacheService.getCatalog(
+                "recent:" + pageable.getPageNumber() + ":" + pageable.getPageSize(),
+                () -> eventRepository.findRecentEvents(pageable).stream().map(Event::getId).toList());
+        return findEventsInOrder(eventIds);
     }
     
     /**
@@ -282,12 +494,27 @@ public class EventService {
     }
     
     /**
-     * Verifica disponibilidad de tickets
+     * Verifica disponibilidad de tickets para mostrarla. El valor puede llegar con hasta
+     * availability-ttl-ms de retraso; para reservar se usa reserveTickets.
      */
     @Transactional(readOnly = true)
     public boolean hasAvailableTickets(Long eventId, int requestedTickets) {
-        Event event = getEventById(eventId);
-        return event.getAvailableTickets() >= requestedTickets;
+        // Las consultas simultáneas del mismo evento comparten una sola lectura
+        Integer availableTickets = requestCoalescer.execute("availability:" + eventId, availabilityTtlMillis,
+                () -> loadEvent(eventId).getAvailableTickets());
+        return availableTickets >= requestedTickets;
+    }
+    
+    /**
+     * Descuenta entradas con un UPDATE condicional sobre la fila del evento. La fila queda
+     * bloqueada hasta el fin de la transacción, así que dos reservas simultáneas no pueden
+     * vender las mismas entradas.
+     */
+    public void reserveTickets(Long eventId, int requestedTickets) {
+        if (eventRepository.decrementAvailableTickets(eventId, requestedTickets) == 0) {
+            throw new IllegalStateException("No hay suficientes tickets disponibles");
+        }
+        afterCommit(() -> requestCoalescer.forget("availability:" + eventId));
     }
     
     /**
@@ -297,7 +524,10 @@ public class EventService {
         int soldTickets = bookingRepository.sumTicketsSoldByEvent(event);
         int availableTickets = Math.max(0, event.getCapacity() - soldTickets);
         
-        eventRepository.updateAvailableTickets(event.getId(), availableTickets);
+        eventRepository.updateAvailableTickets(event.getId(), availableTickets, LocalDateTime.now());
+        // Antes del commit otra lectura volvería a compartir el valor anterior
+        afterCommit(() -> requestCoalescer.forget("availability:" + event.getId()));
+        eventCacheService.invalidate(event.getId());
         
         // Verificar si el evento se agotó
         if (availableTickets == 0 && event.getStatus() == EventStatus.PUBLISHED) {
@@ -335,7 +565,7 @@ public class EventService {
     public void deleteEvent(Long eventId, User user) {
         // log.info("Eliminando evento ID: {} por usuario: {}", eventId, user.getUsername());
         
-        Event event = getEventById(eventId);
+        Event event = loadEvent(eventId);
         
         // Verificar permisos
         validateEventPermissions(event, user);
@@ -348,12 +578,18 @@ public class EventService {
         }
         
         eventRepository.delete(event);
+        eventCacheService.invalidate(eventId);
+        trendingService.removeEvent(eventId);
+        tagService.removeEvent(eventId);
+        suggestionService.removeEvent(eventId);
+        scheduleIndex.removeEvent(eventId);
         
         // log.info("Evento eliminado exitosamente: {}", eventId);
     }
     
     /**
-     * Procesa eventos que necesitan recordatorios
+     * Procesa eventos que necesitan recordatorios. Los procesos programados consultan
+     * la base de datos y no el índice en memoria, que puede ir por detrás en cada nodo.
      */
     @Transactional(readOnly = true)
     public List<Event> getEventsNeedingReminders() {
@@ -371,6 +607,51 @@ public class EventService {
         return eventRepository.findExpiredEvents(cutoffDate);
     }
     
+    /**
+     * Carga un evento directamente de la base de datos, sin pasar por la caché
+     */
+    private Event loadEvent(Long eventId) {
+        return eventRepository.findById(eventId)
+                .orElseThrow(() -> new IllegalArgumentException("Evento no encontrado con ID: " + eventId));
+    }
+    
+    /**
+     * Carga eventos en orden y se queda con los que aún admiten reservas
+     */
+    private List<Event> findBookableEvents(List<Long> eventIds, int limit) {
+        return findEventsInOrder(eventIds).stream()
+                .filter(event -> event.getStatus().isBookable() && !event.hasStarted())
+                .limit(limit)
+                .toList();
+    }
+    
+    /**
+     * Carga eventos por ID conservando el orden recibido
+     */
+    private List<Event> findEventsInOrder(List<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Event> eventsById = eventCacheService.getEvents(eventIds, eventRepository::findAllById);
+        List<Event> ordered = new ArrayList<>(eventIds.size());
+        for (Long eventId : eventIds) {
+            Event event = eventsById.get(eventId);
+            if (event != null) {
+                ordered.add(event);
+            }
+        }
+        return ordered;
+    }
+    
+    /**
+     * Valida el número de resultados pedido en los listados calculados en memoria
+     */
+    private void validateListLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIST_LIMIT) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAX_LIST_LIMIT);
+        }
+    }
+    
     /**
      * Valida los datos del evento
      */
@@ -412,13 +693,16 @@ public class EventService {
      * Valida permisos sobre un evento
      */
     private void validateEventPermissions(Event event, User user) {
-        // if (!user.getRole().hasPermission("MANAGE_EVENTS") && 
-        if (false && // Temporal - implementar método hasPermission
-            !event.getOrganizer().getId().equals(user.getId())) {
+        if (!canManageEvent(event, user)) {
             throw new IllegalArgumentException("No tienes permisos para modificar este evento");
         }
     }
     
+    private boolean canManageEvent(Event event, User user) {
+        return user.getRole().isAdmin()
+                || (event.getOrganizer() != null && event.getOrganizer().getId().equals(user.getId()));
+    }
+    
     /**
      * Detecta cambios importantes en un evento
      */
@@ -469,28 +753,31 @@ public class EventService {
      * Notifica cambios en evento a usuarios con reservas
      */
     private void notifyEventChanges(Event event, String changes) {
-        // List<Booking> activeBookings = bookingRepository.findActiveBookingsByEvent(event);
-        List<Booking> activeBookings = List.of(); // Temporal - implementar método
-        
-        for (Booking booking : activeBookings) {
-            notificationService.sendEventUpdateNotification(event, booking.getUser(), changes);
-            emailService.sendEventUpdateEmail(event, booking.getUser(), changes);
-        }
+        notificationService.fanOutEventUpdate(event, changes);
     }
     
     /**
      * Cancela todas las reservas activas de un evento
      */
     private void cancelAllActiveBookings(Event event, String reason) {
-        // List<Booking> activeBookings = bookingRepository.findActiveBookingsByEvent(event);
-        List<Booking> activeBookings = List.of(); // Temporal - implementar método
+        // Aquí se llamaría al BookingService para cancelar las reservas
+        // bookingService.cancelEventBookings(event.getId(), reason);
         
-        for (Booking booking : activeBookings) {
-            // Aquí se llamaría al BookingService para cancelar la reserva
-            // bookingService.cancelBooking(booking.getId(), reason);
-            
-            notificationService.sendEventCancellationNotification(event, booking.getUser());
-            emailService.sendEventCancellationEmail(event, booking.getUser());
+        notificationService.fanOutEventCancellation(event);
+    }
+    
+    private record CatalogVersion(VersionStamp stamp, long generation, long expiresAtNanos) {}
+    
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
     }
-}
\ No newline at end of file
+}
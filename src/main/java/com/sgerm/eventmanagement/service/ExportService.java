@@ -0,0 +1,327 @@
+package com.sgerm.eventmanagement.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sgerm.eventmanagement.model.BookingStatus;
+import com.sgerm.eventmanagement.model.EventStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * Exportaciones masivas en streaming (NDJSON o CSV).
+ *
+ * Las filas se leen con un cursor JDBC de solo avance y tamaño de fetch fijo y se
+ * escriben directamente en la respuesta, sin cargar entidades ni listas en memoria.
+ * Si el cliente lee despacio, la escritura se bloquea y el cursor deja de avanzar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportService {
+
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
+    private static final String USERS_SQL =
+            "SELECT id, username, email, first_name, last_name, phone_number, role, is_active, " +
+            "email_verified, created_at, last_login FROM users WHERE is_active = ? ORDER BY id";
+
+    private static final String BOOKINGS_SQL =
+            "SELECT id, booking_code, status, ticket_quantity, total_price, booking_date, payment_date, " +
+            "cancellation_date, check_in_date, payment_method, user_id, event_id " +
+            "FROM bookings WHERE status = ? ORDER BY id";
+
+    private static final String EVENTS_SQL =
+            "SELECT id, title, category, status, start_date, end_date, location, capacity, " +
+            "available_tickets, price, is_public, organizer_id, created_at " +
+            "FROM events WHERE status = ? ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${sgerm.export.fetch-size:500}")
+    private int fetchSize;
+
+    /**
+     * Formatos de exportación soportados
+     */
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() { return mediaType; }
+        public String getExtension() { return extension; }
+
+        public static Format from(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Formato de exportación no soportado: " + value);
+        }
+    }
+
+    /**
+     * Exporta los usuarios activos o inactivos
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(boolean active, Format format, OutputStream out) {
+        return export(USERS_SQL, active, format, out);
+    }
+
+    /**
+     * Exporta las reservas con un estado
+     */
+    @Transactional(readOnly = true)
+    public long exportBookings(BookingStatus status, Format format, OutputStream out) {
+        return export(BOOKINGS_SQL, status.name(), format, out);
+    }
+
+    /**
+     * Exporta los eventos con un estado
+     */
+    @Transactional(readOnly = true)
+    public long exportEvents(EventStatus status, Format format, OutputStream out) {
+        return export(EVENTS_SQL, status.name(), format, out);
+    }
+
+    /**
+     * Ejecuta la consulta dentro de la transacción actual (necesaria para que
+     * PostgreSQL use un cursor en lugar de traer todo el resultado). La cabecera se
+     * escribe a partir de los metadatos antes de recorrer las filas, así que una
+     * exportación vacía también la lleva.
+     */
+    private long export(String sql, Object parameter, Format format, OutputStream out) {
+        long rows;
+        try (RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out)) {
+            rows = jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setObject(1, parameter);
+                return statement;
+            }, (ResultSetExtractor<Long>) resultSet -> {
+                writer.start(resultSet.getMetaData());
+                long count = 0;
+                while (resultSet.next()) {
+                    writer.write(resultSet);
+                    // Vacía el búfer por bloques para que el cliente reciba datos de forma continua
+                    if (++count % fetchSize == 0) {
+                        writer.flush();
+                    }
+                }
+                return count;
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // log.info("Exportación completada: {} filas", rows);
+        return rows;
+    }
+
+    private static Object columnValue(ResultSet resultSet, int column) throws SQLException {
+        Object value = resultSet.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        return value;
+    }
+
+    private static String columnLabel(ResultSetMetaData metaData, int column) throws SQLException {
+        return metaData.getColumnLabel(column).toLowerCase();
+    }
+
+    private interface RowWriter extends AutoCloseable {
+
+        void start(ResultSetMetaData metaData) throws SQLException;
+
+        void write(ResultSet resultSet) throws SQLException;
+
+        void flush();
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Un objeto JSON por línea
+     */
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private String[] labels = new String[0];
+
+        private NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            this.generator.setRootValueSeparator(null);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void start(ResultSetMetaData metaData) throws SQLException {
+            labels = new String[metaData.getColumnCount()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = columnLabel(metaData, i + 1);
+            }
+        }
+
+        @Override
+        public void write(ResultSet resultSet) throws SQLException {
+            try {
+                generator.writeStartObject();
+                for (int i = 0; i < labels.length; i++) {
+                    generator.writeFieldName(labels[i]);
+                    Object value = columnValue(resultSet, i + 1);
+                    if (value == null) {
+                        generator.writeNull();
+                    } else if (value instanceof Number || value instanceof Boolean) {
+                        generator.writeObject(value);
+                    } else {
+                        generator.writeString(value.toString());
+                    }
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void flush() {
+            try {
+                generator.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    /**
+     * CSV con cabecera (RFC 4180)
+     */
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private boolean[] textColumns = new boolean[0];
+
+        private CsvRowWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        }
+
+        @Override
+        public void start(ResultSetMetaData metaData) throws SQLException {
+            textColumns = new boolean[metaData.getColumnCount()];
+            try {
+                for (int i = 1; i <= textColumns.length; i++) {
+                    textColumns[i - 1] = isText(metaData.getColumnType(i));
+                    if (i > 1) {
+                        writer.write(',');
+                    }
+                    writer.write(columnLabel(metaData, i));
+                }
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void write(ResultSet resultSet) throws SQLException {
+            try {
+                for (int i = 1; i <= textColumns.length; i++) {
+                    if (i > 1) {
+                        writer.write(',');
+                    }
+                    Object value = columnValue(resultSet, i);
+                    if (value != null) {
+                        // Solo los textos pueden venir del usuario; un importe negativo no es una fórmula
+                        String text = value.toString();
+                        writer.write(escape(textColumns[i - 1] ? neutralizeFormula(text) : text));
+                    }
+                }
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void flush() {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Solo se vacía: el flujo de la respuesta lo cierra el contenedor
+            writer.flush();
+        }
+
+        private static boolean isText(int sqlType) {
+            return switch (sqlType) {
+                case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR,
+                     Types.LONGNVARCHAR, Types.CLOB, Types.NCLOB -> true;
+                default -> false;
+            };
+        }
+
+        /**
+         * Antepone un apóstrofo a los textos que una hoja de cálculo interpretaría
+         * como fórmula (=, +, -, @, tabulador o retorno de carro al inicio)
+         */
+        private static String neutralizeFormula(String value) {
+            if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+                return "'" + value;
+            }
+            return value;
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.sgerm.eventmanagement.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ingesta de imágenes con almacenamiento direccionado por contenido.
+ *
+ * La subida se copia a disco por streaming mientras se calcula su SHA-256, y el fichero
+ * final se nombra con ese hash, de modo que dos subidas iguales comparten fichero. Las
+ * miniaturas de anchos fijos se generan en un pool acotado, una tarea por imagen;
+ * mientras no existan se sirve la imagen original.
+ *
+ * Cada imagen decodificada puede ocupar hasta max-pixels * 4 bytes, así que el número
+ * de decodificaciones simultáneas se limita con un semáforo (también cuando la tarea
+ * la ejecuta el hilo de la petición porque la cola está llena).
+ *
+ * Una subida que reutiliza un fichero existente actualiza su fecha de modificación.
+ * Así, si la operación que creó el fichero falla, discard sabe que otra subida lo
+ * referencia y no lo borra.
+ */
+@Service
+@Slf4j
+public class ImageService {
+
+    private static final String IMAGES_DIR = "images";
+    private static final Pattern ORIGINAL = Pattern.compile("images/([0-9a-f]{2})/([0-9a-f]{64})\\.(jpg|png|gif)");
+    private static final Pattern CONTENT_ADDRESSED =
+            Pattern.compile("images/[0-9a-f]{2}/[0-9a-f]{64}(-w\\d+)?\\.(jpg|png|gif)");
+
+    @Value("${sgerm.files.upload-dir:uploads/}")
+    private String uploadDir;
+
+    @Value("#{'${sgerm.images.widths:160,320,640,1280}'.split(',')}")
+    private List<Integer> widths;
+
+    @Value("${sgerm.images.threads:2}")
+    private int threads;
+
+    @Value("${sgerm.images.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${sgerm.images.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${sgerm.images.max-concurrent-decodes:2}")
+    private int maxConcurrentDecodes;
+
+    private Path uploadRoot;
+    private ThreadPoolExecutor executor;
+    private Semaphore decodePermits;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final Object[] fileLocks = new Object[64];
+
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder variantsGenerated = new LongAdder();
+    private final LongAdder variantFailures = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        uploadRoot = Paths.get(uploadDir).toAbsolutePath().normalize();
+        widths = widths.stream().sorted().toList();
+        decodePermits = new Semaphore(maxConcurrentDecodes);
+        for (int i = 0; i < fileLocks.length; i++) {
+            fileLocks[i] = new Object();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        // Con la cola llena el hilo que encola genera la variante: contrapresión sin descartar trabajo
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Imagen guardada: su URL pública, si esta subida creó el fichero (false si ya
+     * existía) y la fecha de modificación del fichero al guardarla
+     */
+    public record StoredImage(String url, boolean created, long modifiedMillis) {
+    }
+
+    /**
+     * Guarda una imagen subida y encola sus miniaturas
+     */
+    public StoredImage store(MultipartFile upload) throws IOException {
+        if (upload == null || upload.isEmpty()) {
+            throw new IllegalArgumentException("Debe adjuntar una imagen");
+        }
+
+        Path tmpDir = Files.createDirectories(uploadRoot.resolve(IMAGES_DIR).resolve("tmp"));
+        Path temp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(upload.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String format = detectFormat(temp);
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = uploadRoot.resolve(IMAGES_DIR).resolve(hash.substring(0, 2)).resolve(hash + "." + format);
+
+            boolean created = false;
+            long modifiedMillis;
+            synchronized (lockFor(hash)) {
+                if (Files.exists(target)) {
+                    deduplicated.increment();
+                    touch(target);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                        stored.increment();
+                        created = true;
+                    } catch (FileAlreadyExistsException e) {
+                        deduplicated.increment();
+                        touch(target);
+                    }
+                }
+                modifiedMillis = Files.getLastModifiedTime(target).toMillis();
+            }
+            scheduleVariants(target, hash, format);
+            return new StoredImage("/assets/" + uploadRoot.relativize(target).toString().replace('\\', '/'),
+                    created, modifiedMillis);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Elimina una imagen recién guardada (y sus variantes) cuando la operación que la
+     * usaba falla. Si la subida reutilizó un fichero existente, o si otra subida lo ha
+     * reutilizado después (su fecha de modificación cambió), no se toca: puede estar
+     * referenciado por otra entidad.
+     */
+    public void discard(StoredImage image) {
+        if (!image.created()) {
+            return;
+        }
+        Matcher matcher = ORIGINAL.matcher(image.url().substring("/assets/".length()));
+        if (!matcher.matches()) {
+            return;
+        }
+        Path original = uploadRoot.resolve(matcher.group());
+        try {
+            synchronized (lockFor(matcher.group(2))) {
+                if (!Files.exists(original) || Files.getLastModifiedTime(original).toMillis() != image.modifiedMillis()) {
+                    return;
+                }
+                Files.delete(original);
+            }
+            for (int width : widths) {
+                Files.deleteIfExists(uploadRoot.resolve(variantPath(matcher.group(1), matcher.group(2), width, matcher.group(3))));
+            }
+        } catch (IOException e) {
+            // log.warn("No se pudo eliminar la imagen descartada {}: {}", image.url(), e.getMessage());
+        }
+    }
+
+    /**
+     * Ruta relativa de la variante más pequeña con al menos el ancho pedido, o la
+     * original si no es una imagen propia o la variante aún no existe
+     */
+    public String resolveVariant(String relativePath, int requestedWidth) {
+        Matcher matcher = ORIGINAL.matcher(relativePath);
+        if (!matcher.matches()) {
+            return relativePath;
+        }
+        for (int width : widths) {
+            if (width >= requestedWidth) {
+                String variant = variantPath(matcher.group(1), matcher.group(2), width, matcher.group(3));
+                return Files.isRegularFile(uploadRoot.resolve(variant)) ? variant : relativePath;
+            }
+        }
+        return relativePath;
+    }
+
+    /**
+     * Indica si la ruta es de un fichero direccionado por contenido (nunca cambia)
+     */
+    public boolean isImmutable(String relativePath) {
+        return CONTENT_ADDRESSED.matcher(relativePath).matches();
+    }
+
+    /**
+     * Obtiene las métricas de la ingesta de imágenes
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stored", stored.sum());
+        stats.put("deduplicated", deduplicated.sum());
+        stats.put("variantsGenerated", variantsGenerated.sum());
+        stats.put("variantFailures", variantFailures.sum());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("availableDecodePermits", decodePermits.availablePermits());
+        return stats;
+    }
+
+    /**
+     * Marca un fichero existente como reutilizado: su fecha de modificación avanza al
+     * menos un milisegundo aunque dos subidas coincidan en el tiempo
+     */
+    private static void touch(Path file) throws IOException {
+        long previous = Files.getLastModifiedTime(file).toMillis();
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Math.max(System.currentTimeMillis(), previous + 1)));
+    }
+
+    private Object lockFor(String hash) {
+        return fileLocks[Math.floorMod(hash.hashCode(), fileLocks.length)];
+    }
+
+    /**
+     * Encola una única tarea que genera todas las variantes pendientes de una imagen
+     */
+    private void scheduleVariants(Path original, String hash, String format) {
+        List<Integer> pending = widths.stream()
+                .filter(width -> !Files.exists(uploadRoot.resolve(variantPath(hash.substring(0, 2), hash, width, format))))
+                .toList();
+        // Una subida repetida mientras se generan las variantes no las vuelve a encolar
+        if (pending.isEmpty() || !inFlight.add(hash)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                generateVariants(original, hash, format, pending);
+            } finally {
+                inFlight.remove(hash);
+            }
+        });
+    }
+
+    /**
+     * Decodifica la original y genera las variantes de mayor a menor, cada una a partir
+     * de la anterior: la original se libera tras la primera reducción y solo se retiene
+     * la última variante.
+     */
+    private void generateVariants(Path original, String hash, String format, List<Integer> pending) {
+        try {
+            decodePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            BufferedImage current;
+            try {
+                current = ImageIO.read(original.toFile());
+            } catch (IOException e) {
+                variantFailures.increment();
+                // log.warn("No se pudo leer la imagen {}: {}", original, e.getMessage());
+                return;
+            }
+            if (current == null) {
+                return;
+            }
+            boolean opaque = "jpg".equals(format);
+            for (int i = pending.size() - 1; i >= 0; i--) {
+                int width = pending.get(i);
+                // Las variantes mayores que la original no aportan nada: se sirve la original
+                if (width >= current.getWidth()) {
+                    continue;
+                }
+                try {
+                    current = scale(current, width, opaque);
+                } catch (RuntimeException e) {
+                    variantFailures.increment();
+                    // log.warn("No se pudo reducir {} a {}: {}", hash, width, e.getMessage());
+                    return;
+                }
+                writeVariant(current, hash, width, format);
+            }
+        } finally {
+            decodePermits.release();
+        }
+    }
+
+    private void writeVariant(BufferedImage scaled, String hash, int width, String format) {
+        Path target = uploadRoot.resolve(variantPath(hash.substring(0, 2), hash, width, format));
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(target.getParent(), hash + "-", ".part");
+            ImageIO.write(scaled, variantFormat(format), temp.toFile());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            variantsGenerated.increment();
+        } catch (IOException | RuntimeException e) {
+            variantFailures.increment();
+            // log.warn("No se pudo generar la variante {} de {}: {}", width, hash, e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    // log.warn("No se pudo eliminar el fichero temporal {}: {}", temp, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reduce a la mitad sucesivamente y hace el último paso al ancho exacto,
+     * con mejor calidad que un único escalado bilineal
+     */
+    private static BufferedImage scale(BufferedImage source, int targetWidth, boolean opaque) {
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        int targetHeight = Math.max(1, Math.round((float) source.getHeight() * targetWidth / source.getWidth()));
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = width == targetWidth ? targetHeight : Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth);
+        return current;
+    }
+
+    /**
+     * Identifica el formato por la cabecera del fichero y comprueba las dimensiones
+     * antes de decodificarlo (protege frente a imágenes de millones de píxeles)
+     */
+    private String detectFormat(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("El fichero no es una imagen válida");
+            }
+            ImageReader reader = readers.next();
+            try {
+                String format = switch (reader.getFormatName().toLowerCase()) {
+                    case "jpeg", "jpg" -> "jpg";
+                    case "png" -> "png";
+                    case "gif" -> "gif";
+                    default -> throw new IllegalArgumentException("Formato de imagen no soportado");
+                };
+                reader.setInput(input);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    throw new IllegalArgumentException("La imagen tiene demasiados píxeles");
+                }
+                return format;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static String variantPath(String prefix, String hash, int width, String format) {
+        return IMAGES_DIR + "/" + prefix + "/" + hash + "-w" + width + "." + variantFormat(format);
+    }
+
+    /**
+     * Las variantes de GIF se guardan como PNG (sin animación)
+     */
+    private static String variantFormat(String format) {
+        return "gif".equals(format) ? "png" : format;
+    }
+}
@@ -0,0 +1,28 @@
+package com.sgerm.eventmanagement.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Canal push en memoria para un único nodo (desarrollo y pruebas sin Redis)
+ */
+@Service
+@ConditionalOnProperty(name = "sgerm.cache.redis.enabled", havingValue = "false", matchIfMissing = true)
+public class LocalPushBroker implements PushBroker {
+
+    private final List<Consumer<Message>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Message message) {
+        listeners.forEach(listener -> listener.accept(message));
+    }
+
+    @Override
+    public void subscribe(Consumer<Message> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,419 @@
+package com.sgerm.eventmanagement.service;
+
+import com.sgerm.eventmanagement.dto.NotificationSummary;
+import com.sgerm.eventmanagement.model.DeliveryStatus;
+import com.sgerm.eventmanagement.model.Notification;
+import com.sgerm.eventmanagement.model.NotificationPriority;
+import com.sgerm.eventmanagement.model.NotificationType;
+import com.sgerm.eventmanagement.repository.NotificationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Entrega de notificaciones por email y push con reintentos según su prioridad.
+ *
+ * Cada notificación guarda sus intentos y la fecha del próximo intento. Si algún canal
+ * falla, el siguiente intento se programa con espera exponencial a partir del intervalo
+ * de su prioridad; al superar el máximo de reintentos pasa a DEAD_LETTER y deja de
+ * intentarse. Solo se reenvían los canales que faltan. Una tarea periódica carga las
+ * notificaciones que vencen antes del siguiente ciclo (por índice) en una DelayQueue
+ * ordenada por vencimiento y prioridad; un hilo toma las que vencen y las intenta en el
+ * carril de su prioridad (DispatchLaneService.laneFor), así que los reintentos de una
+ * campaña LOW no retrasan los de un aviso urgente.
+ * Cada intento se reserva en la base de datos antes de enviarse, así que dos nodos
+ * nunca reintentan la misma notificación a la vez.
+ *
+ * El primer intento sigue el mismo camino: la notificación se crea pendiente (próximo
+ * intento inmediato) y se encola al confirmarse la transacción que la crea, así que el
+ * SMTP nunca se ejecuta dentro de esa transacción. Si el nodo cae antes, la recoge la
+ * tarea periódica.
+ *
+ * Los canales se eligen con las preferencias del destinatario: los que no quiere se dan
+ * por resueltos sin enviarse (ver Notification.skipEmail) y, si queda alguno por enviar
+ * y está en sus horas de silencio, la entrega se aplaza hasta que terminan sin contar
+ * como intento.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDeliveryService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final NotificationRepository notificationRepository;
+    private final EmailService emailService;
+    private final PushService pushService;
+    private final NotificationPreferenceService notificationPreferenceService;
+    private final PlatformTransactionManager transactionManager;
+    private final DispatchLaneService dispatchLaneService;
+
+    @Value("${sgerm.notifications.retry.poll-interval-ms:30000}")
+    private long pollIntervalMs;
+
+    @Value("${sgerm.notifications.retry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${sgerm.notifications.retry.max-queued:5000}")
+    private int maxQueued;
+
+    @Value("${sgerm.notifications.retry.max-backoff-minutes:1440}")
+    private long maxBackoffMinutes;
+
+    private final DelayQueue<RetryTask> queue = new DelayQueue<>();
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private ExecutorService poller;
+    private TransactionTemplate transactionTemplate;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retriesScheduled = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder loaded = new LongAdder();
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder claimConflicts = new LongAdder();
+    private final LongAdder emailsSkipped = new LongAdder();
+    private final LongAdder pushSkipped = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder laneRejections = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        poller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.execute(this::drain);
+    }
+
+    @PreDestroy
+    void stop() {
+        poller.shutdownNow();
+    }
+
+    /**
+     * Programa la entrega de una notificación recién guardada en la transacción en curso:
+     * queda pendiente en la base de datos y se encola en cuanto se confirma
+     */
+    public void scheduleDelivery(Notification notification) {
+        // Sin fracciones por debajo del milisegundo, para que la reserva compare igual con lo guardado
+        LocalDateTime dueAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        notification.setNextAttemptAt(dueAt);
+        afterCommit(() -> {
+            if (queued.size() < maxQueued && queued.add(notification.getId())) {
+                queue.offer(new RetryTask(notification.getId(), dueAt, notification.getPriority()));
+                scheduled.increment();
+            }
+        });
+    }
+
+    /**
+     * Intenta entregar los canales pendientes de una notificación gestionada por la
+     * transacción en curso y registra el resultado: entregada, reintento programado o
+     * fallida definitivamente. Devuelve true si todos los canales quedaron enviados.
+     */
+    private boolean deliver(Notification notification) {
+        NotificationType type = notification.getType();
+        NotificationPriority priority = notification.getPriority();
+        NotificationPreferenceService.Routing routing =
+                notificationPreferenceService.getRouting(notification.getRecipient().getId());
+
+        // Primero los canales que no quiere, como en el envío masivo: si no queda ninguno
+        // no hay nada que aplazar y la notificación queda entregada
+        if (!notification.getEmailSent() && !routing.allowsEmail(type, priority)) {
+            notification.skipEmail();
+            emailsSkipped.increment();
+        }
+        if (!notification.getPushSent() && !routing.allowsPush(type, priority)) {
+            notification.skipPush();
+            pushSkipped.increment();
+        }
+
+        if (!notification.getEmailSent() || !notification.getPushSent()) {
+            LocalDateTime deferUntil = routing.deferUntil(type, priority, LocalDateTime.now());
+            if (deferUntil != null) {
+                notification.setNextAttemptAt(deferUntil);
+                deferred.increment();
+                return false;
+            }
+        }
+
+        attempts.increment();
+        StringBuilder errors = new StringBuilder();
+
+        if (!notification.getEmailSent()) {
+            try {
+                emailService.deliverSimpleEmail(notification.getRecipient().getEmail(),
+                        emailSubject(notification), emailText(notification));
+                notification.markEmailSent();
+            } catch (RuntimeException e) {
+                errors.append("email: ").append(e.getMessage()).append("; ");
+            }
+        }
+
+        if (!notification.getPushSent()) {
+            try {
+                pushService.pushToUser(notification.getRecipient().getId(), PushService.NOTIFICATION_EVENT,
+                        NotificationSummary.from(notification));
+                notification.markPushSent();
+            } catch (RuntimeException e) {
+                errors.append("push: ").append(e.getMessage()).append("; ");
+            }
+        }
+
+        recordOutcome(notification, errors.length() == 0 ? null : errors.toString());
+        return errors.length() == 0;
+    }
+
+    /**
+     * Carga en la cola de retardo las notificaciones que vencen antes del siguiente
+     * ciclo. Las que ya están en la cola no se duplican.
+     */
+    @Scheduled(fixedDelayString = "${sgerm.notifications.retry.poll-interval-ms:30000}")
+    public void loadDueDeliveries() {
+        int capacity = maxQueued - queued.size();
+        if (capacity <= 0) {
+            return;
+        }
+        LocalDateTime horizon = LocalDateTime.now().plus(Duration.ofMillis(pollIntervalMs));
+        List<Object[]> due = notificationRepository.findDueForDelivery(horizon,
+                PageRequest.of(0, Math.min(batchSize, capacity)));
+        for (Object[] row : due) {
+            Long id = (Long) row[0];
+            if (queued.add(id)) {
+                queue.offer(new RetryTask(id, (LocalDateTime) row[1], (NotificationPriority) row[2]));
+                loaded.increment();
+            }
+        }
+    }
+
+    /**
+     * Obtiene las notificaciones que agotaron sus reintentos, de la más reciente a la más antigua
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getDeadLetters(Pageable pageable) {
+        return notificationRepository.findByDeliveryStatusOrderByUpdatedAtDesc(DeliveryStatus.DEAD_LETTER, pageable)
+                .map(this::toDeadLetterMap)
+                .getContent();
+    }
+
+    /**
+     * Devuelve una notificación fallida a la cola de reintentos; se intenta en el siguiente ciclo
+     */
+    @Transactional
+    public void requeueDeadLetter(Long notificationId) {
+        if (notificationRepository.requeueDeadLetter(notificationId, LocalDateTime.now()) == 0) {
+            throw new IllegalArgumentException("La notificación no está entre las entregas fallidas");
+        }
+    }
+
+    /**
+     * Obtiene las métricas de entrega y reintentos de este nodo
+     */
+    public Map<String, Object> getStats() {
+        RetryTask next = queue.peek();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queued.size());
+        stats.put("nextDueInMs", next != null ? Math.max(0, next.getDelay(TimeUnit.MILLISECONDS)) : null);
+        stats.put("scheduled", scheduled.sum());
+        stats.put("loaded", loaded.sum());
+        stats.put("attempts", attempts.sum());
+        stats.put("delivered", delivered.sum());
+        stats.put("retriesScheduled", retriesScheduled.sum());
+        stats.put("deadLettered", deadLettered.sum());
+        stats.put("claimConflicts", claimConflicts.sum());
+        stats.put("emailsSkipped", emailsSkipped.sum());
+        stats.put("pushSkipped", pushSkipped.sum());
+        stats.put("deferred", deferred.sum());
+        stats.put("laneRejections", laneRejections.sum());
+        return stats;
+    }
+
+    /**
+     * Bucle del hilo de reintentos: espera a que venza la siguiente notificación y la
+     * entrega al carril de su prioridad
+     */
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            RetryTask task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                dispatchLaneService.laneFor(task.priority).execute(() -> {
+                    try {
+                        retry(task);
+                    } catch (RuntimeException e) {
+                        // log.warn("Error reintentando la notificación {}: {}", task.notificationId, e.getMessage());
+                    } finally {
+                        queued.remove(task.notificationId);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Carril masivo lleno: sin reserva hecha, se vuelve a cargar en el siguiente ciclo
+                laneRejections.increment();
+                queued.remove(task.notificationId);
+            }
+        }
+    }
+
+    private void retry(RetryTask task) {
+        transactionTemplate.executeWithoutResult(status -> {
+            // La reserva falla si otro nodo ya tomó el intento o si la notificación se entregó entretanto
+            LocalDateTime lease = LocalDateTime.now().plusMinutes(task.priority.getRetryIntervalMinutes());
+            if (notificationRepository.claimDelivery(task.notificationId, task.dueAt, lease) == 0) {
+                claimConflicts.increment();
+                return;
+            }
+            notificationRepository.findById(task.notificationId).ifPresent(this::deliver);
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void recordOutcome(Notification notification, String error) {
+        int attempt = notification.getDeliveryAttempts() + 1;
+        notification.setDeliveryAttempts(attempt);
+
+        if (error == null) {
+            notification.setDeliveryStatus(DeliveryStatus.DELIVERED);
+            notification.setNextAttemptAt(null);
+            notification.setLastDeliveryError(null);
+            delivered.increment();
+            return;
+        }
+
+        notification.setLastDeliveryError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        NotificationPriority priority = notification.getPriority();
+        // El primer intento no cuenta como reintento
+        if (attempt > priority.getMaxRetries()) {
+            notification.setDeliveryStatus(DeliveryStatus.DEAD_LETTER);
+            notification.setNextAttemptAt(null);
+            deadLettered.increment();
+            // log.warn("Notificación {} sin entregar tras {} intentos: {}", notification.getId(), attempt, error);
+        } else {
+            notification.setDeliveryStatus(DeliveryStatus.RETRYING);
+            notification.setNextAttemptAt(LocalDateTime.now().plusMinutes(backoffMinutes(priority, attempt)));
+            retriesScheduled.increment();
+        }
+    }
+
+    /**
+     * Espera antes del siguiente intento: el intervalo de la prioridad, duplicado en
+     * cada intento fallido y limitado por max-backoff-minutes
+     */
+    private long backoffMinutes(NotificationPriority priority, int attempt) {
+        long minutes = (long) priority.getRetryIntervalMinutes() << Math.min(attempt - 1, 20);
+        return Math.min(minutes, maxBackoffMinutes);
+    }
+
+    private static String emailSubject(Notification notification) {
+        return notification.isDigest()
+                ? String.format("%s (%d novedades)", notification.getTitle(), notification.getDigestCount())
+                : notification.getTitle();
+    }
+
+    private static String emailText(Notification notification) {
+        return notification.isDigest()
+                ? String.format("Tienes %d novedades de este tipo. La más reciente:%n%n%s",
+                        notification.getDigestCount(), notification.getMessage())
+                : notification.getMessage();
+    }
+
+    private Map<String, Object> toDeadLetterMap(Notification notification) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", notification.getId());
+        map.put("recipientId", notification.getRecipient().getId());
+        map.put("type", notification.getType());
+        map.put("priority", notification.getPriority());
+        map.put("title", notification.getTitle());
+        map.put("emailSent", notification.getEmailSent());
+        map.put("emailSkipped", notification.isEmailSkipped());
+        map.put("pushSent", notification.getPushSent());
+        map.put("pushSkipped", notification.isPushSkipped());
+        map.put("digestCount", notification.getDigestCount());
+        map.put("attempts", notification.getDeliveryAttempts());
+        map.put("lastError", notification.getLastDeliveryError());
+        map.put("createdAt", notification.getCreatedAt());
+        map.put("updatedAt", notification.getUpdatedAt());
+        return map;
+    }
+
+    /**
+     * Intento pendiente en la cola de retardo: vence en 'dueAt' y, entre las que
+     * vencen en el mismo segundo, sale antes la de mayor prioridad
+     */
+    private static final class RetryTask implements Delayed {
+        private final Long notificationId;
+        private final LocalDateTime dueAt;
+        private final NotificationPriority priority;
+        private final long dueNanos;
+
+        private RetryTask(Long notificationId, LocalDateTime dueAt, NotificationPriority priority) {
+            this.notificationId = notificationId;
+            this.dueAt = dueAt;
+            this.priority = priority;
+            this.dueNanos = System.nanoTime() + Duration.between(LocalDateTime.now(), dueAt).toNanos();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            RetryTask that = (RetryTask) other;
+            int byDue = Long.compare(TimeUnit.NANOSECONDS.toSeconds(dueNanos),
+                    TimeUnit.NANOSECONDS.toSeconds(that.dueNanos));
+            if (byDue != 0) {
+                return byDue;
+            }
+            int byPriority = Integer.compare(that.priority.getLevel(), priority.getLevel());
+            return byPriority != 0 ? byPriority : Long.compare(dueNanos, that.dueNanos);
+        }
+    }
+}
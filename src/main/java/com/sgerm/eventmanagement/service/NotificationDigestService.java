@@ -0,0 +1,103 @@
+package com.sgerm.eventmanagement.service;
+
+import com.sgerm.eventmanagement.model.Notification;
+import com.sgerm.eventmanagement.model.NotificationType;
+import com.sgerm.eventmanagement.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Agrupación de notificaciones de baja prioridad en resúmenes.
+ *
+ * La primera notificación LOW o NORMAL de un tipo agrupable abre un resumen: se guarda
+ * con el fin de su ventana como próximo intento de entrega, de modo que el servicio de
+ * entrega la envía una sola vez al cerrarse la ventana. Las siguientes del mismo
+ * destinatario, tipo y evento dentro de la ventana se suman a esa fila en lugar de
+ * crear otra. Las de prioridad HIGH o superior no se agrupan nunca, ni las de los
+ * usuarios que desactivaron los resúmenes en sus preferencias.
+ *
+ * Solo pasan por aquí las notificaciones individuales. Los envíos masivos
+ * (NotificationFanoutService) insertan por lotes sin agrupar, así que los tipos que se
+ * envían en masa, como EVENT_UPDATE, no están entre los agrupables por defecto.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDigestService {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationPreferenceService notificationPreferenceService;
+
+    @Value("${sgerm.notifications.digest.window-minutes:15}")
+    private long windowMinutes;
+
+    @Value("${sgerm.notifications.digest.types:NEW_EVENT,PROMOTION,RESOURCE_UPDATE,FEEDBACK_REQUEST}")
+    private Set<NotificationType> types;
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder merged = new LongAdder();
+
+    /**
+     * Verifica si la notificación puede agruparse en un resumen
+     */
+    public boolean isDigestible(Notification notification) {
+        return windowMinutes > 0
+                && !notification.getPriority().isHighPriority()
+                && types.contains(notification.getType())
+                && notificationPreferenceService.getRouting(notification.getRecipient().getId()).isDigestEnabled();
+    }
+
+    /**
+     * Suma la notificación al resumen abierto de su destinatario, tipo y evento, si lo
+     * hay, y devuelve ese resumen. El resumen muestra el título y el mensaje de la más
+     * reciente; al entregarse, el email indica cuántas agrupa.
+     */
+    public Optional<Notification> mergeIntoOpenDigest(Notification notification) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<Notification> open = notificationRepository.findOpenDigest(notification.getRecipient(),
+                notification.getType(), notification.getRelatedEvent(), now);
+        if (open.isEmpty()) {
+            return Optional.empty();
+        }
+        String actionUrl = notification.getActionUrl() != null ? notification.getActionUrl() : open.get().getActionUrl();
+        // La actualización es condicional: si el resumen se entregó o se leyó tras buscarlo, se abre otro
+        if (notificationRepository.mergeIntoDigest(open.get().getId(), notification.getTitle(),
+                notification.getMessage(), actionUrl, now) == 0) {
+            return Optional.empty();
+        }
+        merged.increment();
+        return open;
+    }
+
+    /**
+     * Convierte una notificación nueva en un resumen abierto que se entregará al cerrarse su ventana
+     */
+    public void openDigest(Notification notification) {
+        LocalDateTime until = LocalDateTime.now().plusMinutes(windowMinutes);
+        notification.setDigestCount(1);
+        notification.setDigestUntil(until);
+        notification.setNextAttemptAt(until);
+        opened.increment();
+    }
+
+    /**
+     * Obtiene las métricas de agrupación: cada notificación agrupada es una fila y un email menos
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("windowMinutes", windowMinutes);
+        stats.put("types", types);
+        stats.put("digestsOpened", opened.sum());
+        stats.put("merged", merged.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,584 @@
+package com.sgerm.eventmanagement.service;
+
+import com.sgerm.eventmanagement.config.NodeIdentity;
+import com.sgerm.eventmanagement.model.BookingStatus;
+import com.sgerm.eventmanagement.model.Event;
+import com.sgerm.eventmanagement.model.Notification;
+import com.sgerm.eventmanagement.model.NotificationPriority;
+import com.sgerm.eventmanagement.model.NotificationType;
+import com.sgerm.eventmanagement.repository.BookingRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Envío masivo de notificaciones a todos los asistentes de un evento.
+ *
+ * Los destinatarios se leen por páginas de clave (id de usuario > último id) y cada
+ * página se inserta con un único lote JDBC en lugar de una entidad por usuario. Las
+ * filas de un trabajo se marcan con additional_data = 'fanout:<id>', lo que permite
+ * marcar el envío de email y push de todo un bloque con una sola actualización. Los
+ * trabajos esperan en una cola ordenada por prioridad y sus bloques se despachan en el
+ * carril de esa prioridad (DispatchLaneService.laneFor), así que una campaña LOW no
+ * retrasa un aviso urgente. Si el carril está lleno el productor despacha él mismo.
+ * El estado de los trabajos es local al nodo (ver NodeIdentity).
+ *
+ * Los canales de cada destinatario salen de su enrutado de preferencias, que se obtiene
+ * de la caché para todo el bloque a la vez. Los canales que no quiere se insertan ya
+ * resueltos y no se despachan; los que están en horas de silencio quedan con su
+ * próximo intento al final de estas y los entrega el servicio de reintentos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationFanoutService {
+
+    private static final String TAG_PREFIX = "fanout:";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (id, title, message, type, priority, recipient_id, related_event_id, " +
+            "is_read, action_url, expires_at, email_sent, push_sent, delivery_status, delivery_attempts, " +
+            "next_attempt_at, digest_count, additional_data, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, false, ?, ?, ?, ?, ?, 0, ?, 1, ?, ?, ?)";
+
+    // Al marcar el segundo canal la notificación queda entregada y sale de la cola de reintentos
+    private static final String MARK_EMAIL_SENT_SQL =
+            "UPDATE notifications SET email_sent = true, email_sent_at = :sentAt, updated_at = :sentAt, " +
+            "delivery_status = CASE WHEN push_sent THEN 'DELIVERED' ELSE delivery_status END, " +
+            "next_attempt_at = CASE WHEN push_sent THEN NULL ELSE next_attempt_at END " +
+            "WHERE additional_data = :tag AND recipient_id IN (:recipientIds)";
+
+    private static final String MARK_PUSH_SENT_SQL =
+            "UPDATE notifications SET push_sent = true, push_sent_at = :sentAt, updated_at = :sentAt, " +
+            "delivery_status = CASE WHEN email_sent THEN 'DELIVERED' ELSE delivery_status END, " +
+            "next_attempt_at = CASE WHEN email_sent THEN NULL ELSE next_attempt_at END " +
+            "WHERE additional_data = :tag AND recipient_id IN (:recipientIds)";
+
+    private final BookingRepository bookingRepository;
+    private final EmailService emailService;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManagerFactory entityManagerFactory;
+    private final UnreadCounterService unreadCounterService;
+    private final PushService pushService;
+    private final NotificationPreferenceService notificationPreferenceService;
+    private final DispatchLaneService dispatchLaneService;
+    private final NodeIdentity nodeIdentity;
+
+    @Value("${sgerm.notifications.fanout.threads:2}")
+    private int threads;
+
+    @Value("${sgerm.notifications.fanout.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${sgerm.notifications.fanout.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${sgerm.notifications.fanout.email-batch-size:50}")
+    private int emailBatchSize;
+
+    @Value("${sgerm.notifications.fanout.delivery-lease-minutes:15}")
+    private long deliveryLeaseMinutes;
+
+    @Value("${sgerm.notifications.fanout.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong jobSequence = new AtomicLong();
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate transactionTemplate;
+    private String nextIdSql;
+
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder emailsSent = new LongAdder();
+    private final LongAdder emailFailures = new LongAdder();
+    private final LongAdder pushSent = new LongAdder();
+    private final LongAdder emailsSkipped = new LongAdder();
+    private final LongAdder pushSkipped = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+
+    /**
+     * Estados de un trabajo de envío masivo
+     */
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * Contenido común de las notificaciones de un envío masivo
+     */
+    public record Template(String title, String message, NotificationType type,
+                           NotificationPriority priority, String actionUrl) {
+    }
+
+    /**
+     * Origen de los destinatarios: devuelve páginas de [id de usuario, email]
+     * ordenadas por id y con id mayor que 'afterId'
+     */
+    @FunctionalInterface
+    public interface RecipientQuery {
+        List<Object[]> nextPage(long afterId, int size);
+    }
+
+    @PostConstruct
+    void startExecutors() {
+        AtomicInteger counter = new AtomicInteger();
+        // La cola de trabajos sale por prioridad; su capacidad se comprueba en submit()
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "notification-fanout-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        nextIdSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                .getSequenceSupport().getSequenceNextValString(Notification.ID_SEQUENCE);
+    }
+
+    @PreDestroy
+    void stopExecutors() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Destinatarios con reservas del evento en los estados indicados
+     */
+    public RecipientQuery bookingRecipients(Event event, Collection<BookingStatus> statuses) {
+        Long eventId = event.getId();
+        return (afterId, size) -> bookingRepository.findRecipientPage(eventId, statuses, afterId, PageRequest.of(0, size));
+    }
+
+    /**
+     * Registra un envío masivo y lo encola al confirmarse la transacción en curso, si la hay
+     */
+    public Map<String, Object> startFanout(Event event, Template template, RecipientQuery recipients) {
+        Job job = new Job(nodeIdentity.newJobId(), event.getId(), template);
+        jobs.put(job.id, job);
+
+        // Si la transacción se deshace el trabajo se descarta sin enviar nada
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        submit(job, recipients);
+                    } else {
+                        jobs.remove(job.id);
+                    }
+                }
+            });
+        } else {
+            submit(job, recipients);
+        }
+        return job.toMap();
+    }
+
+    /**
+     * Obtiene el estado, el rendimiento y el retraso de un trabajo
+     */
+    public Map<String, Object> getJobStatus(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            nodeIdentity.requireLocal(jobId);
+            throw new IllegalArgumentException("Envío masivo no encontrado");
+        }
+        return job.toMap();
+    }
+
+    /**
+     * Lista los trabajos recientes, del más nuevo al más antiguo
+     */
+    public List<Map<String, Object>> getJobs(Long eventId) {
+        return jobs.values().stream()
+                .filter(job -> eventId == null || eventId.equals(job.eventId))
+                .sorted(Comparator.comparing((Job job) -> job.createdAt).reversed())
+                .map(Job::toMap)
+                .toList();
+    }
+
+    /**
+     * Métricas acumuladas del motor de envío masivo
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("jobs", jobs.size());
+        stats.put("runningJobs", jobs.values().stream().filter(job -> job.status == JobStatus.RUNNING).count());
+        stats.put("notificationsInserted", inserted.sum());
+        stats.put("emailsSent", emailsSent.sum());
+        stats.put("emailFailures", emailFailures.sum());
+        stats.put("pushSent", pushSent.sum());
+        stats.put("emailsSkipped", emailsSkipped.sum());
+        stats.put("pushSkipped", pushSkipped.sum());
+        stats.put("deferred", deferred.sum());
+        stats.put("queuedJobs", executor.getQueue().size());
+        return stats;
+    }
+
+    /**
+     * Elimina los trabajos terminados al cumplirse la retención
+     */
+    @Scheduled(fixedDelay = 300000)
+    public void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private void submit(Job job, RecipientQuery recipients) {
+        try {
+            if (executor.getQueue().size() >= queueCapacity) {
+                throw new RejectedExecutionException();
+            }
+            executor.execute(new JobTask(() -> runJob(job, recipients), job.template.priority().getLevel(),
+                    jobSequence.incrementAndGet()));
+        } catch (RejectedExecutionException e) {
+            // log.warn("Envío masivo {} del evento {} descartado: cola llena", job.id, job.eventId);
+            job.error = "Hay demasiados envíos masivos en curso";
+            job.fail();
+        }
+    }
+
+    private void runJob(Job job, RecipientQuery recipients) {
+        job.status = JobStatus.RUNNING;
+        job.startedNanos = System.nanoTime();
+        try {
+            long afterId = 0;
+            List<Object[]> page;
+            do {
+                page = recipients.nextPage(afterId, chunkSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+                List<Long> recipientIds = new ArrayList<>(page.size());
+                List<String> emails = new ArrayList<>(page.size());
+                for (Object[] recipient : page) {
+                    recipientIds.add((Long) recipient[0]);
+                    emails.add((String) recipient[1]);
+                }
+                afterId = recipientIds.get(recipientIds.size() - 1);
+
+                List<Route> routes = route(job.template, recipientIds);
+                insertChunk(job, recipientIds, routes);
+                unreadCounterService.incrementAll(recipientIds);
+                job.inserted.addAndGet(recipientIds.size());
+                job.chunks.incrementAndGet();
+                inserted.add(recipientIds.size());
+
+                List<Long> emailIds = new ArrayList<>(recipientIds.size());
+                List<String> emailAddresses = new ArrayList<>(recipientIds.size());
+                List<Long> pushIds = new ArrayList<>(recipientIds.size());
+                for (int i = 0; i < recipientIds.size(); i++) {
+                    Route route = routes.get(i);
+                    if (route.deferUntil() != null) {
+                        continue;
+                    }
+                    if (route.email()) {
+                        emailIds.add(recipientIds.get(i));
+                        emailAddresses.add(emails.get(i));
+                    }
+                    if (route.push()) {
+                        pushIds.add(recipientIds.get(i));
+                    }
+                }
+
+                long insertedAt = System.nanoTime();
+                if (!emailIds.isEmpty()) {
+                    dispatch(job, () -> dispatchEmail(job, emailIds, emailAddresses, insertedAt));
+                }
+                if (!pushIds.isEmpty()) {
+                    dispatch(job, () -> dispatchPush(job, pushIds, insertedAt));
+                }
+
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException("Envío masivo cancelado");
+                }
+            } while (page.size() == chunkSize);
+            job.insertNanos = System.nanoTime() - job.startedNanos;
+            job.taskDone();
+        } catch (RuntimeException e) {
+            // log.error("Error en el envío masivo {} del evento {}: {}", job.id, job.eventId, e.getMessage(), e);
+            job.error = "Error al generar las notificaciones";
+            job.fail();
+        }
+    }
+
+    /**
+     * Decide los canales de cada destinatario del bloque con su enrutado de preferencias
+     */
+    private List<Route> route(Template template, List<Long> recipientIds) {
+        Map<Long, NotificationPreferenceService.Routing> routings = notificationPreferenceService.getRoutings(recipientIds);
+        LocalDateTime now = LocalDateTime.now();
+        List<Route> routes = new ArrayList<>(recipientIds.size());
+        for (Long recipientId : recipientIds) {
+            NotificationPreferenceService.Routing routing = routings.get(recipientId);
+            boolean email = routing.allowsEmail(template.type(), template.priority());
+            boolean push = routing.allowsPush(template.type(), template.priority());
+            LocalDateTime deferUntil = email || push ? routing.deferUntil(template.type(), template.priority(), now) : null;
+            if (!email) emailsSkipped.increment();
+            if (!push) pushSkipped.increment();
+            if (deferUntil != null) deferred.increment();
+            routes.add(new Route(email, push, deferUntil));
+        }
+        return routes;
+    }
+
+    /**
+     * Inserta las notificaciones de un bloque en una transacción con un lote JDBC
+     */
+    private void insertChunk(Job job, List<Long> recipientIds, List<Route> routes) {
+        Template template = job.template;
+        long[] ids = allocateIds(recipientIds.size());
+        AtomicInteger next = new AtomicInteger();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp expiresAt = Timestamp.valueOf(LocalDateTime.now().plusHours(template.priority().getExpirationHours()));
+        // Si el despacho no llega a marcar los envíos, el reintento los recoge al vencer este plazo
+        Timestamp nextAttemptAt = Timestamp.valueOf(LocalDateTime.now().plusMinutes(deliveryLeaseMinutes));
+        String tag = job.tag();
+
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, recipientIds, recipientIds.size(), (ps, recipientId) -> {
+                    int index = next.getAndIncrement();
+                    Route route = routes.get(index);
+                    ps.setLong(1, ids[index]);
+                    ps.setString(2, template.title());
+                    ps.setString(3, template.message());
+                    ps.setString(4, template.type().name());
+                    ps.setString(5, template.priority().name());
+                    ps.setLong(6, recipientId);
+                    ps.setLong(7, job.eventId);
+                    ps.setString(8, template.actionUrl());
+                    ps.setTimestamp(9, expiresAt);
+                    // Un canal que el destinatario no quiere se inserta ya resuelto
+                    ps.setBoolean(10, !route.email());
+                    ps.setBoolean(11, !route.push());
+                    ps.setString(12, route.pending() ? "PENDING" : "DELIVERED");
+                    ps.setTimestamp(13, !route.pending() ? null
+                            : route.deferUntil() != null ? Timestamp.valueOf(route.deferUntil()) : nextAttemptAt);
+                    ps.setString(14, tag);
+                    ps.setTimestamp(15, now);
+                    ps.setTimestamp(16, now);
+                }));
+    }
+
+    /**
+     * Reserva IDs de la misma secuencia que usa Hibernate: cada valor es el inicio
+     * de un bloque de ID_ALLOCATION_SIZE IDs (pooled-lo), así que basta un valor por bloque
+     */
+    private long[] allocateIds(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i += Notification.ID_ALLOCATION_SIZE) {
+            Long low = jdbcTemplate.queryForObject(nextIdSql, Long.class);
+            for (int j = i; j < Math.min(count, i + Notification.ID_ALLOCATION_SIZE); j++) {
+                ids[j] = low + (j - i);
+            }
+        }
+        return ids;
+    }
+
+    private void dispatch(Job job, Runnable task) {
+        job.pendingTasks.incrementAndGet();
+        Runnable tracked = () -> {
+            try {
+                task.run();
+            } finally {
+                job.taskDone();
+            }
+        };
+        try {
+            dispatchLaneService.laneFor(job.template.priority()).execute(tracked);
+        } catch (RejectedExecutionException e) {
+            // El carril masivo rechaza al llenarse: contrapresión sobre el productor sin descartar el bloque
+            tracked.run();
+        }
+    }
+
+    /**
+     * Envía el email del bloque en mensajes de varios destinatarios y marca cada
+     * mensaje enviado. Los fallidos quedan sin marcar y el servicio de entrega los
+     * reintenta uno a uno cuando vence su próximo intento.
+     */
+    private void dispatchEmail(Job job, List<Long> recipientIds, List<String> emails, long insertedAt) {
+        for (int from = 0; from < emails.size(); from += emailBatchSize) {
+            int to = Math.min(emails.size(), from + emailBatchSize);
+            List<String> batch = emails.subList(from, to);
+            try {
+                emailService.sendSimpleBatchEmail(batch, job.template.title(), job.template.message());
+                markSent(MARK_EMAIL_SENT_SQL, job, recipientIds.subList(from, to));
+                job.emailsSent.addAndGet(batch.size());
+                emailsSent.add(batch.size());
+            } catch (RuntimeException e) {
+                job.emailFailures.addAndGet(batch.size());
+                emailFailures.add(batch.size());
+                // log.warn("Error enviando emails del envío masivo {}: {}", job.id, e.getMessage());
+            }
+        }
+        job.recordLag(insertedAt);
+    }
+
+    /**
+     * Envía el push del bloque con una única publicación para todos sus destinatarios
+     */
+    private void dispatchPush(Job job, List<Long> recipientIds, long insertedAt) {
+        Template template = job.template;
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("title", template.title());
+        payload.put("message", template.message());
+        payload.put("type", template.type());
+        payload.put("priority", template.priority());
+        payload.put("actionUrl", template.actionUrl());
+        payload.put("relatedEventId", job.eventId);
+        pushService.pushToUsers(recipientIds, PushService.NOTIFICATION_EVENT, payload);
+
+        markSent(MARK_PUSH_SENT_SQL, job, recipientIds);
+        job.pushSent.addAndGet(recipientIds.size());
+        pushSent.add(recipientIds.size());
+        job.recordLag(insertedAt);
+    }
+
+    private void markSent(String sql, Job job, List<Long> recipientIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("sentAt", Timestamp.valueOf(LocalDateTime.now()))
+                .addValue("tag", job.tag())
+                .addValue("recipientIds", recipientIds);
+        transactionTemplate.executeWithoutResult(status -> namedJdbcTemplate.update(sql, params));
+    }
+
+    /**
+     * Trabajo en la cola del productor: sale antes el de mayor prioridad y, a igualdad,
+     * el más antiguo
+     */
+    private record JobTask(Runnable action, int level, long sequence) implements Runnable, Comparable<JobTask> {
+        @Override
+        public void run() {
+            action.run();
+        }
+
+        @Override
+        public int compareTo(JobTask other) {
+            int byLevel = Integer.compare(other.level, level);
+            return byLevel != 0 ? byLevel : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Canales de un destinatario del envío masivo y, si está en horas de silencio, hasta cuándo se aplaza
+     */
+    private record Route(boolean email, boolean push, LocalDateTime deferUntil) {
+        boolean pending() {
+            return email || push;
+        }
+    }
+
+    private static final class Job {
+        private final String id;
+        private final Long eventId;
+        private final Template template;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        // El productor cuenta como una tarea: el trabajo termina cuando él y todos los despachos acaban
+        private final AtomicInteger pendingTasks = new AtomicInteger(1);
+        private final AtomicLong inserted = new AtomicLong();
+        private final AtomicLong chunks = new AtomicLong();
+        private final AtomicLong emailsSent = new AtomicLong();
+        private final AtomicLong emailFailures = new AtomicLong();
+        private final AtomicLong pushSent = new AtomicLong();
+        private final AtomicLong lastLagNanos = new AtomicLong();
+        private final AtomicLong maxLagNanos = new AtomicLong();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile long startedNanos;
+        private volatile long insertNanos;
+        private volatile long elapsedNanos;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private Job(String id, Long eventId, Template template) {
+            this.id = id;
+            this.eventId = eventId;
+            this.template = template;
+        }
+
+        private String tag() {
+            return TAG_PREFIX + id;
+        }
+
+        /**
+         * Retraso entre la inserción de un bloque y el fin de su despacho
+         */
+        private void recordLag(long insertedAt) {
+            long lag = System.nanoTime() - insertedAt;
+            lastLagNanos.set(lag);
+            maxLagNanos.accumulateAndGet(lag, Math::max);
+        }
+
+        private void taskDone() {
+            if (pendingTasks.decrementAndGet() == 0 && status == JobStatus.RUNNING) {
+                elapsedNanos = System.nanoTime() - startedNanos;
+                status = JobStatus.COMPLETED;
+                finishedAt = LocalDateTime.now();
+            }
+        }
+
+        private void fail() {
+            if (startedNanos != 0) {
+                elapsedNanos = System.nanoTime() - startedNanos;
+            }
+            status = JobStatus.FAILED;
+            finishedAt = LocalDateTime.now();
+        }
+
+        private Map<String, Object> toMap() {
+            long insertedCount = inserted.get();
+            long insertMillis = TimeUnit.NANOSECONDS.toMillis(insertNanos != 0 ? insertNanos
+                    : (startedNanos != 0 ? System.nanoTime() - startedNanos : 0));
+
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("id", id);
+            map.put("eventId", eventId);
+            map.put("type", template.type());
+            map.put("status", status);
+            map.put("inserted", insertedCount);
+            map.put("chunks", chunks.get());
+            map.put("emailsSent", emailsSent.get());
+            map.put("emailFailures", emailFailures.get());
+            map.put("pushSent", pushSent.get());
+            map.put("insertsPerSecond", insertMillis == 0 ? 0 : insertedCount * 1000 / insertMillis);
+            map.put("lastLagMs", TimeUnit.NANOSECONDS.toMillis(lastLagNanos.get()));
+            map.put("maxLagMs", TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get()));
+            map.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            map.put("createdAt", createdAt);
+            map.put("finishedAt", finishedAt);
+            map.put("error", error);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.sgerm.eventmanagement.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mantenimiento de las particiones mensuales de la tabla de notificaciones.
+ *
+ * Con la tabla particionada por created_at (db/004_notification_partitions.sql) cada
+ * mes es una tabla notifications_pAAAAMM. Esta tarea crea por adelantado las de los
+ * próximos meses y aplica la retención separando y borrando particiones completas, que
+ * es una operación de metadatos en lugar de un DELETE fila a fila. Es una retención por
+ * antigüedad: se borran todas las notificaciones del mes, leídas o no, y hasta entonces
+ * las expiradas se filtran en las consultas. Si la tabla no está particionada (otra base
+ * de datos o migración sin aplicar) no hace nada y la limpieza sigue borrando filas.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationPartitionService {
+
+    private static final String TABLE = "notifications";
+    private static final String PARTITION_PREFIX = TABLE + "_p";
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String IS_PARTITIONED_SQL =
+            "SELECT COUNT(*) FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid " +
+            "WHERE c.relname = ? AND pg_table_is_visible(c.oid)";
+
+    private static final String LIST_PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ? AND pg_table_is_visible(p.oid) " +
+            "ORDER BY c.relname";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${sgerm.notifications.partitions.premake-months:3}")
+    private int premakeMonths;
+
+    @Value("${sgerm.notifications.partitions.retention-months:12}")
+    private int retentionMonths;
+
+    private volatile Boolean partitioned;
+    private volatile LocalDateTime lastMaintenanceAt;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Verifica si la tabla de notificaciones está particionada. Se comprueba una vez:
+     * la migración requiere reiniciar la aplicación.
+     */
+    public boolean isPartitioned() {
+        if (partitioned == null) {
+            try {
+                Integer count = jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Integer.class, TABLE);
+                partitioned = count != null && count > 0;
+            } catch (DataAccessException e) {
+                // No es PostgreSQL
+                partitioned = false;
+            }
+        }
+        return partitioned;
+    }
+
+    /**
+     * Crea las particiones que falten al arrancar
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        runMaintenance();
+    }
+
+    /**
+     * Crea las particiones de los próximos meses y borra las que superan la retención
+     */
+    @Scheduled(cron = "${sgerm.notifications.partitions.maintenance-cron:0 15 3 * * *}")
+    public void runMaintenance() {
+        if (!isPartitioned()) {
+            return;
+        }
+        try {
+            createFuturePartitions();
+            dropPartitionsBefore(YearMonth.now().minusMonths(retentionMonths));
+            lastMaintenanceAt = LocalDateTime.now();
+        } catch (DataAccessException e) {
+            // log.warn("Error en el mantenimiento de particiones de notificaciones: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica la retención configurada. Devuelve cuántas particiones borró, o -1 si la
+     * tabla no está particionada.
+     */
+    public int applyRetention() {
+        return isPartitioned() ? dropPartitionsBefore(YearMonth.now().minusMonths(retentionMonths)) : -1;
+    }
+
+    /**
+     * Obtiene el estado de las particiones
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        boolean isPartitioned = isPartitioned();
+        stats.put("partitioned", isPartitioned);
+        stats.put("partitions", isPartitioned ? listPartitions() : List.of());
+        stats.put("premakeMonths", premakeMonths);
+        stats.put("retentionMonths", retentionMonths);
+        stats.put("created", created.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("lastMaintenanceAt", lastMaintenanceAt);
+        return stats;
+    }
+
+    private void createFuturePartitions() {
+        List<String> existing = listPartitions();
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = partitionName(month);
+            if (!existing.contains(name)) {
+                jdbcTemplate.execute(String.format(
+                        "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                        name, TABLE, month.atDay(1), month.plusMonths(1).atDay(1)));
+                created.increment();
+                // log.info("Creada la partición de notificaciones {}", name);
+            }
+        }
+    }
+
+    /**
+     * Separa y borra las particiones de los meses anteriores a 'oldestKept'. Separarla
+     * primero saca la partición del plan de las consultas antes de borrarla.
+     */
+    private int dropPartitionsBefore(YearMonth oldestKept) {
+        int count = 0;
+        for (String name : listPartitions()) {
+            YearMonth month = partitionMonth(name);
+            if (month == null || !month.isBefore(oldestKept)) {
+                continue;
+            }
+            jdbcTemplate.execute(String.format("ALTER TABLE %s DETACH PARTITION %s", TABLE, name));
+            jdbcTemplate.execute(String.format("DROP TABLE %s", name));
+            dropped.increment();
+            count++;
+            // log.info("Borrada la partición de notificaciones {}", name);
+        }
+        return count;
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class, TABLE);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX_FORMAT);
+    }
+
+    /**
+     * Mes de una partición según su nombre; nulo si no sigue la convención
+     */
+    private static YearMonth partitionMonth(String name) {
+        if (!name.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(name.substring(PARTITION_PREFIX.length()), SUFFIX_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.sgerm.eventmanagement.service;
+
+import com.sgerm.eventmanagement.model.NotificationPreference;
+import com.sgerm.eventmanagement.model.NotificationPriority;
+import com.sgerm.eventmanagement.model.NotificationType;
+import com.sgerm.eventmanagement.repository.NotificationPreferenceRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Preferencias de notificación de los usuarios y su tabla de enrutado compilada.
+ *
+ * Las preferencias de cada usuario se compilan en un Routing: dos máscaras de bits con
+ * un bit por tipo y canal (email en los bits 0-31, push en los 32-63), una para las
+ * prioridades normales y otra para las altas, más las horas de silencio en minutos. El
+ * envío masivo y la entrega deciden los canales con una operación de bits sobre el
+ * Routing cacheado, sin consultar la base de datos. La caché es local y acotada; al
+ * cambiar las preferencias se invalida en este nodo y, por Redis pub/sub, en el resto.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationPreferenceService {
+
+    public static final String INVALIDATION_CHANNEL = "sgerm:cache:notification-preferences";
+
+    private static final int PUSH_SHIFT = 32;
+
+    static {
+        if (NotificationType.values().length > PUSH_SHIFT) {
+            throw new IllegalStateException("Hay más tipos de notificación que bits por canal en el Routing");
+        }
+    }
+
+    /**
+     * Enrutado de los usuarios sin preferencias guardadas
+     */
+    public static final Routing DEFAULT_ROUTING = Routing.compile(null);
+
+    private final NotificationPreferenceRepository preferenceRepository;
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+
+    @Value("${sgerm.cache.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${sgerm.notifications.preferences.cache-size:50000}")
+    private int maxSize;
+
+    @Value("${sgerm.notifications.preferences.cache-ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<Long, CachedRouting> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private final AtomicLong invalidationSequence = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder localInvalidations = new LongAdder();
+    private final LongAdder remoteInvalidations = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+
+    /**
+     * Se suscribe al canal de invalidaciones si Redis está habilitado
+     */
+    @PostConstruct
+    void subscribeToInvalidations() {
+        RedisMessageListenerContainer container = listenerContainerProvider.getIfAvailable();
+        if (redisEnabled && container != null) {
+            container.addMessageListener(
+                    (message, pattern) -> onRemoteInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(INVALIDATION_CHANNEL));
+        }
+    }
+
+    /**
+     * Obtiene el enrutado de un usuario
+     */
+    public Routing getRouting(Long userId) {
+        return getRoutings(List.of(userId)).get(userId);
+    }
+
+    /**
+     * Obtiene el enrutado de varios usuarios; los que no están en caché se cargan con
+     * una sola consulta. Todos los IDs pedidos aparecen en el resultado.
+     */
+    public Map<Long, Routing> getRoutings(Collection<Long> userIds) {
+        Map<Long, Routing> result = new HashMap<>(userIds.size() * 2);
+        List<Long> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (cache) {
+            for (Long userId : userIds) {
+                CachedRouting entry = cache.get(userId);
+                if (entry != null && entry.expiresAtNanos > now) {
+                    result.put(userId, entry.routing);
+                } else {
+                    missing.add(userId);
+                }
+            }
+        }
+        hits.add(result.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        misses.add(missing.size());
+        long sequence = invalidationSequence.get();
+        Map<Long, Routing> loaded = new HashMap<>(missing.size() * 2);
+        for (NotificationPreference preference : preferenceRepository.findAllById(missing)) {
+            loaded.put(preference.getUserId(), Routing.compile(preference));
+        }
+        for (Long userId : missing) {
+            result.put(userId, loaded.getOrDefault(userId, DEFAULT_ROUTING));
+        }
+        store(missing, result, sequence);
+        return result;
+    }
+
+    /**
+     * Obtiene las preferencias de un usuario; si no tiene, las de por defecto
+     */
+    @Transactional(readOnly = true)
+    public NotificationPreference getPreferences(Long userId) {
+        return preferenceRepository.findById(userId).orElseGet(() -> new NotificationPreference(userId));
+    }
+
+    /**
+     * Guarda las preferencias de un usuario e invalida su enrutado en todos los nodos
+     */
+    @Transactional
+    public NotificationPreference updatePreferences(Long userId, NotificationPreference updates) {
+        Set<NotificationType> mutedEmail = copyOf(updates.getMutedEmailTypes());
+        Set<NotificationType> mutedPush = copyOf(updates.getMutedPushTypes());
+        if (mutedEmail.stream().anyMatch(NotificationType::isSecurityRelated)
+                || mutedPush.stream().anyMatch(NotificationType::isSecurityRelated)) {
+            throw new IllegalArgumentException("Las notificaciones de seguridad no se pueden silenciar");
+        }
+        if ((updates.getQuietHoursStart() == null) != (updates.getQuietHoursEnd() == null)) {
+            throw new IllegalArgumentException("Las horas de silencio necesitan inicio y fin");
+        }
+        if (updates.hasQuietHours() && updates.getQuietHoursStart().equals(updates.getQuietHoursEnd())) {
+            throw new IllegalArgumentException("El inicio y el fin de las horas de silencio no pueden coincidir");
+        }
+        if (updates.getTimeZone() != null) {
+            try {
+                ZoneId.of(updates.getTimeZone());
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Zona horaria no válida: " + updates.getTimeZone());
+            }
+        }
+
+        NotificationPreference preference = preferenceRepository.findById(userId)
+                .orElseGet(() -> new NotificationPreference(userId));
+        preference.setMutedEmailTypes(mutedEmail);
+        preference.setMutedPushTypes(mutedPush);
+        preference.setQuietHoursStart(updates.getQuietHoursStart());
+        preference.setQuietHoursEnd(updates.getQuietHoursEnd());
+        preference.setTimeZone(updates.getTimeZone());
+        preference.setDigestEnabled(updates.getDigestEnabled() == null || updates.getDigestEnabled());
+        preference.setUpdatedAt(LocalDateTime.now());
+        NotificationPreference saved = preferenceRepository.save(preference);
+
+        invalidate(userId);
+        return saved;
+    }
+
+    /**
+     * Invalida el enrutado de un usuario en todos los nodos. Si hay una transacción
+     * activa, la invalidación se repite tras el commit para no dejar en caché
+     * preferencias leídas antes de confirmar el cambio.
+     */
+    public void invalidate(Long userId) {
+        evictEverywhere(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictEverywhere(userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Obtiene las métricas de la caché de enrutado
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (cache) {
+            stats.put("size", cache.size());
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("sizeEvictions", sizeEvictions.sum());
+        stats.put("localInvalidations", localInvalidations.sum());
+        stats.put("remoteInvalidations", remoteInvalidations.sum());
+        stats.put("redisEnabled", redisEnabled);
+        stats.put("redisErrors", redisErrors.sum());
+        return stats;
+    }
+
+    /**
+     * Procesa una invalidación recibida de otro nodo
+     */
+    private void onRemoteInvalidation(String body) {
+        remoteInvalidations.increment();
+        invalidationSequence.incrementAndGet();
+        try {
+            evictLocal(Long.valueOf(body));
+        } catch (NumberFormatException e) {
+            // log.warn("Mensaje de invalidación de preferencias no válido: {}", body);
+        }
+    }
+
+    private void evictEverywhere(Long userId) {
+        localInvalidations.increment();
+        invalidationSequence.incrementAndGet();
+        evictLocal(userId);
+
+        StringRedisTemplate redis = redisTemplate();
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.convertAndSend(INVALIDATION_CHANNEL, userId.toString());
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            // log.warn("No se pudieron invalidar las preferencias de {} en Redis: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Guarda los enrutados recién compilados, salvo que haya llegado una invalidación
+     * mientras se leían de la base de datos
+     */
+    private void store(List<Long> userIds, Map<Long, Routing> routings, long sequenceBeforeLoad) {
+        long expiresAt = System.nanoTime() + Duration.ofSeconds(ttlSeconds).toNanos();
+        synchronized (cache) {
+            if (invalidationSequence.get() != sequenceBeforeLoad) {
+                return;
+            }
+            for (Long userId : userIds) {
+                cache.put(userId, new CachedRouting(routings.get(userId), expiresAt));
+            }
+            Iterator<Long> eldest = cache.keySet().iterator();
+            while (cache.size() > maxSize && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                sizeEvictions.increment();
+            }
+        }
+    }
+
+    private void evictLocal(Long userId) {
+        synchronized (cache) {
+            cache.remove(userId);
+        }
+    }
+
+    private StringRedisTemplate redisTemplate() {
+        return redisEnabled ? redisTemplateProvider.getIfAvailable() : null;
+    }
+
+    private static Set<NotificationType> copyOf(Set<NotificationType> types) {
+        return types == null || types.isEmpty() ? EnumSet.noneOf(NotificationType.class) : EnumSet.copyOf(types);
+    }
+
+    private record CachedRouting(Routing routing, long expiresAtNanos) {}
+
+    /**
+     * Preferencias compiladas de un usuario. Un canal está permitido si su bit está en
+     * la máscara de la prioridad: la normal parte de los canales de cada tipo y la alta
+     * de todos (como Notification.shouldSendEmail), y a ambas se les quitan los tipos
+     * silenciados. Las horas de silencio no aplazan las notificaciones de prioridad
+     * alta ni las de seguridad.
+     */
+    public static final class Routing {
+        private static final int NO_QUIET_HOURS = -1;
+
+        private final long normalMask;
+        private final long highMask;
+        private final int quietStartMinute;
+        private final int quietEndMinute;
+        private final ZoneId zone;
+        private final boolean digestEnabled;
+
+        private Routing(long normalMask, long highMask, int quietStartMinute, int quietEndMinute,
+                        ZoneId zone, boolean digestEnabled) {
+            this.normalMask = normalMask;
+            this.highMask = highMask;
+            this.quietStartMinute = quietStartMinute;
+            this.quietEndMinute = quietEndMinute;
+            this.zone = zone;
+            this.digestEnabled = digestEnabled;
+        }
+
+        static Routing compile(NotificationPreference preference) {
+            long defaults = 0;
+            long all = 0;
+            long muted = 0;
+            for (NotificationType type : NotificationType.values()) {
+                long email = emailBit(type);
+                long push = pushBit(type);
+                all |= email | push;
+                if (type.shouldSendEmail()) defaults |= email;
+                if (type.shouldSendPush()) defaults |= push;
+                if (preference != null && !type.isSecurityRelated()) {
+                    if (preference.getMutedEmailTypes().contains(type)) muted |= email;
+                    if (preference.getMutedPushTypes().contains(type)) muted |= push;
+                }
+            }
+
+            boolean quiet = preference != null && preference.hasQuietHours();
+            ZoneId zone = preference != null && preference.getTimeZone() != null
+                    ? ZoneId.of(preference.getTimeZone()) : ZoneId.systemDefault();
+            return new Routing(defaults & ~muted, all & ~muted,
+                    quiet ? preference.getQuietHoursStart().toSecondOfDay() / 60 : NO_QUIET_HOURS,
+                    quiet ? preference.getQuietHoursEnd().toSecondOfDay() / 60 : NO_QUIET_HOURS,
+                    zone, preference == null || !Boolean.FALSE.equals(preference.getDigestEnabled()));
+        }
+
+        public boolean allowsEmail(NotificationType type, NotificationPriority priority) {
+            return (mask(priority) & emailBit(type)) != 0;
+        }
+
+        public boolean allowsPush(NotificationType type, NotificationPriority priority) {
+            return (mask(priority) & pushBit(type)) != 0;
+        }
+
+        public boolean isDigestEnabled() {
+            return digestEnabled;
+        }
+
+        /**
+         * Si 'now' cae en las horas de silencio del usuario, devuelve cuándo terminan
+         * (en la hora del servidor); si no, o si la notificación no se aplaza, null
+         */
+        public LocalDateTime deferUntil(NotificationType type, NotificationPriority priority, LocalDateTime now) {
+            if (quietStartMinute == NO_QUIET_HOURS || priority.isHighPriority() || type.isSecurityRelated()) {
+                return null;
+            }
+            ZonedDateTime local = now.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone);
+            int minute = local.getHour() * 60 + local.getMinute();
+            boolean quiet = quietStartMinute < quietEndMinute
+                    ? minute >= quietStartMinute && minute < quietEndMinute
+                    : minute >= quietStartMinute || minute < quietEndMinute;
+            if (!quiet) {
+                return null;
+            }
+            ZonedDateTime end = local.truncatedTo(ChronoUnit.DAYS).plusMinutes(quietEndMinute);
+            if (!end.isAfter(local)) {
+                end = end.plusDays(1);
+            }
+            return end.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        }
+
+        private long mask(NotificationPriority priority) {
+            return priority.isHighPriority() ? highMask : normalMask;
+        }
+
+        private static long emailBit(NotificationType type) {
+            return 1L << type.ordinal();
+        }
+
+        private static long pushBit(NotificationType type) {
+            return 1L << (PUSH_SHIFT + type.ordinal());
+        }
+    }
+}
@@ -1,18 +1,23 @@
 package com.sgerm.eventmanagement.service;
 
+import com.sgerm.eventmanagement.config.AsyncConfig;
+import com.sgerm.eventmanagement.dto.VersionStamp;
 import com.sgerm.eventmanagement.model.*;
+import com.sgerm.eventmanagement.repository.NotificationReadMarkRepository;
 import com.sgerm.eventmanagement.repository.NotificationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -24,8 +29,16 @@ import java.util.Optional;
 @Transactional
 public class NotificationService {
     
+    private static final List<BookingStatus> ACTIVE_BOOKING_STATUSES =
+            List.of(BookingStatus.PENDING, BookingStatus.CONFIRMED);
+    
     private final NotificationRepository notificationRepository;
-    private final EmailService emailService;
+    private final NotificationReadMarkRepository notificationReadMarkRepository;
+    private final NotificationDeliveryService notificationDeliveryService;
+    private final NotificationDigestService notificationDigestService;
+    private final NotificationPartitionService notificationPartitionService;
+    private final NotificationFanoutService notificationFanoutService;
+    private final UnreadCounterService unreadCounterService;
     
     /**
      * Crea una nueva notificación
@@ -44,16 +57,23 @@ public class NotificationService {
             notification.setExpiresAt(calculateExpirationDate(notification.getPriority()));
         }
         
-        Notification savedNotification = notificationRepository.save(notification);
-        
-        // Enviar notificación por email si es necesario
-        if (shouldSendEmail(notification.getType())) {
-            sendEmailNotification(savedNotification);
+        // Las de baja prioridad se agrupan: se suman a un resumen abierto o abren uno nuevo
+        boolean digestible = notificationDigestService.isDigestible(notification);
+        if (digestible) {
+            Optional<Notification> digest = notificationDigestService.mergeIntoOpenDigest(notification);
+            if (digest.isPresent()) {
+                return digest.get();
+            }
+            notificationDigestService.openDigest(notification);
         }
         
-        // Enviar notificación push si es necesario
-        if (shouldSendPush(notification.getType())) {
-            sendPushNotification(savedNotification);
+        Notification savedNotification = notificationRepository.save(notification);
+        unreadCounterService.increment(notification.getRecipient().getId());
+        
+        // Enviar por email y push al confirmarse; si algún canal falla queda programado su
+        // reintento. Los resúmenes se entregan al cerrarse su ventana.
+        if (!digestible) {
+            notificationDeliveryService.scheduleDelivery(savedNotification);
         }
         
         // log.info("Notificación creada exitosamente con ID: {}", savedNotification.getId());
@@ -63,7 +83,7 @@ public class NotificationService {
     /**
      * Envía notificación de confirmación de reserva
      */
-    @Async
+    @Async(AsyncConfig.STANDARD_LANE)
     public void sendBookingConfirmationNotification(Booking booking) {
         // log.info("Enviando notificación de confirmación de reserva: {}", booking.getBookingCode());
         
@@ -85,7 +105,7 @@ public class NotificationService {
     /**
      * Envía notificación de cancelación de reserva
      */
-    @Async
+    @Async(AsyncConfig.STANDARD_LANE)
     public void sendBookingCancellationNotification(Booking booking) {
         // log.info("Enviando notificación de cancelación de reserva: {}", booking.getBookingCode());
         
@@ -106,7 +126,7 @@ public class NotificationService {
     /**
      * Envía notificación de recordatorio de evento
      */
-    @Async
+    @Async(AsyncConfig.STANDARD_LANE)
     public void sendEventReminderNotification(Booking booking) {
         // log.info("Enviando notificación de recordatorio para evento: {}", booking.getEvent().getTitle());
         
@@ -128,7 +148,7 @@ public class NotificationService {
     /**
      * Envía notificación de confirmación de pago
      */
-    @Async
+    @Async(AsyncConfig.STANDARD_LANE)
     public void sendPaymentConfirmationNotification(Booking booking) {
         // log.info("Enviando notificación de confirmación de pago para reserva: {}", booking.getBookingCode());
         
@@ -150,7 +170,7 @@ public class NotificationService {
     /**
      * Envía notificación de cambio de contraseña
      */
-    @Async
+    @Async(AsyncConfig.CRITICAL_LANE)
     public void sendPasswordChangeNotification(User user) {
         // log.info("Enviando notificación de cambio de contraseña para usuario: {}", user.getUsername());
         
@@ -169,7 +189,7 @@ public class NotificationService {
     /**
      * Envía notificación de desactivación de cuenta
      */
-    @Async
+    @Async(AsyncConfig.CRITICAL_LANE)
     public void sendAccountDeactivationNotification(User user) {
         // log.info("Enviando notificación de desactivación de cuenta para usuario: {}", user.getUsername());
         
@@ -187,7 +207,7 @@ public class NotificationService {
     /**
      * Envía notificación de cambio de rol
      */
-    @Async
+    @Async(AsyncConfig.CRITICAL_LANE)
     public void sendRoleChangeNotification(User user, Role oldRole, Role newRole) {
         // log.info("Enviando notificación de cambio de rol para usuario: {} de {} a {}", 
         //        user.getUsername(), oldRole, newRole);
@@ -208,7 +228,7 @@ public class NotificationService {
     /**
      * Envía notificación de evento cancelado
      */
-    @Async
+    @Async(AsyncConfig.CRITICAL_LANE)
     public void sendEventCancellationNotification(Event event, User user) {
         // log.info("Enviando notificación de cancelación de evento: {} a usuario: {}", 
         //        event.getTitle(), user.getUsername());
@@ -230,7 +250,7 @@ public class NotificationService {
     /**
      * Envía notificación de actualización de evento
      */
-    @Async
+    @Async(AsyncConfig.STANDARD_LANE)
     public void sendEventUpdateNotification(Event event, User user, String changes) {
         // log.info("Enviando notificación de actualización de evento: {} a usuario: {}", 
         //        event.getTitle(), user.getUsername());
@@ -249,6 +269,40 @@ public class NotificationService {
         createNotification(notification);
     }
     
+    /**
+     * Notifica la cancelación de un evento a todos los usuarios con reservas activas
+     * mediante el envío masivo por lotes
+     */
+    public Map<String, Object> fanOutEventCancellation(Event event) {
+        NotificationFanoutService.Template template = new NotificationFanoutService.Template(
+                "Evento cancelado",
+                String.format("El evento '%s' ha sido cancelado. Se procesará el reembolso automáticamente.", 
+                        event.getTitle()),
+                NotificationType.EVENT_CANCELLATION,
+                NotificationPriority.URGENT,
+                "/events/" + event.getId());
+        
+        return notificationFanoutService.startFanout(event, template,
+                notificationFanoutService.bookingRecipients(event, ACTIVE_BOOKING_STATUSES));
+    }
+    
+    /**
+     * Notifica los cambios de un evento a todos los usuarios con reservas activas
+     * mediante el envío masivo por lotes
+     */
+    public Map<String, Object> fanOutEventUpdate(Event event, String changes) {
+        NotificationFanoutService.Template template = new NotificationFanoutService.Template(
+                "Evento actualizado",
+                String.format("El evento '%s' ha sido actualizado. Cambios: %s", 
+                        event.getTitle(), changes),
+                NotificationType.EVENT_UPDATE,
+                NotificationPriority.NORMAL,
+                "/events/" + event.getId());
+        
+        return notificationFanoutService.startFanout(event, template,
+                notificationFanoutService.bookingRecipients(event, ACTIVE_BOOKING_STATUSES));
+    }
+    
     /**
      * Marca una notificación como leída
      */
@@ -264,30 +318,80 @@ public class NotificationService {
                 throw new IllegalArgumentException("No tienes permiso para marcar esta notificación como leída");
             }
             
-            if (!notification.getIsRead()) {
-                notificationRepository.markAsRead(notificationId, LocalDateTime.now());
+            if (!NotificationReadMark.isRead(notification, getReadUpTo(user))) {
+                int updated = notificationRepository.markAsRead(notificationId, LocalDateTime.now());
+                unreadCounterService.decrement(user.getId(), updated);
                 // log.info("Notificación {} marcada como leída exitosamente", notificationId);
             }
         }
     }
     
     /**
-     * Marca todas las notificaciones de un usuario como leídas
+     * Marca todas las notificaciones de un usuario como leídas. Solo avanza su marca de
+     * lectura (una fila) en lugar de actualizar cada notificación no leída. Cada sentencia
+     * va en su propia transacción: si dos peticiones crean la marca a la vez, el INSERT
+     * duplicado falla sin abortar nada y se reintenta el avance.
+     *
+     * La marca es la fecha de la notificación más reciente ya confirmada, no la hora
+     * actual: una notificación creada antes pero confirmada después no se da por leída
+     * sin que el usuario la haya visto.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void markAllAsRead(User user) {
         // log.info("Marcando todas las notificaciones como leídas para usuario: {}", user.getUsername());
         
-        notificationRepository.markAllAsReadByRecipient(user, LocalDateTime.now());
+        Optional<LocalDateTime> latest = notificationRepository.findLatestCreatedAtByRecipient(user);
+        if (latest.isEmpty()) {
+            return;
+        }
+        LocalDateTime readUpTo = latest.get();
+        if (notificationReadMarkRepository.advance(user.getId(), readUpTo) == 0
+                && !notificationReadMarkRepository.existsById(user.getId())) {
+            try {
+                notificationReadMarkRepository.insert(user.getId(), readUpTo);
+            } catch (DataIntegrityViolationException e) {
+                // Otra petición creó la marca entretanto: basta con avanzarla
+                notificationReadMarkRepository.advance(user.getId(), readUpTo);
+            }
+        }
+        unreadCounterService.reset(user.getId());
         
         // log.info("Todas las notificaciones marcadas como leídas para usuario: {}", user.getUsername());
     }
     
     /**
-     * Obtiene notificaciones de un usuario
+     * Obtiene notificaciones de un usuario. Las expiradas siguen en la tabla hasta que
+     * se borra su partición mensual, así que todas las lecturas las filtran.
      */
     @Transactional(readOnly = true)
-    public Page<Notification> getUserNotifications(User user, Pageable pageable) {
-        return notificationRepository.findByRecipient(user, pageable);
+    public Slice<Notification> getUserNotifications(User user, Pageable pageable) {
+        return notificationRepository.findSliceByRecipient(user, LocalDateTime.now(), pageable);
+    }
+    
+    /**
+     * Obtiene la marca de lectura de un usuario: las notificaciones creadas hasta
+     * entonces cuentan como leídas
+     */
+    @Transactional(readOnly = true)
+    public LocalDateTime getReadUpTo(User user) {
+        return notificationReadMarkRepository.findReadUpTo(user.getId()).orElse(NotificationReadMark.NONE);
+    }
+    
+    /**
+     * Obtiene la versión de las notificaciones de un usuario sin cargarlas. Incluye la
+     * marca de lectura, que cambia al marcar todas como leídas sin tocar ninguna fila.
+     */
+    @Transactional(readOnly = true)
+    public VersionStamp getNotificationsVersion(User user) {
+        LocalDateTime readUpTo = getReadUpTo(user);
+        Object[] row = notificationRepository.getVersionByRecipient(user, readUpTo, LocalDateTime.now()).get(0);
+        LocalDateTime lastModified = latest((LocalDateTime) row[2], latest((LocalDateTime) row[3], (LocalDateTime) row[4]));
+        if (!readUpTo.equals(NotificationReadMark.NONE)) {
+            lastModified = latest(lastModified, readUpTo);
+        }
+        long marker = lastModified != null ? lastModified.toString().hashCode() : 0;
+        return new VersionStamp("n" + user.getId() + "c" + row[0] + "u" + (row[1] != null ? row[1] : 0)
+                + "m" + Long.toHexString(marker), lastModified);
     }
     
     /**
@@ -295,15 +399,17 @@ public class NotificationService {
      */
     @Transactional(readOnly = true)
     public List<Notification> getUnreadNotifications(User user) {
-        return notificationRepository.findUnreadByRecipient(user);
+        return notificationRepository.findUnreadByRecipient(user, getReadUpTo(user), LocalDateTime.now());
     }
     
     /**
-     * Cuenta notificaciones no leídas de un usuario
+     * Cuenta notificaciones no leídas de un usuario. Se sirve desde el contador
+     * incremental y solo consulta la tabla si el contador aún no existe.
      */
     @Transactional(readOnly = true)
     public long countUnreadNotifications(User user) {
-        return notificationRepository.countUnreadByRecipient(user);
+        return unreadCounterService.getUnreadCount(user.getId(),
+                () -> notificationRepository.countUnreadByRecipient(user, getReadUpTo(user), LocalDateTime.now()));
     }
     
     /**
@@ -312,7 +418,7 @@ public class NotificationService {
     @Transactional(readOnly = true)
     public List<Notification> getRecentNotifications(User user, int hours) {
         LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        return notificationRepository.findRecentByRecipient(user, since);
+        return notificationRepository.findRecentByRecipient(user, since, LocalDateTime.now());
     }
     
     /**
@@ -320,26 +426,33 @@ public class NotificationService {
      */
     @Transactional(readOnly = true)
     public List<Notification> getHighPriorityUnreadNotifications(User user) {
-        return notificationRepository.findHighPriorityUnreadByRecipient(user);
+        return notificationRepository.findHighPriorityUnreadByRecipient(user, getReadUpTo(user), LocalDateTime.now());
     }
     
     /**
-     * Elimina notificaciones expiradas
+     * Aplica la retención de notificaciones. Con la tabla particionada es una retención
+     * por antigüedad: se borran las particiones mensuales completas (leídas o no) que
+     * superan la retención configurada, y las expiradas de los meses conservados se
+     * ocultan en las lecturas. Sin particiones se borran las filas expiradas.
      */
-    @Async
+    @Async(AsyncConfig.BULK_LANE)
     public void cleanupExpiredNotifications() {
         // log.info("Iniciando limpieza de notificaciones expiradas");
         
-        LocalDateTime now = LocalDateTime.now();
-        notificationRepository.deleteExpiredNotifications(now);
+        if (notificationPartitionService.applyRetention() < 0) {
+            LocalDateTime now = LocalDateTime.now();
+            notificationRepository.deleteExpiredNotifications(now);
+        }
         
         // log.info("Limpieza de notificaciones expiradas completada");
     }
     
     /**
-     * Elimina notificaciones leídas antiguas
+     * Elimina notificaciones leídas antiguas. Borra solo filas leídas, también con la
+     * tabla particionada: la retención por antigüedad de particiones completas la
+     * aplica cleanupExpiredNotifications.
      */
-    @Async
+    @Async(AsyncConfig.BULK_LANE)
     public void cleanupOldReadNotifications(int daysOld) {
         // log.info("Iniciando limpieza de notificaciones leídas antiguas (más de {} días)", daysOld);
         
@@ -349,69 +462,6 @@ public class NotificationService {
         // log.info("Limpieza de notificaciones leídas antiguas completada");
     }
     
-    /**
-     * Envía notificación por email
-     */
-    @Async
-    private void sendEmailNotification(Notification notification) {
-        try {
-            // Aquí se podría personalizar el email según el tipo de notificación
-            emailService.sendSimpleEmail(
-                notification.getRecipient().getEmail(),
-                notification.getTitle(),
-                notification.getMessage()
-            );
-            
-            // Marcar como enviado
-            notificationRepository.updateEmailSentStatus(
-                notification.getId(), true, LocalDateTime.now()
-            );
-            
-            // log.info("Email de notificación enviado exitosamente para notificación ID: {}", 
-            //        notification.getId());
-        } catch (Exception e) {
-            // log.error("Error enviando email de notificación ID: {}", notification.getId(), e);
-        }
-    }
-    
-    /**
-     * Envía notificación push
-     */
-    @Async
-    private void sendPushNotification(Notification notification) {
-        try {
-            // Aquí se implementaría el envío de notificaciones push
-            // Por ahora solo simulamos el envío
-            // log.info("Enviando notificación push para notificación ID: {}", notification.getId());
-            
-            // Marcar como enviado
-            notificationRepository.updatePushSentStatus(
-                notification.getId(), true, LocalDateTime.now()
-            );
-            
-            // log.info("Notificación push enviada exitosamente para notificación ID: {}", 
-            //        notification.getId());
-        } catch (Exception e) {
-            // log.error("Error enviando notificación push ID: {}", notification.getId(), e);
-        }
-    }
-    
-    /**
-     * Determina si se debe enviar email para un tipo de notificación
-     */
-    private boolean shouldSendEmail(NotificationType type) {
-        // Simplificado: enviar email para todos los tipos
-        return true;
-    }
-    
-    /**
-     * Determina si se debe enviar push para un tipo de notificación
-     */
-    private boolean shouldSendPush(NotificationType type) {
-        // Simplificado: enviar push para todos los tipos
-        return true;
-    }
-    
     /**
      * Calcula la fecha de expiración basada en la prioridad
      */
@@ -436,31 +486,16 @@ public class NotificationService {
     }
     
     /**
-     * Reenvía notificaciones fallidas
+     * Carga los reenvíos pendientes sin esperar al siguiente ciclo del planificador
      */
-    @Async
+    @Async(AsyncConfig.BULK_LANE)
     public void retryFailedNotifications() {
-        // log.info("Iniciando reenvío de notificaciones fallidas");
-        
-        LocalDateTime retryAfter = LocalDateTime.now().minusHours(1);
-        // Simplificado: usar todos los tipos de notificación
-        List<NotificationType> emailTypes = Arrays.asList(NotificationType.values());
-        List<NotificationType> pushTypes = Arrays.asList(NotificationType.values());
-        
-        List<Notification> failedNotifications = notificationRepository
-                .findNotificationsForRetry(emailTypes, pushTypes, retryAfter);
-        
-        for (Notification notification : failedNotifications) {
-            if (!notification.getEmailSent() && shouldSendEmail(notification.getType())) {
-                sendEmailNotification(notification);
-            }
-            
-            if (!notification.getPushSent() && shouldSendPush(notification.getType())) {
-                sendPushNotification(notification);
-            }
-        }
-        
-        // log.info("Reenvío de notificaciones fallidas completado. Procesadas: {}", 
-        //        failedNotifications.size());
+        notificationDeliveryService.loadDueDeliveries();
+    }
+    
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isAfter(b) ? a : b;
     }
-}
\ No newline at end of file
+}
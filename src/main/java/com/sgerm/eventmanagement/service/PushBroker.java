@@ -0,0 +1,28 @@
+package com.sgerm.eventmanagement.service;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Canal entre nodos para los mensajes push. Cada nodo publica una vez por mensaje
+ * y todos los nodos (incluido el emisor) lo reciben y lo entregan a las conexiones
+ * locales de los usuarios destinatarios.
+ */
+public interface PushBroker {
+
+    /**
+     * Publica un mensaje para todos los nodos
+     */
+    void publish(Message message);
+
+    /**
+     * Registra el receptor de los mensajes publicados
+     */
+    void subscribe(Consumer<Message> listener);
+
+    /**
+     * Mensaje push: un mismo evento SSE con sus datos ya serializados para varios usuarios
+     */
+    record Message(List<Long> userIds, String event, String data) {
+    }
+}
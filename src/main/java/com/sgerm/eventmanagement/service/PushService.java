@@ -0,0 +1,370 @@
+package com.sgerm.eventmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Notificaciones en tiempo real por Server-Sent Events.
+ *
+ * Cada conexión es una petición asíncrona del contenedor: mientras está inactiva no
+ * ocupa ningún hilo, solo el socket y un SseEmitter. El registro de conexiones es
+ * local a cada nodo; los mensajes se publican en el PushBroker (Redis pub/sub o en
+ * memoria) y cada nodo los encola en sus conexiones.
+ *
+ * Cada conexión tiene su propia cola de salida, que vacía una tarea del pool de envío;
+ * así un cliente que no lee (socket lleno) solo bloquea su propia escritura y no la del
+ * resto. Un hilo de latido encola un comentario periódico en cada conexión y cierra las
+ * que llevan más de send-deadline-ms con una escritura en curso o acumulan más de
+ * max-pending-per-connection mensajes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PushService {
+
+    public static final String NOTIFICATION_EVENT = "notification";
+    public static final String UNREAD_EVENT = "unread";
+
+    private final PushBroker pushBroker;
+    private final ObjectMapper objectMapper;
+
+    @Value("${sgerm.push.max-connections:50000}")
+    private int maxConnections;
+
+    @Value("${sgerm.push.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${sgerm.push.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${sgerm.push.heartbeat-seconds:25}")
+    private long heartbeatSeconds;
+
+    @Value("${sgerm.push.delivery-threads:4}")
+    private int deliveryThreads;
+
+    @Value("${sgerm.push.delivery-queue-capacity:10000}")
+    private int deliveryQueueCapacity;
+
+    @Value("${sgerm.push.send-deadline-ms:10000}")
+    private long sendDeadlineMs;
+
+    @Value("${sgerm.push.max-pending-per-connection:100}")
+    private int maxPendingPerConnection;
+
+    private final Map<Long, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private ThreadPoolExecutor delivery;
+    private ScheduledExecutorService heartbeat;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rejectedConnections = new LongAdder();
+    private final LongAdder stalledConnections = new LongAdder();
+    private final LongAdder slowConnections = new LongAdder();
+
+    @PostConstruct
+    void start() {
+        AtomicInteger counter = new AtomicInteger();
+        delivery = new ThreadPoolExecutor(deliveryThreads, deliveryThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(deliveryQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "push-delivery-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "push-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        pushBroker.subscribe(this::deliverLocal);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeat.shutdownNow();
+        delivery.shutdownNow();
+        connections.values().forEach(userConnections -> userConnections.forEach(connection -> close(connection, null)));
+    }
+
+    /**
+     * Abre la conexión SSE de un usuario y le envía su número de no leídas. Si el
+     * usuario supera su límite de conexiones se cierra la más antigua.
+     */
+    public SseEmitter connect(Long userId, long unreadCount) {
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            connectionCount.decrementAndGet();
+            rejectedConnections.increment();
+            throw new IllegalStateException("Hay demasiadas conexiones abiertas, inténtalo más tarde");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Connection connection = new Connection(userId, emitter);
+        // compute es atómico respecto a remove(), que elimina el conjunto cuando queda vacío
+        Set<Connection> userConnections = connections.compute(userId, (id, current) -> {
+            Set<Connection> set = current != null ? current : new CopyOnWriteArraySet<>();
+            set.add(connection);
+            return set;
+        });
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(error -> remove(connection));
+
+        if (userConnections.size() > maxConnectionsPerUser) {
+            Iterator<Connection> oldest = userConnections.iterator();
+            if (oldest.hasNext()) {
+                Connection evicted = oldest.next();
+                if (evicted != connection) {
+                    close(evicted, null);
+                }
+            }
+        }
+
+        enqueue(connection, SseEmitter.event().name(UNREAD_EVENT).data(Map.of("unread", unreadCount),
+                MediaType.APPLICATION_JSON), false);
+        return emitter;
+    }
+
+    /**
+     * Envía un evento a un usuario en todos los nodos, tras el commit si hay transacción
+     */
+    public void pushToUser(Long userId, String event, Object payload) {
+        pushToUsers(List.of(userId), event, payload);
+    }
+
+    /**
+     * Envía el mismo evento a varios usuarios con una única publicación
+     */
+    public void pushToUsers(Collection<Long> userIds, String event, Object payload) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudo serializar el mensaje push", e);
+        }
+        PushBroker.Message message = new PushBroker.Message(List.copyOf(userIds), event, data);
+        afterCommit(() -> {
+            published.increment();
+            pushBroker.publish(message);
+        });
+    }
+
+    /**
+     * Obtiene las métricas del canal push de este nodo
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connectionCount.get());
+        stats.put("connectedUsers", connections.size());
+        stats.put("maxConnections", maxConnections);
+        stats.put("published", published.sum());
+        stats.put("delivered", delivered.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("rejectedConnections", rejectedConnections.sum());
+        stats.put("stalledConnections", stalledConnections.sum());
+        stats.put("slowConnections", slowConnections.sum());
+        stats.put("queuedDeliveries", delivery.getQueue().size());
+        stats.put("activeDeliveries", delivery.getActiveCount());
+        return stats;
+    }
+
+    /**
+     * Encola un mensaje recibido del broker en las conexiones locales de sus destinatarios
+     */
+    private void deliverLocal(PushBroker.Message message) {
+        for (Long userId : message.userIds()) {
+            Set<Connection> userConnections = connections.get(userId);
+            if (userConnections == null) {
+                continue;
+            }
+            for (Connection connection : userConnections) {
+                // Los datos ya son JSON: se escriben tal cual
+                enqueue(connection, SseEmitter.event().name(message.event()).data(message.data()), true);
+            }
+        }
+    }
+
+    /**
+     * Cierra las conexiones con una escritura bloqueada más allá del plazo y encola un
+     * latido en las demás (salvo que ya tengan mensajes pendientes)
+     */
+    private void sendHeartbeat() {
+        long now = System.nanoTime();
+        long deadlineNanos = TimeUnit.MILLISECONDS.toNanos(sendDeadlineMs);
+        connections.forEach((userId, userConnections) -> {
+            for (Connection connection : userConnections) {
+                long since = connection.sendingSinceNanos;
+                if (since != 0 && now - since > deadlineNanos) {
+                    stalledConnections.increment();
+                    close(connection, new IOException("Escritura bloqueada durante más de " + sendDeadlineMs + " ms"));
+                } else if (connection.pendingCount.get() == 0) {
+                    enqueue(connection, SseEmitter.event().comment("ping"), false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Añade un evento a la cola de salida de una conexión y programa su envío. Una
+     * conexión que acumula demasiados pendientes no está leyendo y se cierra.
+     */
+    private void enqueue(Connection connection, SseEmitter.SseEventBuilder event, boolean counted) {
+        if (connection.closed.get()) {
+            return;
+        }
+        if (connection.pendingCount.incrementAndGet() > maxPendingPerConnection) {
+            connection.pendingCount.decrementAndGet();
+            slowConnections.increment();
+            dropped.increment();
+            close(connection, new IOException("Demasiados mensajes pendientes"));
+            return;
+        }
+        connection.pending.add(new Outgoing(event, counted));
+        schedule(connection);
+    }
+
+    /**
+     * Programa el vaciado de la cola de una conexión si no hay ya uno en curso. Con el
+     * pool saturado los mensajes quedan en la cola y se envían en el siguiente intento.
+     */
+    private void schedule(Connection connection) {
+        if (!connection.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            delivery.execute(() -> drain(connection));
+        } catch (RejectedExecutionException e) {
+            connection.draining.set(false);
+        }
+    }
+
+    /**
+     * Escribe los pendientes de una conexión en orden; si una escritura falla, la
+     * conexión se da por cerrada
+     */
+    private void drain(Connection connection) {
+        try {
+            Outgoing outgoing;
+            while (!connection.closed.get() && (outgoing = connection.pending.poll()) != null) {
+                connection.pendingCount.decrementAndGet();
+                connection.sendingSinceNanos = System.nanoTime();
+                try {
+                    connection.emitter.send(outgoing.event());
+                    if (outgoing.counted()) {
+                        delivered.increment();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    close(connection, e);
+                } finally {
+                    connection.sendingSinceNanos = 0;
+                }
+            }
+        } finally {
+            connection.draining.set(false);
+        }
+        if (!connection.closed.get() && !connection.pending.isEmpty()) {
+            schedule(connection);
+        }
+    }
+
+    /**
+     * Cierra una conexión una sola vez; con error si la escritura falló o se bloqueó
+     */
+    private void close(Connection connection, Throwable error) {
+        if (!connection.closed.compareAndSet(false, true)) {
+            return;
+        }
+        remove(connection);
+        int discarded = connection.pendingCount.getAndSet(0);
+        connection.pending.clear();
+        dropped.add(discarded);
+        try {
+            if (error != null) {
+                connection.emitter.completeWithError(error);
+            } else {
+                connection.emitter.complete();
+            }
+        } catch (RuntimeException e) {
+            // La petición asíncrona ya había terminado
+        }
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.userId, (id, userConnections) -> {
+            if (userConnections.remove(connection)) {
+                connectionCount.decrementAndGet();
+            }
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Outgoing(SseEmitter.SseEventBuilder event, boolean counted) {}
+
+    /**
+     * Conexión SSE con su cola de salida. 'sendingSinceNanos' vale 0 salvo mientras
+     * hay una escritura en curso.
+     */
+    private static final class Connection {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<Outgoing> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile long sendingSinceNanos;
+
+        private Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+    }
+}
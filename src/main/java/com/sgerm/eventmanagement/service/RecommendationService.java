@@ -0,0 +1,342 @@
+package com.sgerm.eventmanagement.service;
+
+import com.sgerm.eventmanagement.model.BookingStatus;
+import com.sgerm.eventmanagement.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Motor de recomendaciones "quienes reservaron esto también reservaron".
+ *
+ * Mantiene en memoria una matriz dispersa evento x evento con el número de usuarios
+ * que reservaron ambos, actualizada al confirmar reservas. La similitud es el coseno
+ * entre eventos: co-reservas / sqrt(reservas(a) * reservas(b)). Las cancelaciones no
+ * se restan de forma incremental; la reconstrucción nocturna las corrige.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecommendationService {
+
+    private static final Set<BookingStatus> COUNTED_STATUSES = Set.of(BookingStatus.CONFIRMED, BookingStatus.USED);
+    private static final long[] EMPTY = new long[0];
+
+    private final BookingRepository bookingRepository;
+
+    @Value("${sgerm.recommendations.max-user-history:50}")
+    private int maxUserHistory;
+
+    @Value("${sgerm.recommendations.rebuild-parallelism:0}")
+    private int rebuildParallelism;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Model model = new Model();
+    private List<long[]> pendingDuringRebuild;
+
+    /**
+     * Registra una reserva confirmada; se aplica tras el commit
+     */
+    public void onBookingConfirmed(Long userId, Long eventId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                model.addBooking(userId, eventId);
+                if (pendingDuringRebuild != null) {
+                    pendingDuringRebuild.add(new long[] {userId, eventId});
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Obtiene los IDs de los eventos más similares a uno dado
+     */
+    public List<Long> getSimilarEventIds(Long eventId, int limit) {
+        lock.readLock().lock();
+        try {
+            LongIntMap row = model.rows.get(eventId);
+            if (row == null) {
+                return List.of();
+            }
+            Map<Long, Double> scores = new HashMap<>();
+            double popularity = model.popularity(eventId);
+            for (int i = 0; i < row.keys.length; i++) {
+                if (row.used[i]) {
+                    long other = row.keys[i];
+                    scores.put(other, row.values[i] / Math.sqrt(popularity * model.popularity(other)));
+                }
+            }
+            return topN(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene recomendaciones personalizadas para un usuario a partir de sus
+     * reservas más recientes, excluyendo eventos ya reservados
+     */
+    public List<Long> getRecommendedEventIds(Long userId, int limit) {
+        lock.readLock().lock();
+        try {
+            long[] history = model.userEvents.getOrDefault(userId, EMPTY);
+            int from = Math.max(0, history.length - maxUserHistory);
+            long[] recent = Arrays.copyOfRange(history, from, history.length);
+            long[] booked = history.clone();
+            Arrays.sort(booked);
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (long eventId : recent) {
+                LongIntMap row = model.rows.get(eventId);
+                if (row == null) {
+                    continue;
+                }
+                double popularity = model.popularity(eventId);
+                for (int i = 0; i < row.keys.length; i++) {
+                    if (row.used[i] && Arrays.binarySearch(booked, row.keys[i]) < 0) {
+                        long other = row.keys[i];
+                        double similarity = row.values[i] / Math.sqrt(popularity * model.popularity(other));
+                        scores.merge(other, similarity, Double::sum);
+                    }
+                }
+            }
+            return topN(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Carga el modelo al arrancar
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Reconstruye el modelo completo a partir de las reservas confirmadas.
+     * Cada fila de la matriz se calcula en paralelo de forma independiente.
+     */
+    @Scheduled(cron = "${sgerm.recommendations.rebuild-cron:0 30 3 * * *}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Model rebuilt = null;
+        try {
+            rebuilt = buildModel(bookingRepository.findUserEventPairsByStatusIn(COUNTED_STATUSES));
+        } catch (RuntimeException e) {
+            // log.error("Error al reconstruir las recomendaciones: {}", e.getMessage(), e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (rebuilt != null) {
+                    // Las confirmaciones ocurridas durante la reconstrucción se vuelven a aplicar
+                    for (long[] booking : pendingDuringRebuild) {
+                        rebuilt.addBooking(booking[0], booking[1]);
+                    }
+                    model = rebuilt;
+                }
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Obtiene las métricas del modelo
+     */
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            long nonZero = 0;
+            for (LongIntMap row : model.rows.values()) {
+                nonZero += row.size;
+            }
+            return Map.of(
+                    "users", model.userEvents.size(),
+                    "events", model.rows.size(),
+                    "nonZeroCells", nonZero);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Model buildModel(List<Object[]> pairs) {
+        Model built = new Model();
+        Map<Long, List<Long>> eventsByUser = new HashMap<>();
+        for (Object[] pair : pairs) {
+            eventsByUser.computeIfAbsent((Long) pair[0], id -> new ArrayList<>()).add((Long) pair[1]);
+        }
+        Map<Long, List<long[]>> usersByEvent = new HashMap<>();
+        eventsByUser.forEach((userId, events) -> {
+            long[] history = events.stream().mapToLong(Long::longValue).distinct().toArray();
+            built.userEvents.put(userId, history);
+            for (long eventId : history) {
+                built.popularity.merge(eventId, 1, Integer::sum);
+                usersByEvent.computeIfAbsent(eventId, id -> new ArrayList<>()).add(history);
+            }
+        });
+
+        int parallelism = rebuildParallelism > 0 ? rebuildParallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Map<Long, LongIntMap> rows = new ConcurrentHashMap<>();
+            pool.submit(() -> usersByEvent.entrySet().parallelStream().forEach(entry -> {
+                long eventId = entry.getKey();
+                LongIntMap row = new LongIntMap();
+                for (long[] history : entry.getValue()) {
+                    for (long other : history) {
+                        if (other != eventId) {
+                            row.increment(other, 1);
+                        }
+                    }
+                }
+                if (row.size > 0) {
+                    rows.put(eventId, row);
+                }
+            })).get();
+            built.rows.putAll(rows);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconstrucción de recomendaciones interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error al reconstruir las recomendaciones", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return built;
+    }
+
+    private static List<Long> topN(Map<Long, Double> scores, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            if (heap.size() < limit) {
+                heap.add(entry);
+            } else if (heap.peek().getValue() < entry.getValue()) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(heap);
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()));
+        return ranked.stream().map(Map.Entry::getKey).toList();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Estado del motor: historial por usuario, popularidad y matriz de co-reservas
+     */
+    private static final class Model {
+        private final Map<Long, long[]> userEvents = new HashMap<>();
+        private final Map<Long, Integer> popularity = new HashMap<>();
+        private final Map<Long, LongIntMap> rows = new HashMap<>();
+
+        private double popularity(long eventId) {
+            return Math.max(1, popularity.getOrDefault(eventId, 0));
+        }
+
+        private void addBooking(long userId, long eventId) {
+            long[] history = userEvents.getOrDefault(userId, EMPTY);
+            for (long booked : history) {
+                if (booked == eventId) {
+                    return;
+                }
+            }
+            for (long other : history) {
+                rows.computeIfAbsent(other, id -> new LongIntMap()).increment(eventId, 1);
+                rows.computeIfAbsent(eventId, id -> new LongIntMap()).increment(other, 1);
+            }
+            long[] updated = Arrays.copyOf(history, history.length + 1);
+            updated[history.length] = eventId;
+            userEvents.put(userId, updated);
+            popularity.merge(eventId, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Mapa long -> int con direccionamiento abierto, sin objetos por entrada
+     */
+    private static final class LongIntMap {
+        private long[] keys = new long[8];
+        private int[] values = new int[8];
+        private boolean[] used = new boolean[8];
+        private int size;
+
+        private void increment(long key, int delta) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int index = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (used[index] && keys[index] != key) {
+                index = (index + 1) & mask;
+            }
+            if (!used[index]) {
+                used[index] = true;
+                keys[index] = key;
+                size++;
+            }
+            values[index] += delta;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    increment(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
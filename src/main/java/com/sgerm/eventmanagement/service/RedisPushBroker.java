@@ -0,0 +1,51 @@
+package com.sgerm.eventmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Canal push entre nodos sobre Redis pub/sub. Un mensaje con varios destinatarios
+ * viaja una sola vez; cada nodo descarta los usuarios que no tiene conectados.
+ */
+@Service
+@ConditionalOnProperty(name = "sgerm.cache.redis.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class RedisPushBroker implements PushBroker {
+
+    public static final String CHANNEL = "sgerm:push";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void publish(Message message) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // log.warn("No se pudo publicar el mensaje push '{}': {}", message.event(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Message> listener) {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                listener.accept(objectMapper.readValue(message.getBody(), Message.class));
+            } catch (IOException e) {
+                // log.warn("Mensaje push no válido: {}", e.getMessage());
+            }
+        }, new ChannelTopic(CHANNEL));
+    }
+}
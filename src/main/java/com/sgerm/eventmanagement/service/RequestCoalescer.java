@@ -0,0 +1,150 @@
+package com.sgerm.eventmanagement.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa lecturas idénticas concurrentes (single-flight): la primera petición de una
+ * clave ejecuta la carga y las demás esperan y reciben el mismo resultado. Con un TTL
+ * mayor que cero el resultado se sigue compartiendo durante ese tiempo.
+ *
+ * El valor compartido lo reciben varios hilos, por lo que debe ser inmutable.
+ */
+@Service
+@Slf4j
+public class RequestCoalescer {
+
+    private static final int MAX_TRACKED_KEYS = 10_000;
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final Map<String, KeyStats> statsByKey = new ConcurrentHashMap<>();
+    private final LongAdder totalLoads = new LongAdder();
+    private final LongAdder totalCoalesced = new LongAdder();
+
+    /**
+     * Ejecuta la carga o se une a una en curso (o reciente) para la misma clave
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, long ttlMillis, Supplier<T> loader) {
+        long now = System.nanoTime();
+        Flight flight = new Flight();
+        Flight current = flights.compute(key, (k, existing) ->
+                existing != null && existing.isUsable(now) ? existing : flight);
+
+        KeyStats stats = stats(key);
+        if (current != flight) {
+            stats.coalesced.increment();
+            totalCoalesced.increment();
+            return (T) current.await();
+        }
+
+        stats.loads.increment();
+        totalLoads.increment();
+        try {
+            T value = loader.get();
+            flight.expiresAtNanos = System.nanoTime() + ttlMillis * 1_000_000L;
+            flight.future.complete(value);
+            if (ttlMillis <= 0) {
+                flights.remove(key, flight);
+            }
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.future.completeExceptionally(e);
+            flights.remove(key, flight);
+            throw e;
+        }
+    }
+
+    /**
+     * Descarta el resultado compartido de una clave (por ejemplo, tras una escritura)
+     */
+    public void forget(String key) {
+        flights.computeIfPresent(key, (k, flight) -> flight.future.isDone() ? null : flight);
+    }
+
+    /**
+     * Métricas globales y de las claves con más peticiones agrupadas
+     */
+    public Map<String, Object> getStats(int topKeys) {
+        List<Map.Entry<String, KeyStats>> top = statsByKey.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, KeyStats> entry) -> entry.getValue().coalesced.sum())
+                        .reversed())
+                .limit(topKeys)
+                .toList();
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (Map.Entry<String, KeyStats> entry : top) {
+            keys.put(entry.getKey(), Map.of(
+                    "loads", entry.getValue().loads.sum(),
+                    "coalesced", entry.getValue().coalesced.sum()));
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loads", totalLoads.sum());
+        stats.put("coalesced", totalCoalesced.sum());
+        stats.put("inFlight", flights.size());
+        stats.put("trackedKeys", statsByKey.size());
+        stats.put("topKeys", keys);
+        return stats;
+    }
+
+    /**
+     * Elimina los resultados compartidos ya caducados
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        flights.entrySet().removeIf(entry -> !entry.getValue().isUsable(now));
+    }
+
+    private KeyStats stats(String key) {
+        KeyStats stats = statsByKey.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        // Las métricas por clave se acotan para no crecer sin límite
+        if (statsByKey.size() >= MAX_TRACKED_KEYS) {
+            statsByKey.clear();
+        }
+        return statsByKey.computeIfAbsent(key, k -> new KeyStats());
+    }
+
+    private static final class Flight {
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private volatile long expiresAtNanos;
+
+        private boolean isUsable(long now) {
+            if (!future.isDone()) {
+                return true;
+            }
+            return !future.isCompletedExceptionally() && expiresAtNanos - now > 0;
+        }
+
+        private Object await() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static final class KeyStats {
+        private final LongAdder loads = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+    }
+}
@@ -0,0 +1,457 @@
+package com.sgerm.eventmanagement.service;
+
+import com.sgerm.eventmanagement.dto.Suggestion;
+import com.sgerm.eventmanagement.model.Event;
+import com.sgerm.eventmanagement.model.EventStatus;
+import com.sgerm.eventmanagement.repository.EventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Servicio de autocompletado para títulos de eventos, ubicaciones y organizadores.
+ *
+ * Las claves son los sufijos normalizados que empiezan en cada palabra, guardados en
+ * un mapa ordenado; un prefijo se resuelve con un rango del mapa y un heap acotado
+ * de tamaño K. Solo se indexan eventos publicados y nunca se consulta la base de
+ * datos al responder.
+ *
+ * Los rangos de los prefijos cortos pueden abarcar gran parte del índice, así que su
+ * top-K se precalcula en segundo plano: los prefijos afectados por un cambio se
+ * recalculan en la siguiente pasada y todos se recalculan periódicamente para seguir
+ * la evolución de la popularidad. Los prefijos más largos se recorren completos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestionService {
+
+    private static final char KEY_SEPARATOR = '\u0001';
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{Alnum}]+");
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final int MAX_WORDS_PER_TERM = 8;
+    private static final int PRECOMPUTED_PREFIX_LENGTH = 3;
+    private static final long FULL_REFRESH_NANOS = 30_000_000_000L;
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private final EventRepository eventRepository;
+    private final TrendingService trendingService;
+
+    @Value("${sgerm.suggestions.max-entries:200000}")
+    private int maxEntries;
+
+    @Value("${sgerm.suggestions.top-k:10}")
+    private int topK;
+
+    private final ConcurrentSkipListMap<String, Candidate> index = new ConcurrentSkipListMap<>();
+    private final Map<Long, IndexedEvent> indexedEvents = new ConcurrentHashMap<>();
+    private final Map<String, Candidate> sharedCandidates = new ConcurrentHashMap<>();
+    private final Set<String> dirtyPrefixes = ConcurrentHashMap.newKeySet();
+    private final Object writeLock = new Object();
+    private volatile Map<String, List<Suggestion>> shortPrefixResults = Map.of();
+    private volatile long lastFullRefreshNanos;
+
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+    private final AtomicLong maxQueryNanos = new AtomicLong();
+    private final LongAdder precomputedHits = new LongAdder();
+    private final LongAdder fullRefreshes = new LongAdder();
+    private final LongAdder prefixRefreshes = new LongAdder();
+    private final LongAdder rejectedEvents = new LongAdder();
+
+    /**
+     * Obtiene las sugerencias para un prefijo, ordenadas por popularidad
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        long start = System.nanoTime();
+        String prefix = normalize(query);
+        int size = Math.max(1, Math.min(limit, topK));
+        List<Suggestion> result;
+
+        if (prefix.isEmpty()) {
+            result = List.of();
+        } else if (prefix.length() <= PRECOMPUTED_PREFIX_LENGTH) {
+            // Un prefijo sin lista precalculada no tiene ninguna clave en el índice
+            List<Suggestion> precomputed = shortPrefixResults.getOrDefault(prefix, List.of());
+            precomputedHits.increment();
+            result = precomputed.subList(0, Math.min(size, precomputed.size()));
+        } else {
+            result = search(prefix, size);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        queries.increment();
+        queryNanos.add(elapsed);
+        maxQueryNanos.accumulateAndGet(elapsed, Math::max);
+        return result;
+    }
+
+    /**
+     * Reindexa un evento tras crearlo, editarlo o cambiar de estado.
+     * Los datos se copian dentro de la transacción y se aplican tras el commit.
+     */
+    public void onEventChanged(Event event) {
+        Long eventId = event.getId();
+        IndexedEvent next = event.getStatus() == EventStatus.PUBLISHED ? IndexedEvent.from(event) : null;
+        afterCommit(() -> apply(eventId, next));
+    }
+
+    /**
+     * Quita un evento del índice
+     */
+    public void removeEvent(Long eventId) {
+        afterCommit(() -> apply(eventId, null));
+    }
+
+    /**
+     * Carga el índice con los eventos publicados al arrancar
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadIndex() {
+        List<Event> events = eventRepository.findPublishedEventsWithOrganizer();
+        for (Event event : events) {
+            apply(event.getId(), IndexedEvent.from(event));
+        }
+        refreshAllPrefixes();
+        // log.info("Índice de sugerencias cargado con {} eventos", events.size());
+    }
+
+    /**
+     * Recalcula el top-K de los prefijos cortos afectados por cambios recientes, o de
+     * todos ellos si la última pasada completa es antigua
+     */
+    @Scheduled(fixedDelayString = "${sgerm.suggestions.refresh-interval-ms:5000}")
+    public void refreshPrefixes() {
+        if (System.nanoTime() - lastFullRefreshNanos >= FULL_REFRESH_NANOS) {
+            refreshAllPrefixes();
+            return;
+        }
+        if (dirtyPrefixes.isEmpty()) {
+            return;
+        }
+        List<String> prefixes = new ArrayList<>(dirtyPrefixes);
+        dirtyPrefixes.removeAll(prefixes);
+
+        Map<String, List<Suggestion>> results = new HashMap<>(shortPrefixResults);
+        for (String prefix : prefixes) {
+            List<Suggestion> suggestions = search(prefix, topK);
+            if (suggestions.isEmpty()) {
+                results.remove(prefix);
+            } else {
+                results.put(prefix, suggestions);
+            }
+        }
+        shortPrefixResults = results;
+        prefixRefreshes.add(prefixes.size());
+    }
+
+    /**
+     * Obtiene las métricas del índice de sugerencias
+     */
+    public Map<String, Object> getStats() {
+        long count = queries.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("indexedEvents", indexedEvents.size());
+        stats.put("keys", index.size());
+        stats.put("maxKeys", maxEntries);
+        stats.put("estimatedBytes", estimatedBytes.get());
+        stats.put("queries", count);
+        stats.put("avgQueryMicros", count == 0 ? 0.0 : queryNanos.sum() / 1000.0 / count);
+        stats.put("maxQueryMicros", maxQueryNanos.get() / 1000.0);
+        stats.put("precomputedPrefixes", shortPrefixResults.size());
+        stats.put("precomputedHits", precomputedHits.sum());
+        stats.put("fullRefreshes", fullRefreshes.sum());
+        stats.put("prefixRefreshes", prefixRefreshes.sum());
+        stats.put("pendingPrefixes", dirtyPrefixes.size());
+        stats.put("rejectedEvents", rejectedEvents.sum());
+        return stats;
+    }
+
+    /**
+     * Normaliza un texto: sin tildes, en minúsculas y con un solo espacio entre palabras
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private List<Suggestion> search(String prefix, int size) {
+        PriorityQueue<Scored> heap = new PriorityQueue<>(Comparator.comparingDouble(Scored::score));
+        Set<Candidate> seen = new HashSet<>();
+
+        for (Candidate candidate : index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            if (seen.add(candidate)) {
+                offer(heap, new Scored(candidate, score(candidate)), size);
+            }
+        }
+        return ranked(heap);
+    }
+
+    /**
+     * Recalcula el top-K de todos los prefijos cortos en una sola pasada por el índice:
+     * cada candidato se puntúa una vez y se ofrece a los prefijos de sus claves.
+     */
+    private void refreshAllPrefixes() {
+        lastFullRefreshNanos = System.nanoTime();
+        dirtyPrefixes.clear();
+
+        Map<Candidate, Set<String>> prefixesByCandidate = new HashMap<>();
+        for (Map.Entry<String, Candidate> entry : index.entrySet()) {
+            addShortPrefixes(entry.getKey(), prefixesByCandidate.computeIfAbsent(entry.getValue(), c -> new HashSet<>()));
+        }
+
+        Map<String, PriorityQueue<Scored>> heaps = new HashMap<>();
+        prefixesByCandidate.forEach((candidate, prefixes) -> {
+            Scored scored = new Scored(candidate, score(candidate));
+            for (String prefix : prefixes) {
+                offer(heaps.computeIfAbsent(prefix, p -> new PriorityQueue<>(Comparator.comparingDouble(Scored::score))),
+                        scored, topK);
+            }
+        });
+
+        Map<String, List<Suggestion>> results = new HashMap<>(heaps.size() * 2);
+        heaps.forEach((prefix, heap) -> results.put(prefix, ranked(heap)));
+        shortPrefixResults = results;
+        fullRefreshes.increment();
+    }
+
+    private static void offer(PriorityQueue<Scored> heap, Scored scored, int size) {
+        if (heap.size() < size) {
+            heap.add(scored);
+        } else if (heap.peek().score() < scored.score()) {
+            heap.poll();
+            heap.add(scored);
+        }
+    }
+
+    private static List<Suggestion> ranked(PriorityQueue<Scored> heap) {
+        List<Scored> ranked = new ArrayList<>(heap);
+        ranked.sort(Comparator.comparingDouble(Scored::score).reversed());
+        return ranked.stream().map(scored -> scored.candidate().toSuggestion()).toList();
+    }
+
+    /**
+     * Añade los prefijos cortos del término de una clave del índice
+     */
+    private static void addShortPrefixes(String key, Set<String> prefixes) {
+        int termLength = key.indexOf(KEY_SEPARATOR);
+        for (int length = 1; length <= Math.min(PRECOMPUTED_PREFIX_LENGTH, termLength); length++) {
+            prefixes.add(key.substring(0, length));
+        }
+    }
+
+    private double score(Candidate candidate) {
+        if (candidate.type == Suggestion.Type.EVENT) {
+            return 1.0 + trendingService.getCurrentScore(candidate.id);
+        }
+        return candidate.references;
+    }
+
+    private void apply(Long eventId, IndexedEvent next) {
+        synchronized (writeLock) {
+            IndexedEvent previous = indexedEvents.remove(eventId);
+            if (previous != null) {
+                unindex(previous);
+            }
+            if (next != null) {
+                if (index.size() + next.estimatedKeys() > maxEntries) {
+                    rejectedEvents.increment();
+                } else {
+                    index(next);
+                    indexedEvents.put(eventId, next);
+                }
+            }
+        }
+    }
+
+    private void index(IndexedEvent event) {
+        Candidate eventCandidate = new Candidate(Suggestion.Type.EVENT, event.eventId, event.title);
+        putKeys(event.title, eventCandidate);
+
+        if (event.location != null) {
+            acquireShared("L" + normalize(event.location), Suggestion.Type.LOCATION, null, event.location);
+        }
+        if (event.organizerId != null) {
+            acquireShared("O" + event.organizerId, Suggestion.Type.ORGANIZER, event.organizerId, event.organizerName);
+        }
+    }
+
+    private void unindex(IndexedEvent event) {
+        removeKeys(event.title, new Candidate(Suggestion.Type.EVENT, event.eventId, event.title));
+
+        if (event.location != null) {
+            releaseShared("L" + normalize(event.location));
+        }
+        if (event.organizerId != null) {
+            releaseShared("O" + event.organizerId);
+        }
+    }
+
+    private void acquireShared(String sharedKey, Suggestion.Type type, Long id, String label) {
+        Candidate candidate = sharedCandidates.get(sharedKey);
+        if (candidate == null) {
+            candidate = new Candidate(type, id, label);
+            candidate.sharedKey = sharedKey;
+            sharedCandidates.put(sharedKey, candidate);
+            putKeys(label, candidate);
+        } else {
+            // Cambia su peso: sus prefijos cortos deben reordenarse
+            keysFor(candidate.label, candidate).forEach(key -> addShortPrefixes(key, dirtyPrefixes));
+        }
+        candidate.references++;
+    }
+
+    private void releaseShared(String sharedKey) {
+        Candidate candidate = sharedCandidates.get(sharedKey);
+        if (candidate == null) {
+            return;
+        }
+        if (--candidate.references <= 0) {
+            sharedCandidates.remove(sharedKey);
+            removeKeys(candidate.label, candidate);
+        } else {
+            keysFor(candidate.label, candidate).forEach(key -> addShortPrefixes(key, dirtyPrefixes));
+        }
+    }
+
+    private void putKeys(String label, Candidate candidate) {
+        for (String key : keysFor(label, candidate)) {
+            addShortPrefixes(key, dirtyPrefixes);
+            if (index.put(key, candidate) == null) {
+                estimatedBytes.addAndGet(key.length() * 2L + ENTRY_OVERHEAD_BYTES);
+            }
+        }
+    }
+
+    private void removeKeys(String label, Candidate candidate) {
+        for (String key : keysFor(label, candidate)) {
+            addShortPrefixes(key, dirtyPrefixes);
+            if (index.remove(key) != null) {
+                estimatedBytes.addAndGet(-(key.length() * 2L + ENTRY_OVERHEAD_BYTES));
+            }
+        }
+    }
+
+    /**
+     * Genera una clave por cada palabra del texto: el sufijo normalizado que empieza
+     * en esa palabra, seguido de un identificador único del candidato.
+     */
+    private static Set<String> keysFor(String label, Candidate candidate) {
+        Set<String> keys = new LinkedHashSet<>();
+        String normalized = normalize(label);
+        String suffix = KEY_SEPARATOR + candidate.identity();
+        int start = 0;
+        int words = 0;
+        while (start < normalized.length() && words < MAX_WORDS_PER_TERM) {
+            String term = normalized.substring(start, Math.min(normalized.length(), start + MAX_TERM_LENGTH));
+            keys.add(term + suffix);
+            words++;
+            int nextSpace = normalized.indexOf(' ', start);
+            if (nextSpace < 0) {
+                break;
+            }
+            start = nextSpace + 1;
+        }
+        return keys;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Scored(Candidate candidate, double score) {}
+
+    /**
+     * Datos de un evento necesarios para indexarlo, copiados de la entidad
+     */
+    private record IndexedEvent(Long eventId, String title, String location, Long organizerId, String organizerName) {
+
+        static IndexedEvent from(Event event) {
+            Long organizerId = event.getOrganizer() != null ? event.getOrganizer().getId() : null;
+            String organizerName = organizerId != null ? event.getOrganizer().getFullName() : null;
+            return new IndexedEvent(event.getId(), event.getTitle(), event.getLocation(), organizerId, organizerName);
+        }
+
+        int estimatedKeys() {
+            return 3 * MAX_WORDS_PER_TERM;
+        }
+    }
+
+    /**
+     * Elemento sugerible. Las ubicaciones y organizadores se comparten entre
+     * eventos y su peso es el número de eventos publicados que los referencian.
+     */
+    private static final class Candidate {
+        private final Suggestion.Type type;
+        private final Long id;
+        private final String label;
+        private String sharedKey;
+        private volatile int references;
+
+        private Candidate(Suggestion.Type type, Long id, String label) {
+            this.type = type;
+            this.id = id;
+            this.label = label;
+        }
+
+        private String identity() {
+            return sharedKey != null ? sharedKey : "E" + id;
+        }
+
+        private Suggestion toSuggestion() {
+            return new Suggestion(type, id, label);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Candidate)) return false;
+            return identity().equals(((Candidate) o).identity());
+        }
+
+        @Override
+        public int hashCode() {
+            return identity().hashCode();
+        }
+    }
+}
@@ -0,0 +1,572 @@
+package com.sgerm.eventmanagement.service;
+
+import com.sgerm.eventmanagement.dto.TagCount;
+import com.sgerm.eventmanagement.model.Event;
+import com.sgerm.eventmanagement.model.Tag;
+import com.sgerm.eventmanagement.repository.EventRepository;
+import com.sgerm.eventmanagement.repository.TagRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Servicio de tags normalizados.
+ *
+ * Mantiene en memoria un índice invertido tag -> IDs de evento (listas ordenadas)
+ * y los conteos de co-ocurrencia entre tags. Las búsquedas con varios tags se
+ * resuelven intersectando (AND) o mezclando (OR) las listas ordenadas.
+ *
+ * Cada nodo tiene su propio índice: los cambios se publican por Redis pub/sub y el
+ * resto de nodos recargan los tags del evento desde la base de datos. Si un mensaje
+ * se pierde, la recarga periódica completa corrige el índice.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class TagService {
+
+    private static final long[] EMPTY = new long[0];
+    private static final int MIGRATION_BATCH_SIZE = 500;
+    private static final String INSERT_EVENT_TAG_SQL = "INSERT INTO event_tags (event_id, tag_id) VALUES (?, ?)";
+
+    public static final String INVALIDATION_CHANNEL = "sgerm:index:tags";
+
+    private final TagRepository tagRepository;
+    private final EventRepository eventRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainerProvider;
+
+    @Value("${sgerm.cache.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    private TransactionTemplate newTransaction;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> tagNames = new HashMap<>();
+    private final Map<String, Long> tagIds = new HashMap<>();
+    private final Map<Long, long[]> postings = new HashMap<>();
+    private final Map<Long, long[]> tagsByEvent = new HashMap<>();
+    private final Map<Long, Map<Long, Integer>> coOccurrences = new HashMap<>();
+    // Cambios indexados durante una recarga (null si no hay ninguna en curso)
+    private Map<Long, Set<Tag>> changedDuringLoad;
+
+    /**
+     * Prepara las transacciones propias de la creación de tags y se suscribe a los
+     * cambios del índice publicados por otros nodos
+     */
+    @PostConstruct
+    void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        RedisMessageListenerContainer container = listenerContainerProvider.getIfAvailable();
+        if (redisEnabled && container != null) {
+            container.addMessageListener(
+                    (message, pattern) -> onRemoteChange(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic(INVALIDATION_CHANNEL));
+        }
+    }
+
+    /**
+     * Normaliza un texto de tags: separa por comas, punto y coma o '#',
+     * pasa a minúsculas y elimina duplicados conservando el orden.
+     */
+    public static Set<String> parseTags(String text) {
+        Set<String> names = new LinkedHashSet<>();
+        if (text == null) {
+            return names;
+        }
+        for (String raw : text.split("[,;#]")) {
+            String name = raw.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+            if (!name.isEmpty()) {
+                names.add(name.length() > Tag.MAX_NAME_LENGTH ? name.substring(0, Tag.MAX_NAME_LENGTH) : name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Sincroniza los tags normalizados de un evento a partir de su texto de tags.
+     * El índice en memoria se actualiza al confirmar la transacción.
+     */
+    public void syncEventTags(Event event) {
+        Set<String> names = parseTags(event.getTags());
+        Set<Tag> tags = new HashSet<>(internTags(names));
+
+        event.setEventTags(tags);
+        event.setTags(names.isEmpty() ? null : String.join(",", names));
+
+        // En eventos nuevos el ID se asigna al guardar, antes del commit
+        afterCommit(() -> {
+            if (event.getId() != null) {
+                indexEvent(event.getId(), tags);
+                publishChange(event.getId());
+            }
+        });
+    }
+
+    /**
+     * Quita un evento del índice
+     */
+    public void removeEvent(Long eventId) {
+        afterCommit(() -> {
+            indexEvent(eventId, Set.of());
+            publishChange(eventId);
+        });
+    }
+
+    /**
+     * Reconstruye periódicamente el índice por si se perdió algún cambio de otro nodo
+     */
+    @Scheduled(initialDelayString = "${sgerm.tags.reload-interval-ms:900000}",
+               fixedDelayString = "${sgerm.tags.reload-interval-ms:900000}")
+    @Transactional(readOnly = true)
+    public void reloadIndex() {
+        loadIndex();
+    }
+
+    /**
+     * Busca eventos que tengan todos los tags (matchAll) o alguno de ellos.
+     * Devuelve los IDs de más reciente a más antiguo.
+     */
+    public List<Long> findEventIds(Collection<String> names, boolean matchAll, int limit) {
+        List<long[]> lists = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (String name : parseTags(String.join(",", names))) {
+                Long tagId = tagIds.get(name);
+                long[] posting = tagId != null ? postings.get(tagId) : null;
+                if (posting == null || posting.length == 0) {
+                    if (matchAll) {
+                        return List.of();
+                    }
+                    continue;
+                }
+                lists.add(posting);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (lists.isEmpty()) {
+            return List.of();
+        }
+        long[] merged = matchAll ? intersect(lists) : union(lists);
+
+        List<Long> result = new ArrayList<>(Math.min(limit, merged.length));
+        for (int i = merged.length - 1; i >= 0 && result.size() < limit; i--) {
+            result.add(merged[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Obtiene la nube de tags: los tags más usados con su número de eventos
+     */
+    public List<TagCount> getTagCloud(int limit) {
+        lock.readLock().lock();
+        try {
+            return topCounts(postings.entrySet().stream()
+                    .map(entry -> new TagCount(tagNames.get(entry.getKey()), entry.getValue().length))
+                    .toList(), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene los tags que más aparecen junto a uno dado
+     */
+    public List<TagCount> getRelatedTags(String name, int limit) {
+        Set<String> parsed = parseTags(name);
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("El tag es obligatorio");
+        }
+        lock.readLock().lock();
+        try {
+            Long tagId = tagIds.get(parsed.iterator().next());
+            Map<Long, Integer> related = tagId != null ? coOccurrences.get(tagId) : null;
+            if (related == null) {
+                return List.of();
+            }
+            return topCounts(related.entrySet().stream()
+                    .map(entry -> new TagCount(tagNames.get(entry.getKey()), entry.getValue()))
+                    .toList(), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Migra los tags en texto de eventos antiguos a event_tags y carga el índice.
+     *
+     * Solo inserta filas en event_tags con un lote JDBC: la fila del evento no se toca,
+     * así que no cambian su versión ni su fecha de actualización (ETags, cachés y
+     * plantillas de entradas siguen válidas). Cada bloque va en su propia transacción;
+     * si otro nodo migra el mismo bloque a la vez, el duplicado se descarta.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void migrateAndLoad() {
+        int migrated = 0;
+        long afterId = 0;
+        List<Object[]> batch;
+        do {
+            batch = eventRepository.findUnindexedTagTexts(afterId, PageRequest.of(0, MIGRATION_BATCH_SIZE));
+            List<long[]> rows = new ArrayList<>();
+            for (Object[] event : batch) {
+                Long eventId = (Long) event[0];
+                afterId = eventId;
+                // Los textos sin tags válidos no generan filas y se vuelven a ver en el siguiente arranque
+                for (Tag tag : internTags(parseTags((String) event[1]))) {
+                    rows.add(new long[] {eventId, tag.getId()});
+                }
+            }
+            if (!rows.isEmpty()) {
+                try {
+                    newTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_EVENT_TAG_SQL, rows,
+                            rows.size(), (ps, row) -> {
+                                ps.setLong(1, row[0]);
+                                ps.setLong(2, row[1]);
+                            }));
+                    migrated += batch.size();
+                } catch (DataIntegrityViolationException e) {
+                    // Otro nodo migró estos eventos a la vez
+                }
+            }
+        } while (batch.size() == MIGRATION_BATCH_SIZE);
+
+        // if (migrated > 0) {
+        //     log.info("Migrados los tags de {} eventos a event_tags", migrated);
+        // }
+        loadIndex();
+    }
+
+    /**
+     * Reconstruye el índice en memoria desde la base de datos. Los cambios indexados
+     * mientras se consulta se vuelven a aplicar sobre el índice recargado.
+     */
+    private synchronized void loadIndex() {
+        setChangedDuringLoad(new HashMap<>());
+        Map<Long, List<Long>> eventTagIds = new HashMap<>();
+        List<Tag> allTags;
+        try {
+            for (Object[] pair : tagRepository.findAllEventTagPairs()) {
+                eventTagIds.computeIfAbsent((Long) pair[0], id -> new ArrayList<>()).add((Long) pair[1]);
+            }
+            allTags = tagRepository.findAll();
+        } catch (RuntimeException e) {
+            setChangedDuringLoad(null);
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            tagNames.clear();
+            tagIds.clear();
+            postings.clear();
+            tagsByEvent.clear();
+            coOccurrences.clear();
+            allTags.forEach(this::registerTag);
+
+            Map<Long, List<Long>> eventsByTag = new HashMap<>();
+            eventTagIds.forEach((eventId, ids) -> {
+                long[] sorted = ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+                tagsByEvent.put(eventId, sorted);
+                adjustCoOccurrences(sorted, 1);
+                for (long tagId : sorted) {
+                    eventsByTag.computeIfAbsent(tagId, id -> new ArrayList<>()).add(eventId);
+                }
+            });
+            eventsByTag.forEach((tagId, eventIds) ->
+                    postings.put(tagId, eventIds.stream().mapToLong(Long::longValue).sorted().toArray()));
+
+            // Los cambios confirmados durante la consulta pueden faltar o ser más recientes
+            Map<Long, Set<Tag>> changed = changedDuringLoad;
+            changedDuringLoad = null;
+            changed.forEach(this::indexEvent);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setChangedDuringLoad(Map<Long, Set<Tag>> changed) {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene o crea los tags con los nombres dados. Cada tag nuevo se inserta en su
+     * propia transacción: si otra petición (de este u otro nodo) lo creó a la vez, la
+     * restricción única falla solo en esa transacción y el tag se vuelve a leer.
+     */
+    private List<Tag> internTags(Set<String> names) {
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Tag> existing = findByName(names);
+        List<String> missing = names.stream().filter(name -> !existing.containsKey(name)).toList();
+        if (!missing.isEmpty()) {
+            for (String name : missing) {
+                try {
+                    newTransaction.executeWithoutResult(status -> tagRepository.saveAndFlush(new Tag(name)));
+                } catch (DataIntegrityViolationException e) {
+                    // Creado por otra petición concurrente
+                }
+            }
+            existing.putAll(findByName(missing));
+        }
+
+        List<Tag> tags = new ArrayList<>(names.size());
+        for (String name : names) {
+            Tag tag = existing.get(name);
+            if (tag == null) {
+                throw new IllegalStateException("No se pudo crear el tag: " + name);
+            }
+            tags.add(tag);
+        }
+        return tags;
+    }
+
+    private Map<String, Tag> findByName(Collection<String> names) {
+        Map<String, Tag> found = new HashMap<>();
+        for (Tag tag : tagRepository.findByNameIn(names)) {
+            found.put(tag.getName(), tag);
+        }
+        return found;
+    }
+
+    private void publishChange(Long eventId) {
+        StringRedisTemplate redis = redisEnabled ? redisTemplateProvider.getIfAvailable() : null;
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.convertAndSend(INVALIDATION_CHANNEL, eventId.toString());
+        } catch (RuntimeException e) {
+            // log.warn("No se pudo publicar el cambio de tags del evento {}: {}", eventId, e.getMessage());
+        }
+    }
+
+    /**
+     * Recarga desde la base de datos los tags de un evento modificado en otro nodo.
+     * El nodo que publica también recibe el mensaje; recargar es idempotente.
+     */
+    private void onRemoteChange(String body) {
+        try {
+            Long eventId = Long.valueOf(body);
+            indexEvent(eventId, new HashSet<>(tagRepository.findByEventId(eventId)));
+        } catch (RuntimeException e) {
+            // log.warn("No se pudo aplicar el cambio de tags {}: {}", body, e.getMessage());
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Sustituye los tags indexados de un evento, actualizando listas y co-ocurrencias
+     */
+    private void indexEvent(Long eventId, Set<Tag> tags) {
+        long[] newIds = tags.stream().mapToLong(Tag::getId).sorted().distinct().toArray();
+
+        lock.writeLock().lock();
+        try {
+            if (changedDuringLoad != null) {
+                changedDuringLoad.put(eventId, tags);
+            }
+            tags.forEach(this::registerTag);
+            long[] oldIds = tagsByEvent.getOrDefault(eventId, EMPTY);
+
+            for (long tagId : oldIds) {
+                if (Arrays.binarySearch(newIds, tagId) < 0) {
+                    long[] posting = remove(postings.getOrDefault(tagId, EMPTY), eventId);
+                    if (posting.length == 0) {
+                        postings.remove(tagId);
+                    } else {
+                        postings.put(tagId, posting);
+                    }
+                }
+            }
+            for (long tagId : newIds) {
+                if (Arrays.binarySearch(oldIds, tagId) < 0) {
+                    postings.put(tagId, insert(postings.getOrDefault(tagId, EMPTY), eventId));
+                }
+            }
+
+            adjustCoOccurrences(oldIds, -1);
+            adjustCoOccurrences(newIds, 1);
+            if (newIds.length == 0) {
+                tagsByEvent.remove(eventId);
+            } else {
+                tagsByEvent.put(eventId, newIds);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void registerTag(Tag tag) {
+        tagNames.put(tag.getId(), tag.getName());
+        tagIds.put(tag.getName(), tag.getId());
+    }
+
+    private void adjustCoOccurrences(long[] ids, int delta) {
+        for (long a : ids) {
+            for (long b : ids) {
+                if (a == b) {
+                    continue;
+                }
+                Map<Long, Integer> related = coOccurrences.computeIfAbsent(a, id -> new HashMap<>());
+                int count = related.getOrDefault(b, 0) + delta;
+                if (count <= 0) {
+                    related.remove(b);
+                } else {
+                    related.put(b, count);
+                }
+            }
+        }
+    }
+
+    private static List<TagCount> topCounts(List<TagCount> counts, int limit) {
+        return counts.stream()
+                .sorted(Comparator.comparingInt(TagCount::getCount).reversed()
+                        .thenComparing(TagCount::getName))
+                .limit(limit)
+                .toList();
+    }
+
+    private static long[] insert(long[] sorted, long value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index >= 0) {
+            return sorted;
+        }
+        int position = -index - 1;
+        long[] result = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, result, 0, position);
+        result[position] = value;
+        System.arraycopy(sorted, position, result, position + 1, sorted.length - position);
+        return result;
+    }
+
+    private static long[] remove(long[] sorted, long value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return sorted;
+        }
+        long[] result = new long[sorted.length - 1];
+        System.arraycopy(sorted, 0, result, 0, index);
+        System.arraycopy(sorted, index + 1, result, index, sorted.length - index - 1);
+        return result;
+    }
+
+    /**
+     * Intersección de listas ordenadas: se recorre la más corta y se busca
+     * cada valor en las demás, avanzando el inicio de la búsqueda.
+     */
+    private static long[] intersect(List<long[]> lists) {
+        List<long[]> ordered = new ArrayList<>(lists);
+        ordered.sort(Comparator.comparingInt(list -> list.length));
+        long[] smallest = ordered.get(0);
+        int[] cursors = new int[ordered.size()];
+        long[] result = new long[smallest.length];
+        int size = 0;
+
+        outer:
+        for (long value : smallest) {
+            for (int i = 1; i < ordered.size(); i++) {
+                long[] other = ordered.get(i);
+                int index = Arrays.binarySearch(other, cursors[i], other.length, value);
+                if (index < 0) {
+                    cursors[i] = -index - 1;
+                    if (cursors[i] >= other.length) {
+                        break outer;
+                    }
+                    continue outer;
+                }
+                cursors[i] = index + 1;
+            }
+            result[size++] = value;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Unión de listas ordenadas mediante mezcla de k vías
+     */
+    private static long[] union(List<long[]> lists) {
+        PriorityQueue<int[]> heads = new PriorityQueue<>(
+                Comparator.comparingLong(head -> lists.get(head[0])[head[1]]));
+        int total = 0;
+        for (int i = 0; i < lists.size(); i++) {
+            heads.add(new int[] {i, 0});
+            total += lists.get(i).length;
+        }
+
+        long[] result = new long[total];
+        int size = 0;
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            long value = lists.get(head[0])[head[1]];
+            if (size == 0 || result[size - 1] != value) {
+                result[size++] = value;
+            }
+            if (++head[1] < lists.get(head[0]).length) {
+                heads.add(head);
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
@@ -0,0 +1,494 @@
+package com.sgerm.eventmanagement.service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.ColorConstants;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Paragraph;
+import com.sgerm.eventmanagement.model.Booking;
+import com.sgerm.eventmanagement.config.NodeIdentity;
+import com.sgerm.eventmanagement.model.BookingStatus;
+import com.sgerm.eventmanagement.model.Event;
+import com.sgerm.eventmanagement.model.User;
+import com.sgerm.eventmanagement.repository.BookingRepository;
+import com.sgerm.eventmanagement.repository.EventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generación de entradas en PDF.
+ *
+ * La parte común de la entrada (datos del evento) se maqueta una sola vez por versión
+ * del evento y se guarda como plantilla; cada entrada solo estampa sobre ella los datos
+ * de la reserva y el código QR, dibujado como vectores. Las fuentes se cargan una vez.
+ *
+ * Los lotes de un evento completo se leen por páginas de clave, se renderizan en
+ * paralelo en un pool acotado y se escriben en un ZIP en disco a medida que terminan.
+ * Los lotes y sus ficheros son locales al nodo (ver NodeIdentity).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TicketRenderService {
+
+    private static final Set<BookingStatus> TICKET_STATUSES = Set.of(BookingStatus.CONFIRMED, BookingStatus.USED);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final PageSize TICKET_SIZE = PageSize.A6.rotate();
+    private static final float QR_SIZE = 110;
+    private static final float MARGIN = 24;
+
+    private final BookingRepository bookingRepository;
+    private final EventRepository eventRepository;
+    private final NodeIdentity nodeIdentity;
+
+    @Value("${sgerm.tickets.render-threads:0}")
+    private int renderThreads;
+
+    @Value("${sgerm.tickets.batch-queue-capacity:5}")
+    private int batchQueueCapacity;
+
+    @Value("${sgerm.tickets.page-size:200}")
+    private int pageSize;
+
+    @Value("${sgerm.tickets.template-cache-size:100}")
+    private int templateCacheSize;
+
+    @Value("${sgerm.tickets.retention-minutes:120}")
+    private long retentionMinutes;
+
+    private final Map<String, byte[]> templates = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+    private final LongAdder templateHits = new LongAdder();
+    private final LongAdder templateMisses = new LongAdder();
+    private final LongAdder rendered = new LongAdder();
+
+    private FontProgram regularFont;
+    private FontProgram boldFont;
+    private ExecutorService renderPool;
+    private ThreadPoolExecutor batchExecutor;
+
+    /**
+     * Estados de un lote de entradas
+     */
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        regularFont = FontProgramFactory.createFont(StandardFonts.HELVETICA);
+        boldFont = FontProgramFactory.createFont(StandardFonts.HELVETICA_BOLD);
+
+        int threads = renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+        renderPool = Executors.newFixedThreadPool(threads, namedThreads("ticket-render-"));
+        // Un único coordinador: los lotes se procesan de uno en uno y los demás esperan en cola
+        batchExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchQueueCapacity), namedThreads("ticket-batch-"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        batchExecutor.shutdownNow();
+        renderPool.shutdownNow();
+    }
+
+    /**
+     * Genera el PDF de la entrada de una reserva
+     */
+    public byte[] renderTicket(Booking booking) {
+        byte[] template = getTemplate(booking.getEvent());
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(template.length + 4096);
+        stamp(template, booking, buffer);
+        rendered.increment();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Genera la entrada de una reserva confirmada del usuario
+     */
+    public byte[] renderUserTicket(Long bookingId, User user) {
+        Booking booking = bookingRepository.findByIdsAndUserWithEvent(List.of(bookingId), user).stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Reserva no encontrada"));
+        if (!TICKET_STATUSES.contains(booking.getStatus())) {
+            throw new IllegalStateException("La reserva no está confirmada");
+        }
+        return renderTicket(booking);
+    }
+
+    /**
+     * Encola la generación de todas las entradas confirmadas de un evento
+     */
+    public Map<String, Object> startEventBatch(Long eventId, User user) {
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new IllegalArgumentException("Evento no encontrado"));
+        if (!user.getRole().isAdmin() && !event.getOrganizer().getId().equals(user.getId())) {
+            throw new IllegalArgumentException("No tienes permisos para generar las entradas de este evento");
+        }
+
+        long total = 0;
+        for (BookingStatus status : TICKET_STATUSES) {
+            total += bookingRepository.countByEventAndStatus(event, status);
+        }
+        BatchJob job = new BatchJob(nodeIdentity.newJobId(), eventId, user.getId(), total);
+        jobs.put(job.id, job);
+
+        try {
+            batchExecutor.execute(() -> runBatch(job, event));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new IllegalStateException("Hay demasiados lotes de entradas en cola, inténtalo más tarde");
+        }
+        return job.toMap();
+    }
+
+    /**
+     * Obtiene el estado y el progreso de un lote
+     */
+    public Map<String, Object> getJobStatus(String jobId, User user) {
+        return getOwnJob(jobId, user).toMap();
+    }
+
+    /**
+     * Obtiene el ZIP de un lote terminado
+     */
+    public Path getCompletedFile(String jobId, User user) {
+        BatchJob job = getOwnJob(jobId, user);
+        if (job.status != JobStatus.COMPLETED) {
+            throw new IllegalStateException("Las entradas todavía no están disponibles");
+        }
+        return job.file;
+    }
+
+    /**
+     * Obtiene las métricas del generador
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (templates) {
+            stats.put("templates", templates.size());
+        }
+        stats.put("templateHits", templateHits.sum());
+        stats.put("templateMisses", templateMisses.sum());
+        stats.put("rendered", rendered.sum());
+        stats.put("queuedBatches", batchExecutor.getQueue().size());
+        stats.put("jobs", jobs.size());
+        return stats;
+    }
+
+    /**
+     * Elimina los lotes terminados y sus ficheros al cumplirse la retención
+     */
+    @Scheduled(fixedDelay = 300000)
+    public void purgeFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> {
+            if (job.finishedAt == null || job.finishedAt.isAfter(cutoff)) {
+                return false;
+            }
+            deleteQuietly(job.file);
+            return true;
+        });
+    }
+
+    private void runBatch(BatchJob job, Event event) {
+        job.status = JobStatus.RUNNING;
+        Path file = null;
+        try {
+            file = Files.createTempFile("tickets-" + job.eventId + "-", ".zip");
+            byte[] template = getTemplate(event);
+            try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+                long afterId = 0;
+                List<Booking> page;
+                do {
+                    page = bookingRepository.findTicketPage(job.eventId, TICKET_STATUSES, afterId,
+                            PageRequest.of(0, pageSize));
+                    // Solo hay una página en vuelo: la memoria queda acotada por su tamaño
+                    List<Future<byte[]>> futures = new ArrayList<>(page.size());
+                    for (Booking booking : page) {
+                        futures.add(renderPool.submit(() -> {
+                            ByteArrayOutputStream buffer = new ByteArrayOutputStream(template.length + 4096);
+                            stamp(template, booking, buffer);
+                            return buffer.toByteArray();
+                        }));
+                    }
+                    for (int i = 0; i < page.size(); i++) {
+                        zip.putNextEntry(new ZipEntry(page.get(i).getBookingCode() + ".pdf"));
+                        zip.write(futures.get(i).get());
+                        zip.closeEntry();
+                        rendered.increment();
+                        job.renderedTickets++;
+                    }
+                    if (!page.isEmpty()) {
+                        afterId = page.get(page.size() - 1).getId();
+                    }
+                } while (page.size() == pageSize);
+            }
+            job.file = file;
+            job.status = JobStatus.COMPLETED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failBatch(job, file, e);
+        } catch (IOException | ExecutionException | RuntimeException e) {
+            failBatch(job, file, e);
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private void failBatch(BatchJob job, Path file, Exception e) {
+        // log.error("Error al generar las entradas del evento {}: {}", job.eventId, e.getMessage(), e);
+        deleteQuietly(file);
+        job.error = "Error al generar las entradas";
+        job.status = JobStatus.FAILED;
+    }
+
+    /**
+     * Plantilla del evento. La clave es el hash de los campos que se imprimen, así que
+     * solo se maqueta de nuevo cuando cambia alguno de ellos (y no con cualquier cambio
+     * del evento) y nunca se reutiliza una plantilla obsoleta.
+     */
+    private byte[] getTemplate(Event event) {
+        String key = event.getId() + ":" + templateHash(event);
+        synchronized (templates) {
+            byte[] template = templates.get(key);
+            if (template != null) {
+                templateHits.increment();
+                return template;
+            }
+        }
+
+        templateMisses.increment();
+        byte[] template = buildTemplate(event);
+        synchronized (templates) {
+            templates.put(key, template);
+            while (templates.size() > templateCacheSize) {
+                templates.remove(templates.keySet().iterator().next());
+            }
+        }
+        return template;
+    }
+
+    /**
+     * SHA-256 de los campos del evento que aparecen en la plantilla
+     */
+    private static String templateHash(Event event) {
+        String printed = String.join("\n", event.getTitle(), String.valueOf(event.getStartDate()),
+                String.valueOf(event.getEndDate()), event.getLocation(), String.valueOf(event.getVenueAddress()));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(printed.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Maqueta la parte fija de la entrada: datos del evento y etiquetas
+     */
+    private byte[] buildTemplate(Event event) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+        PdfDocument pdf = new PdfDocument(new PdfWriter(buffer));
+        try (Document document = new Document(pdf, TICKET_SIZE)) {
+            document.setMargins(MARGIN, MARGIN, MARGIN, MARGIN);
+            PdfFont regular = PdfFontFactory.createFont(regularFont, PdfEncodings.WINANSI);
+            PdfFont bold = PdfFontFactory.createFont(boldFont, PdfEncodings.WINANSI);
+
+            document.add(new Paragraph(event.getTitle()).setFont(bold).setFontSize(15).setMarginBottom(4));
+            document.add(new Paragraph(event.getStartDate().format(DATE_FORMATTER) + " - "
+                    + event.getEndDate().format(DATE_FORMATTER)).setFont(regular).setFontSize(9).setMargin(0));
+            String location = event.getVenueAddress() != null
+                    ? event.getLocation() + ", " + event.getVenueAddress() : event.getLocation();
+            document.add(new Paragraph(location).setFont(regular).setFontSize(9).setMargin(0));
+
+            PdfCanvas canvas = new PdfCanvas(pdf.getFirstPage());
+            float separator = MARGIN + QR_SIZE + 12;
+            canvas.saveState()
+                    .setStrokeColor(ColorConstants.GRAY)
+                    .setLineDash(new float[] {3, 3}, 0)
+                    .moveTo(MARGIN, separator)
+                    .lineTo(TICKET_SIZE.getWidth() - MARGIN, separator)
+                    .stroke()
+                    .restoreState();
+            canvas.beginText().setFontAndSize(regular, 8).setFillColor(ColorConstants.GRAY);
+            canvas.moveText(MARGIN, MARGIN + 88).showText("ASISTENTE");
+            canvas.moveText(0, -36).showText("RESERVA");
+            canvas.moveText(0, -36).showText("ENTRADAS");
+            canvas.endText();
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Estampa los datos de la reserva y el código QR sobre una copia de la plantilla
+     */
+    private void stamp(byte[] template, Booking booking, OutputStream out) {
+        try (PdfDocument pdf = new PdfDocument(new PdfReader(new ByteArrayInputStream(template)), new PdfWriter(out))) {
+            PdfFont bold = PdfFontFactory.createFont(boldFont, PdfEncodings.WINANSI);
+            PdfCanvas canvas = new PdfCanvas(pdf.getFirstPage());
+
+            canvas.beginText().setFontAndSize(bold, 12);
+            canvas.moveText(MARGIN, MARGIN + 74).showText(booking.getUser().getFullName());
+            canvas.moveText(0, -36).showText(booking.getBookingCode());
+            canvas.moveText(0, -36).showText(String.valueOf(booking.getTicketQuantity()));
+            canvas.endText();
+
+            String qrContent = booking.getQrCode() != null ? booking.getQrCode() : booking.getBookingCode();
+            drawQrCode(canvas, qrContent, TICKET_SIZE.getWidth() - MARGIN - QR_SIZE, MARGIN, QR_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Dibuja el QR como rectángulos (una tira por cada tramo de módulos negros)
+     */
+    private static void drawQrCode(PdfCanvas canvas, String content, float x, float y, float size) {
+        BitMatrix matrix;
+        try {
+            matrix = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, 0, 0,
+                    Map.of(EncodeHintType.MARGIN, 0, EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M));
+        } catch (WriterException e) {
+            throw new IllegalStateException("No se pudo generar el código QR", e);
+        }
+
+        float module = size / matrix.getWidth();
+        canvas.saveState().setFillColor(ColorConstants.BLACK);
+        for (int row = 0; row < matrix.getHeight(); row++) {
+            float top = y + size - (row + 1) * module;
+            int column = 0;
+            while (column < matrix.getWidth()) {
+                if (!matrix.get(column, row)) {
+                    column++;
+                    continue;
+                }
+                int start = column;
+                while (column < matrix.getWidth() && matrix.get(column, row)) {
+                    column++;
+                }
+                canvas.rectangle(x + start * module, top, (column - start) * module, module);
+            }
+        }
+        canvas.fill().restoreState();
+    }
+
+    private BatchJob getOwnJob(String jobId, User user) {
+        BatchJob job = jobs.get(jobId);
+        if (job == null) {
+            nodeIdentity.requireLocal(jobId);
+        }
+        if (job == null || (!user.getRole().isAdmin() && !job.requesterId.equals(user.getId()))) {
+            throw new IllegalArgumentException("Lote de entradas no encontrado");
+        }
+        return job;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // log.warn("No se pudo eliminar el fichero temporal {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class BatchJob {
+        private final String id;
+        private final Long eventId;
+        private final Long requesterId;
+        private final long totalTickets;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile long renderedTickets;
+        private volatile Path file;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private BatchJob(String id, Long eventId, Long requesterId, long totalTickets) {
+            this.id = id;
+            this.eventId = eventId;
+            this.requesterId = requesterId;
+            this.totalTickets = totalTickets;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("id", id);
+            map.put("eventId", eventId);
+            map.put("status", status);
+            map.put("totalTickets", totalTickets);
+            map.put("renderedTickets", renderedTickets);
+            map.put("progress", totalTickets == 0 ? (status == JobStatus.COMPLETED ? 100 : 0)
+                    : Math.min(100, renderedTickets * 100 / totalTickets));
+            map.put("createdAt", createdAt);
+            map.put("finishedAt", finishedAt);
+            map.put("error", error);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.sgerm.eventmanagement.service;
+
+import com.sgerm.eventmanagement.model.Event;
+import com.sgerm.eventmanagement.model.EventCategory;
+import com.sgerm.eventmanagement.model.EventStatus;
+import com.sgerm.eventmanagement.model.EventTrendingScore;
+import com.sgerm.eventmanagement.repository.EventRepository;
+import com.sgerm.eventmanagement.repository.EventTrendingScoreRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Servicio de tendencias: mantiene en memoria una puntuación con decaimiento
+ * temporal por evento, alimentada por reservas y visitas, y un top-K global y
+ * por categoría que se actualiza de forma incremental.
+ *
+ * Se usa decaimiento "hacia adelante": cada aporte se pondera con
+ * exp(lambda * (t - landmark)), por lo que las puntuaciones nunca hay que
+ * recalcularlas al leer y el orden relativo entre eventos es estable.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrendingService {
+
+    private static final double MIN_SCORE = 0.01;
+    private static final double RENORMALIZE_AFTER_HALF_LIVES = 16;
+
+    private final EventTrendingScoreRepository trendingScoreRepository;
+    private final EventRepository eventRepository;
+
+    @Value("${sgerm.trending.half-life-hours:24}")
+    private double halfLifeHours;
+
+    @Value("${sgerm.trending.top-k:50}")
+    private int topK;
+
+    @Value("${sgerm.trending.booking-weight:5.0}")
+    private double bookingWeight;
+
+    @Value("${sgerm.trending.view-weight:1.0}")
+    private double viewWeight;
+
+    private final Map<Long, ScoreEntry> scores = new ConcurrentHashMap<>();
+    private final Leaderboard globalLeaderboard = new Leaderboard();
+    private final Map<EventCategory, Leaderboard> categoryLeaderboards = createCategoryLeaderboards();
+    private final ReadWriteLock landmarkLock = new ReentrantReadWriteLock();
+
+    private volatile long landmarkMillis = System.currentTimeMillis();
+
+    /**
+     * Registra una reserva para un evento
+     */
+    public void recordBooking(Event event) {
+        record(event, bookingWeight);
+    }
+
+    /**
+     * Registra una visita al detalle de un evento
+     */
+    public void recordView(Event event) {
+        record(event, viewWeight);
+    }
+
+    /**
+     * Actualiza la elegibilidad y la categoría de un evento tras un cambio de estado
+     * o una edición
+     */
+    public void onEventChanged(Event event) {
+        if (isRankable(event)) {
+            ScoreEntry entry = scores.get(event.getId());
+            if (entry != null) {
+                if (entry.category != event.getCategory()) {
+                    moveToCategory(entry, event.getCategory());
+                }
+                reposition(entry);
+            }
+        } else {
+            removeEvent(event.getId());
+        }
+    }
+
+    /**
+     * Elimina un evento del ranking
+     */
+    public void removeEvent(Long eventId) {
+        ScoreEntry entry = scores.remove(eventId);
+        if (entry != null) {
+            globalLeaderboard.remove(eventId);
+            categoryLeaderboards.get(entry.category).remove(eventId);
+        }
+    }
+
+    /**
+     * Obtiene los IDs de los eventos en tendencia, en orden (lectura O(K))
+     */
+    public List<Long> getTopEventIds(int limit) {
+        return globalLeaderboard.top(limit);
+    }
+
+    /**
+     * Obtiene los IDs de los eventos en tendencia de una categoría
+     */
+    public List<Long> getTopEventIds(EventCategory category, int limit) {
+        return categoryLeaderboards.get(category).top(limit);
+    }
+
+    /**
+     * Capacidad del ranking en memoria
+     */
+    public int getCapacity() {
+        return topK;
+    }
+
+    /**
+     * Obtiene la puntuación actual (ya decaída) de un evento
+     */
+    public double getCurrentScore(Long eventId) {
+        ScoreEntry entry = scores.get(eventId);
+        return entry == null ? 0.0 : toCurrentScore(entry.score, System.currentTimeMillis());
+    }
+
+    /**
+     * Persiste periódicamente las puntuaciones para sobrevivir a reinicios
+     */
+    @Scheduled(fixedDelayString = "${sgerm.trending.snapshot-interval-ms:300000}",
+               initialDelayString = "${sgerm.trending.snapshot-interval-ms:300000}")
+    @Transactional
+    public void snapshotScores() {
+        long now = System.currentTimeMillis();
+        if (now - landmarkMillis > halfLifeMillis() * RENORMALIZE_AFTER_HALF_LIVES) {
+            renormalize(now);
+        }
+
+        LocalDateTime snapshotAt = toLocalDateTime(now);
+        List<EventTrendingScore> snapshot = new ArrayList<>();
+        for (ScoreEntry entry : scores.values()) {
+            double current = toCurrentScore(entry.score, now);
+            if (current < MIN_SCORE) {
+                removeEvent(entry.eventId);
+            } else {
+                snapshot.add(new EventTrendingScore(entry.eventId, entry.category, current, snapshotAt));
+            }
+        }
+
+        if (snapshot.isEmpty()) {
+            trendingScoreRepository.deleteAllInBatch();
+        } else {
+            trendingScoreRepository.deleteByEventIdNotIn(snapshot.stream().map(EventTrendingScore::getEventId).toList());
+            trendingScoreRepository.saveAll(snapshot);
+        }
+        refillLeaderboards();
+        // log.debug("Instantánea de tendencias guardada: {} eventos", snapshot.size());
+    }
+
+    /**
+     * Restaura las puntuaciones desde la última instantánea al arrancar
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void restoreScores() {
+        List<EventTrendingScore> snapshot = trendingScoreRepository.findAll();
+        if (snapshot.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Event> events = new HashMap<>();
+        for (Event event : eventRepository.findAllById(snapshot.stream().map(EventTrendingScore::getEventId).toList())) {
+            events.put(event.getId(), event);
+        }
+
+        long now = System.currentTimeMillis();
+        landmarkLock.readLock().lock();
+        try {
+            for (EventTrendingScore saved : snapshot) {
+                Event event = events.get(saved.getEventId());
+                if (event == null || !isRankable(event)) {
+                    continue;
+                }
+                long snapshotMillis = saved.getSnapshotAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                double current = saved.getScore() * Math.exp(-lambda() * (now - snapshotMillis));
+                ScoreEntry entry = scores.computeIfAbsent(event.getId(), id -> new ScoreEntry(id, event.getCategory()));
+                entry.add(current * Math.exp(lambda() * (now - landmarkMillis)));
+                reposition(entry);
+            }
+        } finally {
+            landmarkLock.readLock().unlock();
+        }
+        // log.info("Puntuaciones de tendencia restauradas: {} eventos", scores.size());
+    }
+
+    /**
+     * Aplica un aporte ponderado a la puntuación de un evento
+     */
+    private void record(Event event, double weight) {
+        if (event == null || event.getId() == null || !isRankable(event)) {
+            return;
+        }
+        landmarkLock.readLock().lock();
+        try {
+            double increment = weight * Math.exp(lambda() * (System.currentTimeMillis() - landmarkMillis));
+            ScoreEntry entry = scores.computeIfAbsent(event.getId(), id -> new ScoreEntry(id, event.getCategory()));
+            entry.add(increment);
+            reposition(entry);
+        } finally {
+            landmarkLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pasa un evento al ranking de su nueva categoría. Con el cerrojo exclusivo ningún
+     * aporte concurrente lo vuelve a colocar en el ranking de la categoría anterior.
+     */
+    private void moveToCategory(ScoreEntry entry, EventCategory category) {
+        landmarkLock.writeLock().lock();
+        try {
+            categoryLeaderboards.get(entry.category).remove(entry.eventId);
+            entry.category = category;
+        } finally {
+            landmarkLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reubica un evento en el ranking global y en el de su categoría
+     */
+    private void reposition(ScoreEntry entry) {
+        double score = entry.score;
+        globalLeaderboard.offer(entry.eventId, score, topK);
+        categoryLeaderboards.get(entry.category).offer(entry.eventId, score, topK);
+    }
+
+    /**
+     * Mueve el punto de referencia del decaimiento para evitar desbordamientos
+     */
+    private void renormalize(long now) {
+        landmarkLock.writeLock().lock();
+        try {
+            double factor = Math.exp(-lambda() * (now - landmarkMillis));
+            for (ScoreEntry entry : scores.values()) {
+                entry.scale(factor);
+            }
+            landmarkMillis = now;
+            globalLeaderboard.clear();
+            categoryLeaderboards.values().forEach(Leaderboard::clear);
+            scores.values().forEach(this::reposition);
+        } finally {
+            landmarkLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Completa los rankings que quedaron por debajo de K tras eliminar eventos
+     */
+    private void refillLeaderboards() {
+        if (globalLeaderboard.size() >= topK && categoryLeaderboards.values().stream().allMatch(l -> l.size() >= topK)) {
+            return;
+        }
+        landmarkLock.readLock().lock();
+        try {
+            scores.values().forEach(this::reposition);
+        } finally {
+            landmarkLock.readLock().unlock();
+        }
+    }
+
+    private boolean isRankable(Event event) {
+        return event.getStatus() == EventStatus.PUBLISHED && event.getCategory() != null;
+    }
+
+    private double toCurrentScore(double landmarkScore, long now) {
+        return landmarkScore * Math.exp(-lambda() * (now - landmarkMillis));
+    }
+
+    private double lambda() {
+        return Math.log(2) / halfLifeMillis();
+    }
+
+    private double halfLifeMillis() {
+        return halfLifeHours * 3_600_000d;
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static Map<EventCategory, Leaderboard> createCategoryLeaderboards() {
+        Map<EventCategory, Leaderboard> leaderboards = new EnumMap<>(EventCategory.class);
+        for (EventCategory category : EventCategory.values()) {
+            leaderboards.put(category, new Leaderboard());
+        }
+        return Collections.unmodifiableMap(leaderboards);
+    }
+
+    /**
+     * Puntuación acumulada de un evento, en unidades del punto de referencia
+     */
+    private static final class ScoreEntry {
+        private final Long eventId;
+        private volatile EventCategory category;
+        private volatile double score;
+
+        private ScoreEntry(Long eventId, EventCategory category) {
+            this.eventId = eventId;
+            this.category = category;
+        }
+
+        private synchronized void add(double increment) {
+            score += increment;
+        }
+
+        private synchronized void scale(double factor) {
+            score *= factor;
+        }
+    }
+
+    /**
+     * Posición inmutable dentro de un ranking
+     */
+    private record Ranked(Long eventId, double score) implements Comparable<Ranked> {
+        @Override
+        public int compareTo(Ranked other) {
+            int byScore = Double.compare(other.score, score);
+            return byScore != 0 ? byScore : Long.compare(eventId, other.eventId);
+        }
+    }
+
+    /**
+     * Top-K concurrente: las lecturas recorren el conjunto ordenado sin bloqueo,
+     * las escrituras se serializan por ranking.
+     */
+    private static final class Leaderboard {
+        private final ConcurrentSkipListSet<Ranked> ranking = new ConcurrentSkipListSet<>();
+        private final Map<Long, Ranked> members = new ConcurrentHashMap<>();
+
+        private synchronized void offer(Long eventId, double score, int capacity) {
+            Ranked previous = members.get(eventId);
+            if (previous == null && ranking.size() >= capacity) {
+                Ranked last = ranking.last();
+                if (score <= last.score()) {
+                    return;
+                }
+            }
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            Ranked ranked = new Ranked(eventId, score);
+            ranking.add(ranked);
+            members.put(eventId, ranked);
+            while (ranking.size() > capacity) {
+                Ranked evicted = ranking.pollLast();
+                if (evicted != null) {
+                    members.remove(evicted.eventId());
+                }
+            }
+        }
+
+        private synchronized void remove(Long eventId) {
+            Ranked previous = members.remove(eventId);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+        }
+
+        private synchronized void clear() {
+            ranking.clear();
+            members.clear();
+        }
+
+        private int size() {
+            return members.size();
+        }
+
+        private List<Long> top(int limit) {
+            List<Long> result = new ArrayList<>(Math.min(limit, members.size()));
+            Iterator<Ranked> iterator = ranking.iterator();
+            while (iterator.hasNext() && result.size() < limit) {
+                result.add(iterator.next().eventId());
+            }
+            return result;
+        }
+    }
+}
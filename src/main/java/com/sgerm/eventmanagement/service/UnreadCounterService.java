@@ -0,0 +1,263 @@
+package com.sgerm.eventmanagement.service;
+
+import com.sgerm.eventmanagement.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Contadores de notificaciones no leídas por usuario en un hash de Redis.
+ *
+ * Se actualizan con incrementos al crear notificaciones y decrementos al marcarlas
+ * como leídas, siempre tras el commit. Un contador solo se modifica si ya existe: los
+ * que faltan se inicializan con un COUNT en la primera lectura. Como los incrementos y
+ * la inicialización no son atómicos respecto a la base de datos, una tarea periódica
+ * corrige las desviaciones. Sin Redis se consulta directamente la tabla.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UnreadCounterService {
+
+    private static final String KEY = "sgerm:notifications:unread";
+
+    /**
+     * Suma ARGV[2] al contador ARGV[1] solo si existe
+     */
+    private static final RedisScript<Long> ADD_IF_PRESENT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 1 then " +
+            "return redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2]) end return nil", Long.class);
+
+    /**
+     * Sustituye el contador ARGV[1] por ARGV[3] solo si sigue valiendo ARGV[2]
+     */
+    private static final RedisScript<Long> COMPARE_AND_SET = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[2] then " +
+            "redis.call('HSET', KEYS[1], ARGV[1], ARGV[3]) return 1 end return 0", Long.class);
+
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final NotificationRepository notificationRepository;
+
+    @Value("${sgerm.cache.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${sgerm.notifications.unread.reconcile-batch-size:500}")
+    private int reconcileBatchSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder increments = new LongAdder();
+    private final LongAdder decrements = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+    private final LongAdder reconciled = new LongAdder();
+    private final LongAdder corrections = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+
+    /**
+     * Obtiene el número de no leídas de un usuario. Si el contador no existe (o Redis
+     * no está disponible) se calcula con 'counter' y se guarda para las siguientes lecturas.
+     */
+    public long getUnreadCount(Long userId, LongSupplier counter) {
+        StringRedisTemplate redis = redisTemplate();
+        if (redis == null) {
+            return counter.getAsLong();
+        }
+        String field = userId.toString();
+        try {
+            Object value = redis.opsForHash().get(KEY, field);
+            if (value != null) {
+                hits.increment();
+                return Math.max(0, Long.parseLong(value.toString()));
+            }
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            // log.warn("No se pudo leer el contador de no leídas de {}: {}", userId, e.getMessage());
+            return counter.getAsLong();
+        }
+
+        misses.increment();
+        long count = counter.getAsLong();
+        try {
+            redis.opsForHash().putIfAbsent(KEY, field, Long.toString(count));
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+        }
+        return count;
+    }
+
+    /**
+     * Suma una notificación nueva al contador del usuario tras el commit
+     */
+    public void increment(Long userId) {
+        afterCommit(() -> add(List.of(userId), 1));
+    }
+
+    /**
+     * Suma una notificación nueva a cada usuario en una sola ida y vuelta a Redis
+     */
+    public void incrementAll(Collection<Long> userIds) {
+        afterCommit(() -> add(userIds, 1));
+    }
+
+    /**
+     * Resta 'count' notificaciones leídas del contador del usuario tras el commit
+     */
+    public void decrement(Long userId, long count) {
+        if (count > 0) {
+            afterCommit(() -> add(List.of(userId), -count));
+        }
+    }
+
+    /**
+     * Descarta el contador del usuario tras el commit; la siguiente lectura lo recalcula.
+     * Ponerlo a cero perdería los incrementos de notificaciones creadas a la vez.
+     */
+    public void reset(Long userId) {
+        afterCommit(() -> {
+            StringRedisTemplate redis = redisTemplate();
+            if (redis == null) {
+                return;
+            }
+            try {
+                redis.opsForHash().delete(KEY, userId.toString());
+                resets.increment();
+            } catch (RuntimeException e) {
+                redisErrors.increment();
+                // log.warn("No se pudo descartar el contador de no leídas de {}: {}", userId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Obtiene las métricas de los contadores
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("redisEnabled", redisEnabled);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("increments", increments.sum());
+        stats.put("decrements", decrements.sum());
+        stats.put("resets", resets.sum());
+        stats.put("reconciled", reconciled.sum());
+        stats.put("corrections", corrections.sum());
+        stats.put("redisErrors", redisErrors.sum());
+        return stats;
+    }
+
+    /**
+     * Recorre los contadores por bloques y corrige los que no coinciden con la tabla.
+     * Cada corrección solo se aplica si el contador no cambió durante la consulta.
+     */
+    @Scheduled(fixedDelayString = "${sgerm.notifications.unread.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        StringRedisTemplate redis = redisTemplate();
+        if (redis == null) {
+            return;
+        }
+        Map<String, String> batch = new HashMap<>();
+        try (Cursor<Map.Entry<Object, Object>> cursor = redis.opsForHash()
+                .scan(KEY, ScanOptions.scanOptions().count(reconcileBatchSize).build())) {
+            while (cursor.hasNext()) {
+                Map.Entry<Object, Object> entry = cursor.next();
+                batch.put(entry.getKey().toString(), entry.getValue().toString());
+                if (batch.size() >= reconcileBatchSize) {
+                    reconcileBatch(redis, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                reconcileBatch(redis, batch);
+            }
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            // log.warn("Error al conciliar los contadores de no leídas: {}", e.getMessage());
+        }
+    }
+
+    private void reconcileBatch(StringRedisTemplate redis, Map<String, String> counters) {
+        List<Long> userIds = counters.keySet().stream().map(Long::valueOf).toList();
+        Map<String, Long> actual = new HashMap<>();
+        for (Object[] row : notificationRepository.countUnreadByRecipientIds(userIds, LocalDateTime.now())) {
+            actual.put(row[0].toString(), (Long) row[1]);
+        }
+
+        for (Map.Entry<String, String> counter : counters.entrySet()) {
+            String expected = Long.toString(actual.getOrDefault(counter.getKey(), 0L));
+            if (!expected.equals(counter.getValue())) {
+                Long changed = redis.execute(COMPARE_AND_SET, List.of(KEY), counter.getKey(), counter.getValue(), expected);
+                if (changed != null && changed == 1) {
+                    corrections.increment();
+                }
+            }
+        }
+        reconciled.add(counters.size());
+    }
+
+    private void add(Collection<Long> userIds, long delta) {
+        StringRedisTemplate redis = redisTemplate();
+        if (redis == null || userIds.isEmpty()) {
+            return;
+        }
+        try {
+            if (userIds.size() == 1) {
+                redis.execute(ADD_IF_PRESENT, List.of(KEY), userIds.iterator().next().toString(), Long.toString(delta));
+            } else {
+                List<String> fields = new ArrayList<>(userIds.size());
+                userIds.forEach(userId -> fields.add(userId.toString()));
+                redis.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection strings = (StringRedisConnection) connection;
+                    for (String field : fields) {
+                        strings.eval(ADD_IF_PRESENT.getScriptAsString(), ReturnType.INTEGER, 1, KEY, field,
+                                Long.toString(delta));
+                    }
+                    return null;
+                });
+            }
+            (delta > 0 ? increments : decrements).add(userIds.size());
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            // log.warn("No se pudieron actualizar los contadores de no leídas: {}", e.getMessage());
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private StringRedisTemplate redisTemplate() {
+        return redisEnabled ? redisTemplateProvider.getIfAvailable() : null;
+    }
+}
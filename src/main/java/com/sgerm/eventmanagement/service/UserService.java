@@ -253,6 +253,24 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado con ID: " + userId));
     }
     
+    /**
+     * Obtiene usuarios por lote de IDs con una sola consulta
+     */
+    @Transactional(readOnly = true)
+    public List<User> getUsersByIds(List<Long> userIds) {
+        return userRepository.findAllById(userIds);
+    }
+    
+    /**
+     * Cambia la imagen de perfil de un usuario
+     */
+    public User updateProfileImage(Long userId, String imageUrl) {
+        User user = getUserById(userId);
+        user.setProfileImageUrl(imageUrl);
+        user.setUpdatedAt(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+    
     /**
      * Obtiene un usuario por username
      */
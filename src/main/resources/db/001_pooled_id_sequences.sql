@@ -0,0 +1,56 @@
+-- Migración de IDs IDENTITY a secuencias con bloques de 50 (optimizador pooled-lo).
+--
+-- Aplicar ANTES de arrancar la versión que usa las secuencias: si Hibernate
+-- (ddl-auto: update) las crea primero, empiezan en 1 y colisionan con los IDs
+-- existentes.
+--
+-- Con pooled-lo cada valor de la secuencia es el primer ID de un bloque
+-- [valor, valor + 49], por lo que la secuencia avanza de 50 en 50 y debe
+-- apuntar al primer ID libre. Las columnas dejan de tener IDENTITY o DEFAULT
+-- para que no haya dos orígenes de IDs.
+--
+-- La secuencia nunca retrocede: el siguiente valor es el mayor entre MAX(id) + 1
+-- y el final del último bloque ya reservado (last_value + 50), que puede estar en
+-- uso por un nodo aunque sus filas aún no existan. Por eso también se puede
+-- repetir con la aplicación en marcha.
+
+CREATE OR REPLACE FUNCTION sgerm_migrate_to_pooled_sequence(table_name text, sequence_name text)
+RETURNS void AS $$
+DECLARE
+    next_id bigint;
+    reserved_next bigint;
+BEGIN
+    EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY 50', sequence_name);
+    EXECUTE format('ALTER SEQUENCE %I INCREMENT BY 50', sequence_name);
+    EXECUTE format('SELECT COALESCE(MAX(id), 0) + 1 FROM %I', table_name) INTO next_id;
+    EXECUTE format('SELECT CASE WHEN is_called THEN last_value + 50 ELSE last_value END FROM %I', sequence_name)
+        INTO reserved_next;
+    PERFORM setval(sequence_name, GREATEST(next_id, reserved_next), false);
+    EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', table_name);
+    EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP DEFAULT', table_name);
+END;
+$$ LANGUAGE plpgsql;
+
+BEGIN;
+
+LOCK TABLE users, events, bookings, notifications, event_resources IN EXCLUSIVE MODE;
+
+SELECT sgerm_migrate_to_pooled_sequence('users', 'users_seq');
+SELECT sgerm_migrate_to_pooled_sequence('events', 'events_seq');
+SELECT sgerm_migrate_to_pooled_sequence('bookings', 'bookings_seq');
+SELECT sgerm_migrate_to_pooled_sequence('notifications', 'notifications_seq');
+SELECT sgerm_migrate_to_pooled_sequence('event_resources', 'event_resources_seq');
+
+-- La tabla tags puede no existir todavía: la crea 008 con su secuencia ya en bloques de 50
+DO $$
+BEGIN
+    IF to_regclass('tags') IS NOT NULL THEN
+        LOCK TABLE tags IN EXCLUSIVE MODE;
+        PERFORM sgerm_migrate_to_pooled_sequence('tags', 'tags_seq');
+    END IF;
+END;
+$$;
+
+COMMIT;
+
+DROP FUNCTION sgerm_migrate_to_pooled_sequence(text, text);
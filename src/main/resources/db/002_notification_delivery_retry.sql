@@ -0,0 +1,37 @@
+-- Estado de entrega y reintentos de las notificaciones.
+--
+-- Aplicar ANTES de arrancar la versión que usa estas columnas: con ddl-auto: update
+-- Hibernate no puede añadir columnas NOT NULL sin valor por defecto a una tabla con
+-- filas. Es idempotente y puede repetirse.
+--
+-- Las notificaciones con todos sus canales enviados quedan entregadas. Las que
+-- tienen algún canal pendiente y aún no han expirado se reintentan en el siguiente
+-- ciclo; el resto pasan directamente a fallidas para no reenviar avisos caducados.
+
+BEGIN;
+
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS delivery_status varchar(20) NOT NULL DEFAULT 'DELIVERED';
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS delivery_attempts integer NOT NULL DEFAULT 1;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS next_attempt_at timestamp;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS last_delivery_error varchar(500);
+
+UPDATE notifications
+SET delivery_status = 'RETRYING', next_attempt_at = now()
+WHERE (email_sent = false OR push_sent = false)
+  AND (expires_at IS NULL OR expires_at > now())
+  AND delivery_status = 'DELIVERED';
+
+UPDATE notifications
+SET delivery_status = 'DEAD_LETTER', next_attempt_at = NULL
+WHERE (email_sent = false OR push_sent = false)
+  AND delivery_status = 'DELIVERED';
+
+-- Los valores por defecto solo servían para rellenar las filas existentes
+ALTER TABLE notifications ALTER COLUMN delivery_status DROP DEFAULT;
+ALTER TABLE notifications ALTER COLUMN delivery_attempts DROP DEFAULT;
+
+-- Índice parcial: solo contiene las notificaciones con un intento pendiente
+CREATE INDEX IF NOT EXISTS idx_notification_next_attempt ON notifications (next_attempt_at)
+WHERE next_attempt_at IS NOT NULL;
+
+COMMIT;
@@ -0,0 +1,18 @@
+-- Agrupación de notificaciones de baja prioridad en resúmenes.
+--
+-- Aplicar ANTES de arrancar la versión que usa estas columnas (ver 002). Es
+-- idempotente y puede repetirse. Las notificaciones existentes quedan como
+-- resúmenes de una sola notificación y sin ventana abierta.
+
+BEGIN;
+
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS digest_count integer NOT NULL DEFAULT 1;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS digest_until timestamp;
+
+ALTER TABLE notifications ALTER COLUMN digest_count DROP DEFAULT;
+
+-- Búsqueda del resumen abierto de un destinatario; solo indexa las filas que abrieron uno
+CREATE INDEX IF NOT EXISTS idx_notification_digest ON notifications (recipient_id, type, digest_until)
+WHERE digest_until IS NOT NULL;
+
+COMMIT;
@@ -0,0 +1,60 @@
+-- Particionado mensual de la tabla de notificaciones por created_at.
+--
+-- Aplicar después de 002 y 003, con la aplicación parada: copia todas las filas a la
+-- nueva tabla, así que dura lo que tarde esa copia. Al arrancar, la aplicación crea
+-- las particiones de los próximos meses y borra las que superan la retención
+-- (sgerm.notifications.partitions.*).
+--
+-- En una tabla particionada la clave primaria debe incluir la columna de partición,
+-- por lo que pasa a ser (id, created_at). Los IDs siguen siendo únicos porque salen
+-- de notifications_seq. No hay partición DEFAULT: una fila sin partición fallaría, y
+-- por eso las particiones se crean con meses de antelación.
+
+BEGIN;
+
+LOCK TABLE notifications IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE notifications RENAME TO notifications_unpartitioned;
+
+CREATE TABLE notifications (
+    LIKE notifications_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING STORAGE
+) PARTITION BY RANGE (created_at);
+
+ALTER TABLE notifications ADD PRIMARY KEY (id, created_at);
+ALTER TABLE notifications ADD FOREIGN KEY (recipient_id) REFERENCES users (id);
+ALTER TABLE notifications ADD FOREIGN KEY (sender_id) REFERENCES users (id);
+ALTER TABLE notifications ADD FOREIGN KEY (related_event_id) REFERENCES events (id);
+ALTER TABLE notifications ADD FOREIGN KEY (related_booking_id) REFERENCES bookings (id);
+
+-- Una partición por mes desde la notificación más antigua hasta tres meses vista
+DO $$
+DECLARE
+    partition_start timestamp := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM notifications_unpartitioned), now()));
+    last_month timestamp := date_trunc('month', now()) + interval '3 months';
+BEGIN
+    WHILE partition_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+                       'notifications_p' || to_char(partition_start, 'YYYYMM'), partition_start, partition_start + interval '1 month');
+        partition_start := partition_start + interval '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO notifications SELECT * FROM notifications_unpartitioned;
+
+DROP TABLE notifications_unpartitioned;
+
+-- Los índices del padre se crean en cada partición, también en las futuras.
+-- (recipient_id, created_at) sustituye a idx_notification_recipient: con el orden por
+-- fecha, el listado de un usuario lee las particiones recientes y se detiene al
+-- completar la página.
+CREATE INDEX idx_notification_recipient_created ON notifications (recipient_id, created_at);
+CREATE INDEX idx_notification_type ON notifications (type);
+CREATE INDEX idx_notification_read ON notifications (is_read);
+CREATE INDEX idx_notification_created ON notifications (created_at);
+CREATE INDEX idx_notification_priority ON notifications (priority);
+CREATE INDEX idx_notification_next_attempt ON notifications (next_attempt_at)
+WHERE next_attempt_at IS NOT NULL;
+CREATE INDEX idx_notification_digest ON notifications (recipient_id, type, digest_until)
+WHERE digest_until IS NOT NULL;
+
+COMMIT;
@@ -0,0 +1,15 @@
+-- Marca de lectura por usuario para "marcar todas como leídas".
+--
+-- Aplicar ANTES de arrancar la versión que usa esta tabla (ver 002). Es idempotente
+-- y puede repetirse. Las notificaciones con created_at <= read_up_to cuentan como
+-- leídas aunque su is_read siga a false, así que marcar todas como leídas escribe una
+-- fila en lugar de una por notificación. Las notificaciones ya marcadas no cambian.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS notification_read_marks (
+    user_id bigint PRIMARY KEY REFERENCES users (id) ON DELETE CASCADE,
+    read_up_to timestamp NOT NULL
+);
+
+COMMIT;
@@ -0,0 +1,22 @@
+-- Preferencias de notificación por usuario: tipos silenciados por canal, horas de
+-- silencio y resúmenes.
+--
+-- Aplicar ANTES de arrancar la versión que usa esta tabla (ver 002). Es idempotente
+-- y puede repetirse. Los usuarios sin fila reciben cada tipo por los canales que
+-- indica NotificationType. Los tipos silenciados se guardan por nombre, separados
+-- por comas.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS notification_preferences (
+    user_id bigint PRIMARY KEY REFERENCES users (id) ON DELETE CASCADE,
+    muted_email_types varchar(1000),
+    muted_push_types varchar(1000),
+    quiet_hours_start time,
+    quiet_hours_end time,
+    time_zone varchar(64),
+    digest_enabled boolean NOT NULL DEFAULT true,
+    updated_at timestamp
+);
+
+COMMIT;
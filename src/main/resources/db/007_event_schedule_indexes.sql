@@ -0,0 +1,14 @@
+-- Índices de fechas, estado, categoría y organizador de la tabla events.
+--
+-- Producción valida el esquema (ddl-auto=validate) y no crea los índices declarados
+-- en la entidad Event; este script los crea con los mismos nombres. Es idempotente y
+-- puede repetirse. Se crean con CONCURRENTLY para no bloquear las escrituras en
+-- events, por lo que no puede ejecutarse dentro de una transacción. Si una creación
+-- se interrumpe, el índice queda marcado como no válido: eliminarlo con
+-- DROP INDEX CONCURRENTLY y volver a ejecutar el script.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_start_date ON events (start_date);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_end_date ON events (end_date);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_status_start_date ON events (status, start_date);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_category ON events (category);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_organizer ON events (organizer_id);
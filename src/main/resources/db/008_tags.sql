@@ -0,0 +1,28 @@
+-- Etiquetas normalizadas de eventos (tags) y su relación con los eventos (event_tags).
+--
+-- Aplicar ANTES de arrancar la versión que usa estas tablas: producción valida el
+-- esquema (ddl-auto=validate) y no arranca sin ellas. Es idempotente y puede
+-- repetirse. La secuencia avanza de 50 en 50 como el resto (ver 001). Al arrancar,
+-- TagService rellena event_tags a partir de la columna events.tags de los eventos
+-- que aún no tienen filas.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS tags_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS tags (
+    id bigint PRIMARY KEY,
+    name varchar(50) NOT NULL UNIQUE,
+    created_at timestamp NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS event_tags (
+    event_id bigint NOT NULL REFERENCES events (id) ON DELETE CASCADE,
+    tag_id bigint NOT NULL REFERENCES tags (id) ON DELETE CASCADE,
+    PRIMARY KEY (event_id, tag_id)
+);
+
+-- Listas de eventos por etiqueta
+CREATE INDEX IF NOT EXISTS idx_event_tags_tag ON event_tags (tag_id, event_id);
+
+COMMIT;
@@ -0,0 +1,12 @@
+-- Columna de versión de events, usada para los ETag y la caché de eventos.
+--
+-- Aplicar ANTES de arrancar la versión que la usa: producción valida el esquema
+-- (ddl-auto=validate) y no arranca sin ella. Es idempotente y puede repetirse. Los
+-- eventos existentes empiezan en la versión 0; Event la incrementa en cada
+-- actualización.
+
+BEGIN;
+
+ALTER TABLE events ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+COMMIT;
@@ -0,0 +1,17 @@
+-- Instantáneas de la puntuación de tendencia por evento (event_trending_scores).
+--
+-- Aplicar ANTES de arrancar la versión que la usa: producción valida el esquema
+-- (ddl-auto=validate) y no arranca sin ella. Es idempotente y puede repetirse. No
+-- lleva clave foránea a events: la instantánea se reescribe completa cada pocos
+-- minutos y al cargarla se descartan los eventos que ya no existen.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS event_trending_scores (
+    event_id bigint PRIMARY KEY,
+    category varchar(255) NOT NULL,
+    score double precision NOT NULL,
+    snapshot_at timestamp NOT NULL
+);
+
+COMMIT;
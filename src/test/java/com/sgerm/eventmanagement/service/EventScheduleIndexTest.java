@@ -0,0 +1,166 @@
+package com.sgerm.eventmanagement.service;
+
+import com.sgerm.eventmanagement.model.Event;
+import com.sgerm.eventmanagement.model.EventStatus;
+import com.sgerm.eventmanagement.repository.EventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas del treap de intervalos: inserción, borrado y actualización (split/merge/delete),
+ * mantenimiento del fin máximo de cada subárbol y recarga concurrente con cambios
+ */
+class EventScheduleIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final EventStatus[] OPEN_STATUSES = {EventStatus.PUBLISHED, EventStatus.DRAFT, EventStatus.SOLD_OUT};
+
+    private EventRepository eventRepository;
+    private EventScheduleIndex index;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        eventRepository = mock(EventRepository.class);
+        index = new EventScheduleIndex(eventRepository, mock(ObjectProvider.class), mock(ObjectProvider.class));
+    }
+
+    @Test
+    void randomChangesMatchBruteForce() {
+        Random random = new Random(42);
+        Map<Long, long[]> expected = new HashMap<>();
+
+        for (int step = 0; step < 3000; step++) {
+            long id = 1 + random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                index.removeEvent(id);
+                expected.remove(id);
+            } else {
+                long start = random.nextInt(10_000);
+                long end = start + random.nextInt(random.nextInt(10) == 0 ? 5_000 : 50);
+                index.onEventChanged(event(id, start, end, OPEN_STATUSES[random.nextInt(OPEN_STATUSES.length)]));
+                expected.put(id, new long[] {start, end});
+            }
+
+            if (step % 50 == 0) {
+                assertThat(index.size()).isEqualTo(expected.size());
+                for (int query = 0; query < 20; query++) {
+                    long from = random.nextInt(11_000);
+                    long to = from + random.nextInt(500);
+                    assertThat(index.findOverlapping(at(from), at(to), status -> true))
+                            .isEqualTo(bruteForce(expected, interval -> interval[1] >= from && interval[0] <= to));
+                    assertThat(index.findStartingWithin(at(from), at(to), status -> true))
+                            .isEqualTo(bruteForce(expected, interval -> interval[0] >= from && interval[0] <= to));
+                }
+            }
+        }
+    }
+
+    @Test
+    void deletingLongIntervalLowersMaxEnd() {
+        index.onEventChanged(event(1L, 0, 1_000, EventStatus.PUBLISHED));
+        for (long id = 2; id <= 50; id++) {
+            index.onEventChanged(event(id, id, id + 1, EventStatus.PUBLISHED));
+        }
+        assertThat(index.findOverlapping(at(500), at(600), status -> true)).containsExactly(1L);
+
+        index.removeEvent(1L);
+
+        assertThat(index.findOverlapping(at(500), at(600), status -> true)).isEmpty();
+        assertThat(index.findOverlapping(at(10), at(10), status -> true)).containsExactly(9L, 10L);
+    }
+
+    @Test
+    void rescheduleMovesIntervalAndFinalizedEventsLeave() {
+        index.onEventChanged(event(1L, 100, 200, EventStatus.PUBLISHED));
+        index.onEventChanged(event(1L, 300, 400, EventStatus.PUBLISHED));
+
+        assertThat(index.findOverlapping(at(150), at(160), status -> true)).isEmpty();
+        assertThat(index.findStartingWithin(at(300), at(300), status -> true)).containsExactly(1L);
+
+        index.onEventChanged(event(1L, 300, 400, EventStatus.CANCELLED));
+
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void statusFilterIsApplied() {
+        index.onEventChanged(event(1L, 100, 200, EventStatus.PUBLISHED));
+        index.onEventChanged(event(2L, 100, 200, EventStatus.DRAFT));
+
+        assertThat(index.findOverlapping(at(150), at(150), status -> status == EventStatus.PUBLISHED))
+                .containsExactly(1L);
+    }
+
+    @Test
+    void reloadKeepsChangesAppliedDuringQuery() {
+        index.onEventChanged(event(1L, 100, 200, EventStatus.PUBLISHED));
+        index.onEventChanged(event(2L, 100, 200, EventStatus.PUBLISHED));
+
+        // La consulta de la recarga devuelve el estado anterior a dos cambios que se confirman mientras tanto
+        when(eventRepository.findNonFinalizedEventSchedules()).thenAnswer(invocation -> {
+            List<Object[]> stale = List.of(row(1L, 100, 200), row(2L, 100, 200));
+            index.onEventChanged(event(1L, 500, 600, EventStatus.PUBLISHED));
+            index.removeEvent(2L);
+            index.onEventChanged(event(3L, 700, 800, EventStatus.PUBLISHED));
+            return stale;
+        });
+
+        index.loadIndex();
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.findOverlapping(at(0), at(1_000), status -> true)).containsExactly(1L, 3L);
+        assertThat(index.findStartingWithin(at(500), at(500), status -> true)).containsExactly(1L);
+    }
+
+    @Test
+    void changesAfterReloadAreNotReplayed() {
+        when(eventRepository.findNonFinalizedEventSchedules()).thenReturn(List.<Object[]>of(row(1L, 100, 200)));
+        index.loadIndex();
+
+        index.removeEvent(1L);
+        when(eventRepository.findNonFinalizedEventSchedules()).thenReturn(List.of());
+        index.loadIndex();
+
+        assertThat(index.size()).isZero();
+    }
+
+    private static List<Long> bruteForce(Map<Long, long[]> intervals, Predicate<long[]> matches) {
+        List<Map.Entry<Long, long[]>> entries = new ArrayList<>();
+        intervals.entrySet().stream().filter(entry -> matches.test(entry.getValue())).forEach(entries::add);
+        entries.sort(Comparator.<Map.Entry<Long, long[]>>comparingLong(entry -> entry.getValue()[0])
+                .thenComparing(Map.Entry::getKey));
+        return entries.stream().map(Map.Entry::getKey).toList();
+    }
+
+    private static Event event(Long id, long startSeconds, long endSeconds, EventStatus status) {
+        Event event = new Event();
+        event.setId(id);
+        event.setStartDate(at(startSeconds));
+        event.setEndDate(at(endSeconds));
+        event.setStatus(status);
+        return event;
+    }
+
+    private static Object[] row(Long id, long startSeconds, long endSeconds) {
+        return new Object[] {id, at(startSeconds), at(endSeconds), EventStatus.PUBLISHED};
+    }
+
+    private static LocalDateTime at(long seconds) {
+        return BASE.plusSeconds(seconds);
+    }
+}